@@ -0,0 +1,26 @@
+package org.osayijoy.load_balancer.discovery;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Where membership comes from. A source delivers the complete list of endpoints each time
+ * it changes; {@link ServiceDiscovery} works out what changed.
+ */
+public interface DiscoverySource extends Closeable {
+
+    /**
+     * Starts watching. The current membership is delivered before this returns, and every
+     * later change is delivered from the source's own thread.
+     */
+    void start(Consumer<List<Endpoint>> listener) throws IOException;
+
+    /**
+     * Stops watching. Sources without resources to release need not override this.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
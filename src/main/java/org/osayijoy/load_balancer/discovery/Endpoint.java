@@ -0,0 +1,54 @@
+package org.osayijoy.load_balancer.discovery;
+
+import java.util.Objects;
+
+/**
+ * A discovered backend: its address, as used for {@link
+ * org.osayijoy.load_balancer.model.Server#getIpAddress()}, and its weight.
+ */
+public final class Endpoint {
+    private final String address;
+    private final int weight;
+
+    public Endpoint(String address, int weight) {
+        if (address == null || address.isEmpty()) {
+            throw new IllegalArgumentException("Endpoint address cannot be null or empty");
+        }
+        if (weight < 1) {
+            // the strategies clamp to 1, so a weight of 0 would still receive traffic
+            throw new IllegalArgumentException("Endpoint weight must be at least 1; remove the endpoint to drain it");
+        }
+        this.address = address;
+        this.weight = weight;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Endpoint)) {
+            return false;
+        }
+        Endpoint endpoint = (Endpoint) other;
+        return weight == endpoint.weight && address.equals(endpoint.address);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(address, weight);
+    }
+
+    @Override
+    public String toString() {
+        return address + " " + weight;
+    }
+}
@@ -0,0 +1,149 @@
+package org.osayijoy.load_balancer.discovery;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reads endpoints from a text file and reloads it whenever it changes, using a
+ * {@link WatchService} on its directory. One endpoint per line, {@code address [weight]},
+ * with a positive weight defaulting to 1; blank lines and lines starting with {@code #} are skipped:
+ * <pre>
+ * # users service
+ * 10.0.0.1:8080 4
+ * 10.0.0.2:8080
+ * </pre>
+ * A file that fails to parse is ignored and the previous membership stays in place. Events
+ * arriving within {@value #SETTLE_MILLIS} ms of each other are folded into one reload, so
+ * a file being rewritten is read once it is complete; replacing it with an atomic rename
+ * avoids reading a partly written file altogether.
+ */
+public class FileDiscoverySource implements DiscoverySource {
+    static final int SETTLE_MILLIS = 5;
+
+    private final Path file;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public FileDiscoverySource(Path file) {
+        this.file = file.toAbsolutePath();
+    }
+
+    @Override
+    public synchronized void start(Consumer<List<Endpoint>> listener) throws IOException {
+        if (watchService != null) {
+            throw new IllegalStateException("Source already started");
+        }
+        WatchService service = FileSystems.getDefault().newWatchService();
+        try {
+            file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            listener.accept(parse(Files.readAllLines(file, StandardCharsets.UTF_8)));
+        } catch (IOException | RuntimeException e) {
+            // leave the source unstarted so start can be retried
+            service.close();
+            throw e;
+        }
+        watchService = service;
+        watcher = new Thread(() -> watch(service, listener), "file-discovery");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch(WatchService service, Consumer<List<Endpoint>> listener) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = concernsFile(key);
+                // let a burst of writes settle before reading
+                while ((key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= concernsFile(key);
+                }
+                if (changed) {
+                    reload(listener);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private boolean concernsFile(WatchKey key) {
+        boolean concerns = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (context instanceof Path && file.getFileName().equals(context))) {
+                concerns = true;
+            }
+        }
+        key.reset();
+        return concerns;
+    }
+
+    private void reload(Consumer<List<Endpoint>> listener) {
+        List<Endpoint> endpoints;
+        try {
+            endpoints = parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            // deleted, or mid-rename; wait for the file to come back
+            return;
+        } catch (IOException | IllegalArgumentException e) {
+            return;
+        }
+        try {
+            listener.accept(endpoints);
+        } catch (RuntimeException e) {
+            // a rejected update must not stop the watcher; the next change is tried afresh
+        }
+    }
+
+    static List<Endpoint> parse(List<String> lines) {
+        List<Endpoint> endpoints = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            if (fields.length > 2) {
+                throw new IllegalArgumentException("Invalid endpoint on line " + (i + 1) + ": " + line);
+            }
+            int weight;
+            try {
+                weight = fields.length == 2 ? Integer.parseInt(fields[1]) : 1;
+            } catch (NumberFormatException e) {
+                weight = 0;
+            }
+            if (weight < 1) {
+                throw new IllegalArgumentException("Invalid weight on line " + (i + 1) + ": " + line);
+            }
+            endpoints.add(new Endpoint(fields[0], weight));
+        }
+        return endpoints;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            try {
+                watcher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
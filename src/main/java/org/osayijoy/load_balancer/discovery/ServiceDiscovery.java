@@ -0,0 +1,129 @@
+package org.osayijoy.load_balancer.discovery;
+
+import org.osayijoy.load_balancer.model.Server;
+import org.osayijoy.load_balancer.service.LoadBalancer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a {@link LoadBalancer}'s membership in step with a {@link DiscoverySource}.
+ * <p>
+ * Each delivered membership is diffed against the current one. New endpoints become
+ * servers, and the additions and removals are applied in one
+ * {@link LoadBalancer#applyMembership} call, so pickers switch to the new membership in a
+ * single snapshot swap without blocking. Weight changes update
+ * {@link Server#setCapacity(int)} in place only once that call has succeeded, followed by
+ * an empty {@code applyMembership} so weight-aware strategies rebuild their schedule.
+ * Removed servers receive no new requests but their in-flight requests finish normally;
+ * they are listed by {@link #getDraining()} until their last connection is released. An
+ * endpoint that comes back while still draining gets its old {@link Server} back, so its
+ * connection count stays accurate.
+ */
+public class ServiceDiscovery implements Closeable {
+    private final LoadBalancer loadBalancer;
+    private final DiscoverySource source;
+    private final Map<String, Server> servers = new HashMap<>();
+    private final Map<String, Server> draining = new HashMap<>();
+    private long updates;
+
+    public ServiceDiscovery(LoadBalancer loadBalancer, DiscoverySource source) {
+        this.loadBalancer = loadBalancer;
+        this.source = source;
+    }
+
+    /**
+     * Applies the source's current membership and follows its changes.
+     */
+    public ServiceDiscovery start() throws IOException {
+        source.start(this::update);
+        return this;
+    }
+
+    /**
+     * Makes {@code endpoints} the load balancer's membership. If an address appears more
+     * than once, the last entry wins.
+     */
+    public synchronized void update(List<Endpoint> endpoints) {
+        Map<String, Endpoint> desired = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            desired.put(endpoint.getAddress(), endpoint);
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String address : servers.keySet()) {
+            if (!desired.containsKey(address)) {
+                removed.add(address);
+            }
+        }
+        List<Server> added = new ArrayList<>();
+        Map<Server, Integer> reweighted = new LinkedHashMap<>();
+        for (Endpoint endpoint : desired.values()) {
+            Server server = servers.get(endpoint.getAddress());
+            if (server == null) {
+                server = draining.get(endpoint.getAddress());
+                if (server == null) {
+                    server = new Server(endpoint.getAddress(), endpoint.getWeight());
+                }
+                added.add(server);
+            }
+            if (server.getCapacity() != endpoint.getWeight()) {
+                reweighted.put(server, endpoint.getWeight());
+            }
+        }
+        if (added.isEmpty() && removed.isEmpty() && reweighted.isEmpty()) {
+            return;
+        }
+
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            loadBalancer.applyMembership(added, removed);
+        }
+        for (String address : removed) {
+            Server server = servers.remove(address);
+            if (server.getActiveConnections() > 0) {
+                draining.put(address, server);
+            }
+        }
+        for (Server server : added) {
+            draining.remove(server.getIpAddress());
+            servers.put(server.getIpAddress(), server);
+        }
+        if (!reweighted.isEmpty()) {
+            reweighted.forEach(Server::setCapacity);
+            loadBalancer.applyMembership(List.of(), List.of());
+        }
+        updates++;
+    }
+
+    /**
+     * The servers currently in the load balancer, by address.
+     */
+    public synchronized Map<String, Server> getServers() {
+        return Map.copyOf(servers);
+    }
+
+    /**
+     * Removed servers that still have requests in flight.
+     */
+    public synchronized List<Server> getDraining() {
+        draining.values().removeIf(server -> server.getActiveConnections() == 0);
+        return List.copyOf(draining.values());
+    }
+
+    /**
+     * Number of membership changes applied so far.
+     */
+    public synchronized long getUpdates() {
+        return updates;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
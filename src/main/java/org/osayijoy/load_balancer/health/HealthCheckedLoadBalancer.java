@@ -0,0 +1,94 @@
+package org.osayijoy.load_balancer.health;
+
+import org.osayijoy.load_balancer.model.Server;
+import org.osayijoy.load_balancer.service.LoadBalancer;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Adds health checking to any {@link LoadBalancer}: servers added here are registered
+ * with the {@link HealthMonitor}, request outcomes passed to
+ * {@link #releaseServer(Server, boolean)} feed its passive checks, and servers in their
+ * slow-start window are picked only in proportion to their
+ * {@linkplain HealthMonitor#trafficShare traffic share}.
+ */
+public class HealthCheckedLoadBalancer implements LoadBalancer {
+    private static final int MAX_SLOW_START_REPICKS = 3;
+
+    private final LoadBalancer delegate;
+    private final HealthMonitor monitor;
+
+    public HealthCheckedLoadBalancer(LoadBalancer delegate, HealthMonitor monitor) {
+        this.delegate = delegate;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void addServer(Server server) {
+        delegate.addServer(server);
+        monitor.register(server);
+    }
+
+    @Override
+    public void removeServer(String ipAddress) {
+        delegate.removeServer(ipAddress);
+        monitor.unregister(ipAddress);
+    }
+
+    @Override
+    public void applyMembership(Collection<Server> added, Collection<String> removed) {
+        delegate.applyMembership(added, removed);
+        for (String ipAddress : removed) {
+            monitor.unregister(ipAddress);
+        }
+        for (Server server : added) {
+            monitor.register(server);
+        }
+    }
+
+    @Override
+    public void removeAllServer() {
+        delegate.removeAllServer();
+        monitor.unregisterAll();
+    }
+
+    @Override
+    public Server getServer() {
+        Server server = delegate.getServer();
+        for (int i = 0; i < MAX_SLOW_START_REPICKS; i++) {
+            double share = monitor.trafficShare(server);
+            if (share >= 1 || ThreadLocalRandom.current().nextDouble() < share) {
+                return server;
+            }
+            delegate.releaseServer(server);
+            server = delegate.getServer();
+        }
+        return server;
+    }
+
+    /**
+     * Keyed picks keep their affinity and are not re-picked for slow start.
+     */
+    @Override
+    public Server getServer(CharSequence key) {
+        return delegate.getServer(key);
+    }
+
+    @Override
+    public void releaseServer(Server server) {
+        delegate.releaseServer(server);
+    }
+
+    @Override
+    public void releaseServer(Server server, boolean success) {
+        monitor.report(server, success);
+        delegate.releaseServer(server, success);
+    }
+
+    @Override
+    public void releaseServer(Server server, long latencyNanos, boolean success) {
+        monitor.report(server, success);
+        delegate.releaseServer(server, latencyNanos, success);
+    }
+}
@@ -0,0 +1,16 @@
+package org.osayijoy.load_balancer.health;
+
+import org.osayijoy.load_balancer.model.Server;
+
+/**
+ * An active probe of one backend.
+ */
+public interface HealthChecker {
+
+    /**
+     * Probes {@code server}, giving up after {@code timeoutMillis}. Implementations are
+     * called from the monitor's probe threads and must not throw for an unreachable or
+     * unhealthy server; they return {@code false}.
+     */
+    boolean check(Server server, int timeoutMillis);
+}
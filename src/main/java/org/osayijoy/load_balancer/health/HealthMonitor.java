@@ -0,0 +1,293 @@
+package org.osayijoy.load_balancer.health;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps {@link Server#isHealthy()} up to date for a set of servers.
+ * <p>
+ * <b>Active checks</b> probe every server with a {@link HealthChecker} at a fixed
+ * interval; a healthy server is marked down after {@code fall} consecutive failed probes
+ * and back up after {@code rise} consecutive successful ones.
+ * <p>
+ * <b>Passive checks</b> watch the outcomes that request threads {@link #report} and eject
+ * a server on the spot once {@code consecutiveFailures} requests in a row have failed.
+ * Without an active checker an ejected server is readmitted after the ejection time;
+ * with one, it comes back once its probes pass again.
+ * <p>
+ * A server that comes back is ramped up over the slow-start window:
+ * {@link #trafficShare(Server)} grows linearly from 10% to 100% of its normal share.
+ */
+public class HealthMonitor implements Closeable {
+    private static final double MIN_SLOW_START_SHARE = 0.1;
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private final HealthChecker checker;
+    private final long intervalMillis;
+    private final int timeoutMillis;
+    private final int rise;
+    private final int fall;
+    private final int consecutiveFailures;
+    private final long ejectionMillis;
+    private final long slowStartMillis;
+    private final LongSupplier clock;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Map<String, ServerHealth> servers = new ConcurrentHashMap<>();
+
+    private HealthMonitor(Builder builder) {
+        this.checker = builder.checker;
+        this.intervalMillis = builder.interval.toMillis();
+        this.timeoutMillis = (int) builder.timeout.toMillis();
+        this.rise = builder.rise;
+        this.fall = builder.fall;
+        this.consecutiveFailures = builder.consecutiveFailures;
+        this.ejectionMillis = builder.ejectionTime.toMillis();
+        this.slowStartMillis = builder.slowStart.toMillis();
+        this.clock = builder.clock;
+        this.scheduler = new ScheduledThreadPoolExecutor(builder.probeThreads, runnable -> {
+            Thread thread = new Thread(runnable, "health-monitor-" + THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Starts watching {@code server}, replacing any server registered with the same address.
+     */
+    public void register(Server server) {
+        ServerHealth health = new ServerHealth(server);
+        if (checker != null) {
+            health.task = scheduler.scheduleWithFixedDelay(() -> probe(health), 0, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        ServerHealth previous = servers.put(server.getIpAddress(), health);
+        cancel(previous);
+    }
+
+    public void unregister(String ipAddress) {
+        cancel(servers.remove(ipAddress));
+    }
+
+    public void unregisterAll() {
+        for (String ipAddress : servers.keySet()) {
+            unregister(ipAddress);
+        }
+    }
+
+    /**
+     * Records the outcome of a request sent to {@code server}. Cheap enough to call on
+     * every request: a success only writes when it ends a run of failures.
+     */
+    public void report(Server server, boolean success) {
+        ServerHealth health = servers.get(server.getIpAddress());
+        if (health == null || health.server != server) {
+            return;
+        }
+        if (success) {
+            if (health.passiveFailures.get() != 0) {
+                health.passiveFailures.set(0);
+            }
+        } else if (health.passiveFailures.incrementAndGet() == consecutiveFailures && server.isHealthy()) {
+            eject(health);
+        }
+    }
+
+    /**
+     * The fraction of its normal traffic {@code server} should receive: 1 outside the
+     * slow-start window after it recovers.
+     */
+    public double trafficShare(Server server) {
+        if (slowStartMillis == 0) {
+            return 1;
+        }
+        ServerHealth health = servers.get(server.getIpAddress());
+        if (health == null) {
+            return 1;
+        }
+        long since = health.recoveringSince;
+        if (since == 0) {
+            return 1;
+        }
+        long elapsed = clock.getAsLong() - since;
+        if (elapsed >= slowStartMillis) {
+            health.recoveringSince = 0;
+            return 1;
+        }
+        return Math.max(MIN_SLOW_START_SHARE, (double) elapsed / slowStartMillis);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        servers.clear();
+    }
+
+    private void probe(ServerHealth health) {
+        boolean passed = checker.check(health.server, timeoutMillis);
+        synchronized (health) {
+            if (passed) {
+                health.probeFailures = 0;
+                health.probeSuccesses++;
+                if (!health.server.isHealthy() && health.probeSuccesses >= rise) {
+                    readmit(health);
+                }
+            } else {
+                health.probeSuccesses = 0;
+                health.probeFailures++;
+                if (health.server.isHealthy() && health.probeFailures >= fall) {
+                    health.server.setHealth(false);
+                }
+            }
+        }
+    }
+
+    private void eject(ServerHealth health) {
+        synchronized (health) {
+            health.probeSuccesses = 0;
+            health.server.setHealth(false);
+        }
+        if (checker == null) {
+            scheduler.schedule(() -> {
+                synchronized (health) {
+                    if (servers.get(health.server.getIpAddress()) == health && !health.server.isHealthy()) {
+                        readmit(health);
+                    }
+                }
+            }, ejectionMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void readmit(ServerHealth health) {
+        health.passiveFailures.set(0);
+        health.recoveringSince = slowStartMillis > 0 ? Math.max(1, clock.getAsLong()) : 0;
+        health.server.setHealth(true);
+    }
+
+    private static void cancel(ServerHealth health) {
+        if (health != null) {
+            ScheduledFuture<?> task = health.task;
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private HealthChecker checker;
+        private Duration interval = Duration.ofSeconds(5);
+        private Duration timeout = Duration.ofSeconds(1);
+        private int rise = 2;
+        private int fall = 3;
+        private int consecutiveFailures = 5;
+        private Duration ejectionTime = Duration.ofSeconds(30);
+        private Duration slowStart = Duration.ZERO;
+        private int probeThreads = 2;
+        private LongSupplier clock = System::currentTimeMillis;
+
+        private Builder() {
+        }
+
+        /**
+         * Enables active checks; without a checker only passive checks run.
+         */
+        public Builder checker(HealthChecker checker) {
+            this.checker = checker;
+            return this;
+        }
+
+        public Builder interval(Duration interval) {
+            if (interval.toMillis() <= 0) {
+                throw new IllegalArgumentException("Check interval must be positive");
+            }
+            this.interval = interval;
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            if (timeout.toMillis() <= 0 || timeout.toMillis() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Check timeout must be positive");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Consecutive passed probes that bring an unhealthy server back.
+         */
+        public Builder rise(int rise) {
+            if (rise < 1) {
+                throw new IllegalArgumentException("Rise must be positive");
+            }
+            this.rise = rise;
+            return this;
+        }
+
+        /**
+         * Consecutive failed probes that mark a healthy server down.
+         */
+        public Builder fall(int fall) {
+            if (fall < 1) {
+                throw new IllegalArgumentException("Fall must be positive");
+            }
+            this.fall = fall;
+            return this;
+        }
+
+        /**
+         * Consecutive failed requests that eject a server.
+         */
+        public Builder consecutiveFailures(int consecutiveFailures) {
+            if (consecutiveFailures < 1) {
+                throw new IllegalArgumentException("Consecutive failures must be positive");
+            }
+            this.consecutiveFailures = consecutiveFailures;
+            return this;
+        }
+
+        public Builder ejectionTime(Duration ejectionTime) {
+            if (ejectionTime.isNegative()) {
+                throw new IllegalArgumentException("Ejection time cannot be negative");
+            }
+            this.ejectionTime = ejectionTime;
+            return this;
+        }
+
+        public Builder slowStart(Duration slowStart) {
+            if (slowStart.isNegative()) {
+                throw new IllegalArgumentException("Slow start cannot be negative");
+            }
+            this.slowStart = slowStart;
+            return this;
+        }
+
+        public Builder probeThreads(int probeThreads) {
+            if (probeThreads < 1) {
+                throw new IllegalArgumentException("Probe thread count must be positive");
+            }
+            this.probeThreads = probeThreads;
+            return this;
+        }
+
+        public Builder clock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public HealthMonitor build() {
+            return new HealthMonitor(this);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.osayijoy.load_balancer.health;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Healthy when {@code GET path} answers with a 2xx or 3xx status. Only the status line is
+ * read, over a fresh connection that is closed afterwards.
+ */
+public class HttpHealthChecker implements HealthChecker {
+    private final String path;
+    private final int defaultPort;
+
+    public HttpHealthChecker(String path, int defaultPort) {
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException("Health check path must start with /");
+        }
+        this.path = path;
+        this.defaultPort = defaultPort;
+    }
+
+    @Override
+    public boolean check(Server server, int timeoutMillis) {
+        try (Socket socket = new Socket()) {
+            InetSocketAddress address = server.toSocketAddress(defaultPort);
+            socket.connect(address, timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + path + " HTTP/1.1\r\nHost: " + address.getHostString()
+                    + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            int status = readStatus(socket.getInputStream());
+            return status >= 200 && status < 400;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses the status code from {@code HTTP/1.x NNN ...}, or returns -1.
+     */
+    private static int readStatus(InputStream in) throws IOException {
+        byte[] line = new byte[12];
+        int read = 0;
+        while (read < line.length) {
+            int n = in.read(line, read, line.length - read);
+            if (n < 0) {
+                return -1;
+            }
+            read += n;
+        }
+        if (line[0] != 'H' || line[8] != ' ') {
+            return -1;
+        }
+        int status = 0;
+        for (int i = 9; i < 12; i++) {
+            if (line[i] < '0' || line[i] > '9') {
+                return -1;
+            }
+            status = status * 10 + (line[i] - '0');
+        }
+        return status;
+    }
+}
@@ -0,0 +1,26 @@
+package org.osayijoy.load_balancer.health;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Health-check state of one registered server. Probe counters are only touched by that
+ * server's probe task; passive failures are reported concurrently by request threads.
+ */
+final class ServerHealth {
+    final Server server;
+    final AtomicInteger passiveFailures = new AtomicInteger();
+    int probeSuccesses;
+    int probeFailures;
+    /**
+     * When the server last became healthy again, or 0 once slow start is over.
+     */
+    volatile long recoveringSince;
+    volatile ScheduledFuture<?> task;
+
+    ServerHealth(Server server) {
+        this.server = server;
+    }
+}
@@ -0,0 +1,28 @@
+package org.osayijoy.load_balancer.health;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Healthy when a TCP connection to the server can be opened, on {@code defaultPort}
+ * unless the server's address names a port.
+ */
+public class TcpHealthChecker implements HealthChecker {
+    private final int defaultPort;
+
+    public TcpHealthChecker(int defaultPort) {
+        this.defaultPort = defaultPort;
+    }
+
+    @Override
+    public boolean check(Server server, int timeoutMillis) {
+        try (Socket socket = new Socket()) {
+            socket.connect(server.toSocketAddress(defaultPort), timeoutMillis);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
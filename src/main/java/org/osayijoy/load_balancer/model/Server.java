@@ -1,18 +1,20 @@
 package org.osayijoy.load_balancer.model;
 
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Server {
     private String ipAddress;
     private int currentWeight;
-    private int capacity;
-    private boolean health;
-    private int activeConnections;
+    private volatile int capacity;
+    private volatile boolean health;
+    private final AtomicInteger activeConnections = new AtomicInteger();
 
     public Server(String ipAddress, int capacity) {
         this.ipAddress = ipAddress;
         this.capacity = capacity;
         this.currentWeight = 0;
         this.health = true;
-        this.activeConnections = 0;
     }
 
 
@@ -20,7 +22,6 @@ public class Server {
         this.ipAddress = ipAddress;
         this.currentWeight = 0;
         this.health = true;
-        this.activeConnections = 0;
     }
 
     public String getIpAddress() {
@@ -39,6 +40,10 @@ public class Server {
         return capacity;
     }
 
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
     public boolean isHealthy() {
         return health;
     }
@@ -48,15 +53,43 @@ public class Server {
     }
 
     public int getActiveConnections() {
-        return activeConnections;
+        return activeConnections.get();
     }
 
     public void incrementActiveConnections() {
-        activeConnections++;
+        activeConnections.incrementAndGet();
     }
 
+    /**
+     * Decrements the active connection count, which never drops below zero.
+     */
     public void decrementActiveConnections() {
-        activeConnections--;
+        activeConnections.getAndUpdate(count -> count > 0 ? count - 1 : 0);
     }
-}
 
+    /**
+     * The server's socket address. The address is {@code host}, {@code host:port} or
+     * {@code [ipv6]:port}; {@code defaultPort} is used when it has no port.
+     */
+    public InetSocketAddress toSocketAddress(int defaultPort) {
+        String host = ipAddress;
+        int port = defaultPort;
+        if (ipAddress.startsWith("[")) {
+            int close = ipAddress.indexOf(']');
+            if (close < 0) {
+                throw new IllegalArgumentException("Invalid server address " + ipAddress);
+            }
+            host = ipAddress.substring(1, close);
+            if (close + 1 < ipAddress.length()) {
+                port = Integer.parseInt(ipAddress.substring(close + 2));
+            }
+        } else {
+            int colon = ipAddress.indexOf(':');
+            if (colon >= 0 && colon == ipAddress.lastIndexOf(':')) {
+                host = ipAddress.substring(0, colon);
+                port = Integer.parseInt(ipAddress.substring(colon + 1));
+            }
+        }
+        return new InetSocketAddress(host, port);
+    }
+}
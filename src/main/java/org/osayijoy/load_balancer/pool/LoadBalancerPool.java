@@ -0,0 +1,151 @@
+package org.osayijoy.load_balancer.pool;
+
+import org.osayijoy.load_balancer.health.HealthCheckedLoadBalancer;
+import org.osayijoy.load_balancer.health.HealthMonitor;
+import org.osayijoy.load_balancer.model.Server;
+import org.osayijoy.load_balancer.service.LoadBalancer;
+import org.osayijoy.load_balancer.service.Strategy;
+
+import java.io.Closeable;
+import java.util.Collection;
+
+/**
+ * A named set of backends for one upstream service, with its own strategy, optional
+ * health monitor and {@link PoolMetrics}. Pools share no state, so traffic to one
+ * upstream never contends with another's counters or locks.
+ */
+public class LoadBalancerPool implements LoadBalancer, Closeable {
+    private final String name;
+    private final Strategy strategy;
+    private final LoadBalancer loadBalancer;
+    private final HealthMonitor healthMonitor;
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    private LoadBalancerPool(Builder builder) {
+        this.name = builder.name;
+        this.strategy = builder.strategy;
+        this.healthMonitor = builder.healthMonitor;
+        LoadBalancer base = LoadBalancer.create(builder.strategy);
+        this.loadBalancer = healthMonitor != null ? new HealthCheckedLoadBalancer(base, healthMonitor) : base;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void addServer(Server server) {
+        loadBalancer.addServer(server);
+    }
+
+    @Override
+    public void removeServer(String ipAddress) {
+        loadBalancer.removeServer(ipAddress);
+    }
+
+    @Override
+    public void removeAllServer() {
+        loadBalancer.removeAllServer();
+    }
+
+    @Override
+    public void applyMembership(Collection<Server> added, Collection<String> removed) {
+        loadBalancer.applyMembership(added, removed);
+    }
+
+    @Override
+    public Server getServer() {
+        try {
+            Server server = loadBalancer.getServer();
+            metrics.recordPick();
+            return server;
+        } catch (IllegalStateException e) {
+            metrics.recordUnavailable();
+            throw e;
+        }
+    }
+
+    @Override
+    public Server getServer(CharSequence key) {
+        try {
+            Server server = loadBalancer.getServer(key);
+            metrics.recordPick();
+            return server;
+        } catch (IllegalStateException e) {
+            metrics.recordUnavailable();
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseServer(Server server) {
+        loadBalancer.releaseServer(server);
+    }
+
+    @Override
+    public void releaseServer(Server server, boolean success) {
+        metrics.recordCompletion(0, success);
+        loadBalancer.releaseServer(server, success);
+    }
+
+    @Override
+    public void releaseServer(Server server, long latencyNanos, boolean success) {
+        metrics.recordCompletion(latencyNanos, success);
+        loadBalancer.releaseServer(server, latencyNanos, success);
+    }
+
+    /**
+     * Stops the pool's health checks. The servers stay registered.
+     */
+    @Override
+    public void close() {
+        if (healthMonitor != null) {
+            healthMonitor.close();
+        }
+    }
+
+    public static final class Builder {
+        private final String name;
+        private Strategy strategy = Strategy.POWER_OF_TWO_CHOICES;
+        private HealthMonitor healthMonitor;
+
+        private Builder(String name) {
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("Pool name cannot be null or empty");
+            }
+            this.name = name;
+        }
+
+        public Builder strategy(Strategy strategy) {
+            this.strategy = strategy;
+            return this;
+        }
+
+        /**
+         * Health monitor owned by this pool; it is closed with the pool.
+         */
+        public Builder healthMonitor(HealthMonitor healthMonitor) {
+            this.healthMonitor = healthMonitor;
+            return this;
+        }
+
+        public LoadBalancerPool build() {
+            if (strategy == null) {
+                throw new IllegalArgumentException("Strategy is required");
+            }
+            return new LoadBalancerPool(this);
+        }
+    }
+}
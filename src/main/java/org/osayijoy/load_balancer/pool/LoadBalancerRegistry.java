@@ -0,0 +1,59 @@
+package org.osayijoy.load_balancer.pool;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named, independent {@link LoadBalancerPool}s, one per upstream service.
+ */
+public class LoadBalancerRegistry implements Closeable {
+    private final Map<String, LoadBalancerPool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Builds and registers a pool.
+     *
+     * @throws IllegalArgumentException if a pool with the same name exists
+     */
+    public LoadBalancerPool register(LoadBalancerPool.Builder builder) {
+        LoadBalancerPool pool = builder.build();
+        if (pools.putIfAbsent(pool.getName(), pool) != null) {
+            pool.close();
+            throw new IllegalArgumentException("Pool " + pool.getName() + " already exists");
+        }
+        return pool;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no pool with that name
+     */
+    public LoadBalancerPool getPool(String name) {
+        LoadBalancerPool pool = pools.get(name);
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool " + name + " not found");
+        }
+        return pool;
+    }
+
+    public Set<String> getPoolNames() {
+        return Set.copyOf(pools.keySet());
+    }
+
+    /**
+     * Unregisters and closes a pool; unknown names are ignored.
+     */
+    public void remove(String name) {
+        LoadBalancerPool pool = pools.remove(name);
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (String name : pools.keySet()) {
+            remove(name);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.osayijoy.load_balancer.pool;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters of one pool. Striped adders, so request threads updating them do not
+ * contend with each other or with other pools.
+ */
+public final class PoolMetrics {
+    private final LongAdder picks = new LongAdder();
+    private final LongAdder unavailable = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timed = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+
+    void recordPick() {
+        picks.increment();
+    }
+
+    void recordUnavailable() {
+        unavailable.increment();
+    }
+
+    void recordCompletion(long latency, boolean success) {
+        completed.increment();
+        if (!success) {
+            failed.increment();
+        }
+        if (latency > 0) {
+            timed.increment();
+            latencyNanos.add(latency);
+        }
+    }
+
+    /**
+     * Servers handed out.
+     */
+    public long getPicks() {
+        return picks.sum();
+    }
+
+    /**
+     * Picks that failed because no healthy server was available.
+     */
+    public long getUnavailable() {
+        return unavailable.sum();
+    }
+
+    /**
+     * Requests released with an outcome.
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Mean latency of the completed requests that reported one, in nanoseconds.
+     */
+    public double getMeanLatencyNanos() {
+        long count = timed.sum();
+        return count == 0 ? 0 : (double) latencyNanos.sum() / count;
+    }
+}
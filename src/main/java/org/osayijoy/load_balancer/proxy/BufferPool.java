@@ -0,0 +1,31 @@
+package org.osayijoy.load_balancer.proxy;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Free list of equally sized direct buffers. Each event loop owns one, so it is not
+ * thread-safe.
+ */
+final class BufferPool {
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+
+    BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer buffer = free.pollFirst();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void release(ByteBuffer buffer) {
+        if (free.size() < maxPooled) {
+            buffer.clear();
+            free.addFirst(buffer);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package org.osayijoy.load_balancer.proxy;
+
+import org.osayijoy.load_balancer.model.Server;
+import org.osayijoy.load_balancer.service.LoadBalancer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One selector thread splicing a share of the proxied connections. Each session's client
+ * and backend channels are registered here together, so a session, its buffers and the
+ * buffer pool are confined to this thread.
+ * <p>
+ * Backend addresses are resolved the first time a server is picked and then reused, so a
+ * host name costs at most one blocking lookup per server on this thread. An address that
+ * does not parse or resolve fails that connect attempt like a refused connection.
+ */
+final class ProxyEventLoop implements Runnable {
+    private final Selector selector;
+    private final BufferPool pool;
+    private final LoadBalancer loadBalancer;
+    private final int backendPort;
+    private final int maxConnectAttempts;
+    private final boolean stickyClients;
+    private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+    private final Map<Server, InetSocketAddress> addresses = new WeakHashMap<>();
+    private volatile boolean running = true;
+
+    ProxyEventLoop(LoadBalancer loadBalancer, BufferPool pool, int backendPort,
+                   int maxConnectAttempts, boolean stickyClients) throws IOException {
+        this.selector = Selector.open();
+        this.loadBalancer = loadBalancer;
+        this.pool = pool;
+        this.backendPort = backendPort;
+        this.maxConnectAttempts = maxConnectAttempts;
+        this.stickyClients = stickyClients;
+    }
+
+    void register(SocketChannel channel) {
+        pending.add(channel);
+        selector.wakeup();
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                registerPending();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    ProxySession session = (ProxySession) key.attachment();
+                    try {
+                        handle(key, session);
+                    } catch (IOException | RuntimeException e) {
+                        close(session);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // shutting down
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                close((ProxySession) key.attachment());
+            }
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                closeQuietly(channel);
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private void registerPending() {
+        SocketChannel channel;
+        while ((channel = pending.poll()) != null) {
+            ProxySession session = new ProxySession(channel);
+            try {
+                session.clientKey = channel.register(selector, 0, session);
+                session.upstream = pool.acquire();
+                session.downstream = pool.acquire();
+                connectBackend(session);
+                updateInterest(session);
+            } catch (IOException | RuntimeException e) {
+                close(session);
+            }
+        }
+    }
+
+    /**
+     * Asks the load balancer for a backend and starts a non-blocking connect to it. A
+     * connect that fails before it is even in flight moves on to the next backend. The
+     * channel is set up before a server is taken, so a local failure leaves nothing to
+     * release.
+     */
+    private void connectBackend(ProxySession session) throws IOException {
+        SocketChannel backend = SocketChannel.open();
+        Server server;
+        try {
+            backend.configureBlocking(false);
+            backend.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            backend.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            server = stickyClients
+                    ? loadBalancer.getServer(session.client.socket().getInetAddress().getHostAddress())
+                    : loadBalancer.getServer();
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(backend);
+            throw e;
+        }
+        // from here on close() sees the backend and hands the server back
+        session.server = server;
+        session.backend = backend;
+        session.startNanos = System.nanoTime();
+        session.connectAttempts++;
+        session.backendKey = backend.register(selector, 0, session);
+        try {
+            session.connected = backend.connect(addressOf(server));
+        } catch (IOException | RuntimeException e) {
+            // malformed or unresolvable address, or refused on the spot
+            retryConnect(session);
+            return;
+        }
+        if (session.connected) {
+            session.connectNanos = System.nanoTime() - session.startNanos;
+        }
+    }
+
+    private InetSocketAddress addressOf(Server server) {
+        InetSocketAddress address = addresses.get(server);
+        if (address == null) {
+            address = server.toSocketAddress(backendPort);
+            if (!address.isUnresolved()) {
+                addresses.put(server, address);
+            }
+        }
+        return address;
+    }
+
+    private void handle(SelectionKey key, ProxySession session) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        boolean fromClient = key == session.clientKey;
+        if (!fromClient && key.isConnectable()) {
+            try {
+                session.connected = session.backend.finishConnect();
+            } catch (IOException e) {
+                retryConnect(session);
+                return;
+            }
+            if (session.connected) {
+                session.connectNanos = System.nanoTime() - session.startNanos;
+            }
+        }
+        if (key.isValid() && key.isReadable()) {
+            if (fromClient) {
+                if (session.client.read(session.upstream) < 0) {
+                    session.clientEof = true;
+                }
+            } else {
+                try {
+                    if (session.backend.read(session.downstream) < 0) {
+                        session.backendEof = true;
+                    }
+                } catch (IOException e) {
+                    session.failed = true;
+                    throw e;
+                }
+            }
+        }
+        pump(session);
+    }
+
+    /**
+     * Gives up on a backend that refused the connection and tries another, until the
+     * attempts run out.
+     */
+    private void retryConnect(ProxySession session) throws IOException {
+        release(session, false);
+        session.backendKey.cancel();
+        closeQuietly(session.backend);
+        session.backend = null;
+        session.backendKey = null;
+        if (session.connectAttempts >= maxConnectAttempts) {
+            close(session);
+            return;
+        }
+        try {
+            connectBackend(session);
+        } catch (IllegalStateException e) {
+            close(session);
+            return;
+        }
+        // a connect that failed on the spot may have used up the attempts already
+        if (!session.closed) {
+            pump(session);
+        }
+    }
+
+    /**
+     * Writes what each direction has buffered, passes end-of-stream on once a direction is
+     * drained and closes the session when both directions are finished. Only an error on
+     * the backend channel counts against the server.
+     */
+    private void pump(ProxySession session) throws IOException {
+        if (session.connected) {
+            try {
+                write(session.upstream, session.backend);
+                if (session.clientEof && session.upstream.position() == 0 && !session.backendOutputShut) {
+                    session.backend.shutdownOutput();
+                    session.backendOutputShut = true;
+                }
+            } catch (IOException e) {
+                session.failed = true;
+                throw e;
+            }
+        }
+        write(session.downstream, session.client);
+        if (session.backendEof && session.downstream.position() == 0 && !session.clientOutputShut) {
+            session.client.shutdownOutput();
+            session.clientOutputShut = true;
+        }
+        if (session.clientOutputShut && session.backendOutputShut) {
+            close(session);
+            return;
+        }
+        updateInterest(session);
+    }
+
+    private static void write(ByteBuffer buffer, SocketChannel channel) throws IOException {
+        if (buffer.position() > 0) {
+            buffer.flip();
+            channel.write(buffer);
+            buffer.compact();
+        }
+    }
+
+    /**
+     * Reads from a side only while there is room to buffer for the other side, and waits
+     * for writability only while bytes are pending, so a slow reader stalls its writer.
+     */
+    private static void updateInterest(ProxySession session) {
+        if (!session.clientKey.isValid()) {
+            return;
+        }
+        int clientOps = 0;
+        if (!session.clientEof && session.upstream.hasRemaining()) {
+            clientOps |= SelectionKey.OP_READ;
+        }
+        if (session.downstream.position() > 0) {
+            clientOps |= SelectionKey.OP_WRITE;
+        }
+        session.clientKey.interestOps(clientOps);
+
+        if (session.backendKey == null || !session.backendKey.isValid()) {
+            return;
+        }
+        int backendOps;
+        if (!session.connected) {
+            backendOps = SelectionKey.OP_CONNECT;
+        } else {
+            backendOps = 0;
+            if (!session.backendEof && session.downstream.hasRemaining()) {
+                backendOps |= SelectionKey.OP_READ;
+            }
+            if (session.upstream.position() > 0) {
+                backendOps |= SelectionKey.OP_WRITE;
+            }
+        }
+        session.backendKey.interestOps(backendOps);
+    }
+
+    private void close(ProxySession session) {
+        session.closed = true;
+        if (session.clientKey != null) {
+            session.clientKey.cancel();
+        }
+        closeQuietly(session.client);
+        if (session.backend != null) {
+            if (session.backendKey != null) {
+                session.backendKey.cancel();
+            }
+            closeQuietly(session.backend);
+            session.backend = null;
+            release(session, !session.failed);
+        }
+        if (session.upstream != null) {
+            pool.release(session.upstream);
+            pool.release(session.downstream);
+            session.upstream = null;
+            session.downstream = null;
+        }
+    }
+
+    /**
+     * Hands the session's server back to the load balancer, exactly once per backend, with
+     * the connect time as its latency, or the time spent on a connect that never finished.
+     */
+    private void release(ProxySession session, boolean success) {
+        Server server = session.server;
+        if (server != null) {
+            session.server = null;
+            long latencyNanos = session.connected
+                    ? session.connectNanos
+                    : System.nanoTime() - session.startNanos;
+            loadBalancer.releaseServer(server, latencyNanos, success);
+        }
+    }
+
+    static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // nothing left to release
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.osayijoy.load_balancer.proxy;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * One proxied client connection and its backend connection. Both buffers stay in write
+ * mode: their position is the number of bytes waiting to be sent on.
+ */
+final class ProxySession {
+    final SocketChannel client;
+    SelectionKey clientKey;
+    SocketChannel backend;
+    SelectionKey backendKey;
+    /**
+     * Client to backend.
+     */
+    ByteBuffer upstream;
+    /**
+     * Backend to client.
+     */
+    ByteBuffer downstream;
+    Server server;
+    long startNanos;
+    /**
+     * How long the backend took to accept the connection; reported as its latency, since
+     * the session's own lifetime depends on the client.
+     */
+    long connectNanos;
+    int connectAttempts;
+    boolean connected;
+    boolean clientEof;
+    boolean backendEof;
+    boolean backendOutputShut;
+    boolean clientOutputShut;
+    boolean failed;
+    boolean closed;
+
+    ProxySession(SocketChannel client) {
+        this.client = client;
+    }
+}
@@ -0,0 +1,201 @@
+package org.osayijoy.load_balancer.proxy;
+
+import org.osayijoy.load_balancer.service.LoadBalancer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Layer 4 proxy in front of a {@link LoadBalancer}. Every accepted connection gets a
+ * backend from {@link LoadBalancer#getServer()}, and bytes are spliced both ways until
+ * both sides have finished; half-closes are passed through. When the session ends the
+ * server is handed back with {@link LoadBalancer#releaseServer(org.osayijoy.load_balancer.model.Server, long, boolean)},
+ * reporting the session duration and whether the backend failed, so connection counts,
+ * latency and passive health checks stay accurate. A backend that refuses the connection
+ * is reported as failed and another one is tried.
+ * <p>
+ * An acceptor thread hands connections round-robin to a fixed set of selector threads,
+ * each splicing through its own pool of direct buffers.
+ */
+public class TcpProxy implements Closeable {
+    private static final long ACCEPT_BACKOFF_MILLIS = 10;
+
+    private final InetSocketAddress bindAddress;
+    private final ProxyEventLoop[] eventLoops;
+    private final Thread[] threads;
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+
+    private TcpProxy(Builder builder) throws IOException {
+        this.bindAddress = builder.bindAddress;
+        this.eventLoops = new ProxyEventLoop[builder.eventLoops];
+        this.threads = new Thread[builder.eventLoops];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new ProxyEventLoop(builder.loadBalancer, new BufferPool(builder.bufferSize, 1024),
+                    builder.backendPort, builder.connectAttempts, builder.stickyClients);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public synchronized TcpProxy start() throws IOException {
+        if (serverChannel != null) {
+            throw new IllegalStateException("Proxy already started");
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(bindAddress, 1024);
+        for (int i = 0; i < eventLoops.length; i++) {
+            threads[i] = new Thread(eventLoops[i], "tcp-proxy-" + i);
+            threads[i].start();
+        }
+        acceptor = new Thread(this::accept, "tcp-proxy-acceptor");
+        acceptor.start();
+        return this;
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void accept() {
+        int next = 0;
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // typically out of file descriptors; give connections a moment to close
+                backOff();
+                continue;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            } catch (IOException e) {
+                ProxyEventLoop.closeQuietly(channel);
+                continue;
+            }
+            eventLoops[next].register(channel);
+            next = next + 1 == eventLoops.length ? 0 : next + 1;
+        }
+    }
+
+    private static void backOff() {
+        try {
+            Thread.sleep(ACCEPT_BACKOFF_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (serverChannel == null) {
+            return;
+        }
+        serverChannel.close();
+        for (ProxyEventLoop eventLoop : eventLoops) {
+            eventLoop.shutdown();
+        }
+        try {
+            acceptor.join();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static final class Builder {
+        private LoadBalancer loadBalancer;
+        private InetSocketAddress bindAddress = new InetSocketAddress(8000);
+        private int eventLoops = Runtime.getRuntime().availableProcessors();
+        private int bufferSize = 16 * 1024;
+        private int backendPort = 80;
+        private int connectAttempts = 2;
+        private boolean stickyClients;
+
+        private Builder() {
+        }
+
+        public Builder loadBalancer(LoadBalancer loadBalancer) {
+            this.loadBalancer = loadBalancer;
+            return this;
+        }
+
+        public Builder bindAddress(InetSocketAddress bindAddress) {
+            this.bindAddress = bindAddress;
+            return this;
+        }
+
+        public Builder port(int port) {
+            return bindAddress(new InetSocketAddress(port));
+        }
+
+        public Builder eventLoops(int eventLoops) {
+            if (eventLoops < 1) {
+                throw new IllegalArgumentException("Event loop count must be positive");
+            }
+            this.eventLoops = eventLoops;
+            return this;
+        }
+
+        /**
+         * Size of the two pooled buffers each session splices through.
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < 512) {
+                throw new IllegalArgumentException("Buffer size must be at least 512 bytes");
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Port for servers whose address does not name one.
+         */
+        public Builder backendPort(int backendPort) {
+            this.backendPort = backendPort;
+            return this;
+        }
+
+        /**
+         * Backends tried per client before its connection is dropped.
+         */
+        public Builder connectAttempts(int connectAttempts) {
+            if (connectAttempts < 1) {
+                throw new IllegalArgumentException("Connect attempts must be positive");
+            }
+            this.connectAttempts = connectAttempts;
+            return this;
+        }
+
+        /**
+         * Picks backends with {@link LoadBalancer#getServer(CharSequence)} keyed by the
+         * client's IP address, so a client keeps its backend under a consistent-hash strategy.
+         */
+        public Builder stickyClients(boolean stickyClients) {
+            this.stickyClients = stickyClients;
+            return this;
+        }
+
+        public TcpProxy build() throws IOException {
+            if (loadBalancer == null) {
+                throw new IllegalArgumentException("Load balancer is required");
+            }
+            return new TcpProxy(this);
+        }
+    }
+}
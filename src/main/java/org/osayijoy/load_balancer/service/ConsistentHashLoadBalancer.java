@@ -0,0 +1,188 @@
+package org.osayijoy.load_balancer.service;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes each key to the same server, by hashing servers onto a ring of virtual nodes and
+ * keys to the next virtual node clockwise. Adding or removing a server only moves the keys
+ * on its arcs, about 1/n of them.
+ * <p>
+ * Loads are bounded: a server already holding more than {@code loadFactor} times the
+ * average number of active connections is passed over for the next server on the ring,
+ * so a hot key spills onto its neighbours instead of overloading its owner. Lookup is a
+ * binary search over a sorted {@code long[]} rebuilt on membership changes.
+ */
+public class ConsistentHashLoadBalancer implements LoadBalancer {
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final ServerRegistry serverRegistry;
+    private final int virtualNodes;
+    private final double loadFactor;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private volatile Ring ring = Ring.EMPTY;
+
+    public ConsistentHashLoadBalancer() {
+        this(Integer.MAX_VALUE, 160, 1.25);
+    }
+
+    /**
+     * @param virtualNodes points each server gets on the ring
+     * @param loadFactor how far above the average load a server may go before keys spill
+     *                   over, at least 1
+     */
+    public ConsistentHashLoadBalancer(int maxServers, int virtualNodes, double loadFactor) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual node count must be positive");
+        }
+        if (!(loadFactor >= 1)) {
+            throw new IllegalArgumentException("Load factor must be at least 1");
+        }
+        this.serverRegistry = new ServerRegistry(maxServers);
+        this.virtualNodes = virtualNodes;
+        this.loadFactor = loadFactor;
+    }
+
+    @Override
+    public synchronized void addServer(Server server) {
+        serverRegistry.add(server);
+        ring = Ring.build(serverRegistry.snapshot(), virtualNodes);
+    }
+
+    @Override
+    public synchronized void removeServer(String ipAddress) {
+        if (serverRegistry.remove(ipAddress) != null) {
+            ring = Ring.build(serverRegistry.snapshot(), virtualNodes);
+        }
+    }
+
+    @Override
+    public synchronized void applyMembership(Collection<Server> added, Collection<String> removed) {
+        serverRegistry.apply(added, removed);
+        ring = Ring.build(serverRegistry.snapshot(), virtualNodes);
+    }
+
+    @Override
+    public synchronized void removeAllServer() {
+        serverRegistry.clear();
+        ring = Ring.EMPTY;
+        totalConnections.set(0);
+    }
+
+    /**
+     * Picks a server for a request without affinity, from a random point on the ring.
+     */
+    @Override
+    public Server getServer() {
+        return pick(ring, ThreadLocalRandom.current().nextLong());
+    }
+
+    @Override
+    public Server getServer(CharSequence key) {
+        return pick(ring, hash(key));
+    }
+
+    @Override
+    public void releaseServer(Server server) {
+        server.decrementActiveConnections();
+        totalConnections.getAndUpdate(count -> count > 0 ? count - 1 : 0);
+    }
+
+    private Server pick(Ring ring, long hash) {
+        long[] points = ring.points;
+        if (points.length == 0) {
+            throw new IllegalStateException("No servers available");
+        }
+        int serverCount = ring.serverCount;
+        // ceil(loadFactor * average load), counting the request being placed
+        int maxLoad = (int) Math.ceil(loadFactor * (totalConnections.get() + 1) / serverCount);
+        int start = Arrays.binarySearch(points, hash);
+        if (start < 0) {
+            start = -start - 1;
+        }
+        Server fallback = null;
+        for (int i = 0; i < points.length; i++) {
+            Server server = ring.owners[(start + i) % points.length];
+            if (!server.isHealthy()) {
+                continue;
+            }
+            if (server.getActiveConnections() < maxLoad) {
+                return acquire(server);
+            }
+            if (fallback == null) {
+                fallback = server;
+            }
+        }
+        if (fallback == null) {
+            throw new IllegalStateException("No healthy servers available");
+        }
+        return acquire(fallback);
+    }
+
+    private Server acquire(Server server) {
+        server.incrementActiveConnections();
+        totalConnections.incrementAndGet();
+        return server;
+    }
+
+    static long hash(CharSequence key) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Immutable ring: sorted virtual node points and the server owning each.
+     */
+    private static final class Ring {
+        static final Ring EMPTY = new Ring(new long[0], new Server[0], 0);
+
+        final long[] points;
+        final Server[] owners;
+        final int serverCount;
+
+        private Ring(long[] points, Server[] owners, int serverCount) {
+            this.points = points;
+            this.owners = owners;
+            this.serverCount = serverCount;
+        }
+
+        /**
+         * Each point keeps the high bits of its hash and stores its server's index in the
+         * low bits, so one primitive sort orders the points and carries their owners along.
+         */
+        static Ring build(Server[] servers, int virtualNodes) {
+            int indexBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(servers.length - 1));
+            long indexMask = (1L << indexBits) - 1;
+            long[] points = new long[servers.length * virtualNodes];
+            for (int s = 0; s < servers.length; s++) {
+                long base = hash(servers[s].getIpAddress());
+                for (int v = 0; v < virtualNodes; v++) {
+                    long point = mix(base + v * 0x9E3779B97F4A7C15L);
+                    points[s * virtualNodes + v] = (point & ~indexMask) | s;
+                }
+            }
+            Arrays.sort(points);
+            Server[] owners = new Server[points.length];
+            for (int i = 0; i < points.length; i++) {
+                owners[i] = servers[(int) (points[i] & indexMask)];
+            }
+            return new Ring(points, owners, servers.length);
+        }
+    }
+}
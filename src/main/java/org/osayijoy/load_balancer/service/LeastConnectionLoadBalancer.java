@@ -2,17 +2,31 @@ package org.osayijoy.load_balancer.service;
 
 import org.osayijoy.load_balancer.model.Server;
 
-import java.util.Comparator;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Sends each request to the healthy server with the fewest active connections relative to
+ * its capacity. Selection reads an immutable snapshot of the registry without locking or
+ * allocating; connection counts are atomic on each {@link Server}.
+ * <p>
+ * Pools of up to {@value #FULL_SCAN_LIMIT} servers are scanned in full. Larger pools pick
+ * the least loaded of {@value #SAMPLES} random servers, so a pick costs the same for ten
+ * thousand servers as for a hundred and concurrent callers do not all chase one minimum.
+ */
 public class LeastConnectionLoadBalancer implements LoadBalancer {
+    static final int FULL_SCAN_LIMIT = 64;
+    static final int SAMPLES = 16;
+
     private static LeastConnectionLoadBalancer instance;
-    private final Map<String, Server> serverRegistry  = new ConcurrentHashMap<>();
+    private final ServerRegistry serverRegistry = new ServerRegistry();
 
-    private LeastConnectionLoadBalancer() {
+    public LeastConnectionLoadBalancer() {
     }
 
+    /**
+     * The process-wide shared instance; prefer a separate instance per pool.
+     */
     public static synchronized LeastConnectionLoadBalancer getInstance() {
         if (instance == null) {
             instance = new LeastConnectionLoadBalancer();
@@ -22,22 +36,17 @@ public class LeastConnectionLoadBalancer implements LoadBalancer {
 
     @Override
     public void addServer(Server server) {
-        synchronized (this) {
-            if (serverRegistry.size() >= 10) {
-                throw new IllegalStateException("Server registry is full");
-            }
-            if (serverRegistry.containsKey(server.getIpAddress())) {
-                throw new IllegalArgumentException("Server with the same IP address already exists");
-            }
-            serverRegistry.put(server.getIpAddress(), server);
-        }
+        serverRegistry.add(server);
     }
 
     @Override
     public void removeServer(String ipAddress) {
-        synchronized (this) {
-            serverRegistry.remove(ipAddress);
-        }
+        serverRegistry.remove(ipAddress);
+    }
+
+    @Override
+    public void applyMembership(Collection<Server> added, Collection<String> removed) {
+        serverRegistry.apply(added, removed);
     }
 
     @Override
@@ -47,23 +56,60 @@ public class LeastConnectionLoadBalancer implements LoadBalancer {
 
     @Override
     public Server getServer() {
-        synchronized (this) {
-            if (serverRegistry.isEmpty()) {
-                throw new IllegalStateException("No servers available");
-            }
-            return serverRegistry.values().stream()
-                    .min(Comparator.comparingInt(Server::getActiveConnections))
-                    .map(server -> {
-                        server.incrementActiveConnections();
-                        return server;
-                    })
-                    .orElseThrow(() -> new IllegalStateException("No servers available"));
+        Server[] servers = serverRegistry.snapshot();
+        if (servers.length == 0) {
+            throw new IllegalStateException("No servers available");
+        }
+        Server best = servers.length > FULL_SCAN_LIMIT ? sample(servers) : null;
+        if (best == null) {
+            best = scan(servers);
+        }
+        if (best == null) {
+            throw new IllegalStateException("No healthy servers available");
+        }
+        best.incrementActiveConnections();
+        return best;
+    }
+
+    private static Server scan(Server[] servers) {
+        Server best = null;
+        for (Server server : servers) {
+            best = lessLoaded(best, server);
         }
+        return best;
     }
+
+    private static Server sample(Server[] servers) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Server best = null;
+        for (int i = 0; i < SAMPLES; i++) {
+            best = lessLoaded(best, servers[random.nextInt(servers.length)]);
+        }
+        return best;
+    }
+
+    /**
+     * The less loaded of the two, preferring {@code best} on ties; unhealthy servers lose.
+     */
+    private static Server lessLoaded(Server best, Server server) {
+        if (!server.isHealthy()) {
+            return best;
+        }
+        if (best == null) {
+            return server;
+        }
+        // connections / weight < bestConnections / bestWeight, without dividing
+        long load = (long) server.getActiveConnections() * weight(best);
+        long bestLoad = (long) best.getActiveConnections() * weight(server);
+        return load < bestLoad ? server : best;
+    }
+
     @Override
     public void releaseServer(Server server) {
-        synchronized (this) {
-            server.decrementActiveConnections();
-        }
+        server.decrementActiveConnections();
+    }
+
+    private static int weight(Server server) {
+        return Math.max(1, server.getCapacity());
     }
 }
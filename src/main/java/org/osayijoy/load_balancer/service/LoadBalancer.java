@@ -2,13 +2,91 @@ package org.osayijoy.load_balancer.service;
 
 import org.osayijoy.load_balancer.model.Server;
 
+import java.util.Collection;
+
 public interface LoadBalancer {
+
+    /**
+     * A new, independent load balancer using {@code strategy}.
+     */
+    static LoadBalancer create(Strategy strategy) {
+        switch (strategy) {
+            case ROUND_ROBIN:
+                return new RoundRobinLoadBalancer();
+            case WEIGHTED_ROUND_ROBIN:
+                return new WeightedRoundRobinLoadBalancer();
+            case LEAST_CONNECTION:
+                return new LeastConnectionLoadBalancer();
+            case POWER_OF_TWO_CHOICES:
+                return new PowerOfTwoChoicesLoadBalancer();
+            case PEAK_EWMA:
+                return new PeakEwmaLoadBalancer();
+            case CONSISTENT_HASH:
+                return new ConsistentHashLoadBalancer();
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+    }
+
     void addServer(Server server);
     void removeServer(String ipAddress);
 
     void removeAllServer();
 
+    /**
+     * Removes and adds servers as one membership change. Strategies backed by a server
+     * snapshot publish it once for the whole batch, so that pickers see either the old or
+     * the new membership; an added server may replace a removed one with the same address.
+     */
+    default void applyMembership(Collection<Server> added, Collection<String> removed) {
+        for (String ipAddress : removed) {
+            removeServer(ipAddress);
+        }
+        for (Server server : added) {
+            addServer(server);
+        }
+    }
+
     Server getServer();
+
+    /**
+     * Picks a server for a request identified by {@code key}. Strategies with affinity send
+     * equal keys to the same server; the rest ignore the key.
+     */
+    default Server getServer(CharSequence key) {
+        return getServer();
+    }
+
+    /**
+     * Picks a server and returns it as a lease that releases it when closed.
+     */
+    default ServerLease acquire() {
+        return new ServerLease(this, getServer());
+    }
+
+    /**
+     * Keyed {@link #acquire()}; see {@link #getServer(CharSequence)}.
+     */
+    default ServerLease acquire(CharSequence key) {
+        return new ServerLease(this, getServer(key));
+    }
+
     default void releaseServer(Server server){}
+
+    /**
+     * Releases {@code server} after a request, reporting whether the request succeeded so
+     * health checks can eject a failing server.
+     */
+    default void releaseServer(Server server, boolean success) {
+        releaseServer(server);
+    }
+
+    /**
+     * Releases {@code server} after a request that took {@code latencyNanos}, for
+     * strategies that balance on observed latency.
+     */
+    default void releaseServer(Server server, long latencyNanos, boolean success) {
+        releaseServer(server, success);
+    }
 }
 
@@ -0,0 +1,48 @@
+package org.osayijoy.load_balancer.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exponentially weighted moving average of a server's latency that jumps straight to
+ * any higher sample, so a degrading server is penalised at once and earns its way back
+ * as its latency decays. The average decays with elapsed time rather than with sample
+ * count, also while the server receives no traffic, so an idle server is retried.
+ * <p>
+ * Updates are a CAS on the average's bits; the timestamp is written alongside without a
+ * lock, which at worst applies one interval's decay twice under a race.
+ */
+final class PeakEwma {
+    private final double decayNanos;
+    private final AtomicLong bits = new AtomicLong(Double.doubleToRawLongBits(0));
+    private volatile long stamp;
+
+    PeakEwma(long decayNanos, long now) {
+        this.decayNanos = decayNanos;
+        this.stamp = now;
+    }
+
+    void observe(long latencyNanos, long now) {
+        long last = stamp;
+        stamp = now;
+        double weight = Math.exp(-Math.max(0, now - last) / decayNanos);
+        while (true) {
+            long current = bits.get();
+            double average = Double.longBitsToDouble(current);
+            double next = latencyNanos > average
+                    ? latencyNanos
+                    : average * weight + latencyNanos * (1 - weight);
+            if (bits.compareAndSet(current, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The average decayed to {@code now}.
+     */
+    double get(long now) {
+        double average = Double.longBitsToDouble(bits.get());
+        long elapsed = now - stamp;
+        return elapsed > 0 ? average * Math.exp(-elapsed / decayNanos) : average;
+    }
+}
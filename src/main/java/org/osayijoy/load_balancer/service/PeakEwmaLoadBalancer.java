@@ -0,0 +1,151 @@
+package org.osayijoy.load_balancer.service;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency-aware power-of-two-choices: of two random healthy servers, picks the one with
+ * the lower {@code peakEwmaLatency * (activeConnections + 1)}. Callers report latency with
+ * {@link #releaseServer(Server, long, boolean)}; a failed request counts as at least the
+ * failure penalty. Selection reads only the two samples' atomics and does not allocate.
+ */
+public class PeakEwmaLoadBalancer implements LoadBalancer {
+    private final ServerRegistry serverRegistry;
+    private final Map<Server, PeakEwma> latencies = new ConcurrentHashMap<>();
+    private final long decayNanos;
+    private final long failurePenaltyNanos;
+    private final LongSupplier nanoClock;
+
+    public PeakEwmaLoadBalancer() {
+        this(Integer.MAX_VALUE, Duration.ofSeconds(10), Duration.ofSeconds(1), System::nanoTime);
+    }
+
+    /**
+     * @param decayTime time constant over which old latencies fade
+     * @param failurePenalty latency recorded for a failed request that failed faster
+     */
+    public PeakEwmaLoadBalancer(int maxServers, Duration decayTime, Duration failurePenalty, LongSupplier nanoClock) {
+        if (decayTime.toNanos() <= 0) {
+            throw new IllegalArgumentException("Decay time must be positive");
+        }
+        this.serverRegistry = new ServerRegistry(maxServers);
+        this.decayNanos = decayTime.toNanos();
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public void addServer(Server server) {
+        serverRegistry.add(server);
+        latencies.put(server, new PeakEwma(decayNanos, nanoClock.getAsLong()));
+    }
+
+    @Override
+    public void removeServer(String ipAddress) {
+        Server removed = serverRegistry.remove(ipAddress);
+        if (removed != null) {
+            latencies.remove(removed);
+        }
+    }
+
+    @Override
+    public void applyMembership(Collection<Server> added, Collection<String> removed) {
+        for (Server server : serverRegistry.apply(added, removed)) {
+            latencies.remove(server);
+        }
+        long now = nanoClock.getAsLong();
+        for (Server server : added) {
+            latencies.put(server, new PeakEwma(decayNanos, now));
+        }
+    }
+
+    @Override
+    public void removeAllServer() {
+        serverRegistry.clear();
+        latencies.clear();
+    }
+
+    @Override
+    public Server getServer() {
+        Server[] servers = serverRegistry.snapshot();
+        int n = servers.length;
+        if (n == 0) {
+            throw new IllegalStateException("No servers available");
+        }
+        long now = nanoClock.getAsLong();
+        Server chosen;
+        if (n == 1) {
+            chosen = servers[0].isHealthy() ? servers[0] : null;
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(n);
+            int second = random.nextInt(n - 1);
+            if (second >= first) {
+                second++;
+            }
+            chosen = cheaper(servers[first], servers[second], now);
+            if (chosen == null) {
+                chosen = firstHealthy(servers, first);
+            }
+        }
+        if (chosen == null) {
+            throw new IllegalStateException("No healthy servers available");
+        }
+        chosen.incrementActiveConnections();
+        return chosen;
+    }
+
+    @Override
+    public void releaseServer(Server server) {
+        server.decrementActiveConnections();
+    }
+
+    @Override
+    public void releaseServer(Server server, long latencyNanos, boolean success) {
+        PeakEwma latency = latencies.get(server);
+        if (latency != null) {
+            latency.observe(success ? latencyNanos : Math.max(latencyNanos, failurePenaltyNanos), nanoClock.getAsLong());
+        }
+        server.decrementActiveConnections();
+    }
+
+    /**
+     * The load score used for selection; lower is better.
+     */
+    double cost(Server server, long now) {
+        PeakEwma latency = latencies.get(server);
+        double average = latency != null ? latency.get(now) : 0;
+        return average * (server.getActiveConnections() + 1);
+    }
+
+    private Server cheaper(Server a, Server b, long now) {
+        if (!a.isHealthy()) {
+            return b.isHealthy() ? b : null;
+        }
+        if (!b.isHealthy()) {
+            return a;
+        }
+        double costA = cost(a, now);
+        double costB = cost(b, now);
+        if (costA == costB) {
+            return a.getActiveConnections() <= b.getActiveConnections() ? a : b;
+        }
+        return costA < costB ? a : b;
+    }
+
+    private static Server firstHealthy(Server[] servers, int from) {
+        for (int i = 1; i < servers.length; i++) {
+            Server server = servers[(from + i) % servers.length];
+            if (server.isHealthy()) {
+                return server;
+            }
+        }
+        return null;
+    }
+}
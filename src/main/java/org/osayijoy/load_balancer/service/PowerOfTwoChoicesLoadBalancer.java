@@ -0,0 +1,107 @@
+package org.osayijoy.load_balancer.service;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples two distinct servers at random and sends the request to the one with fewer
+ * active connections per unit of capacity. Each pick is O(1) and touches only two
+ * servers, and because concurrent callers sample different pairs they do not all pile
+ * onto the same momentary minimum the way a global least-connections scan does.
+ */
+public class PowerOfTwoChoicesLoadBalancer implements LoadBalancer {
+    private final ServerRegistry serverRegistry;
+
+    public PowerOfTwoChoicesLoadBalancer() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public PowerOfTwoChoicesLoadBalancer(int maxServers) {
+        this.serverRegistry = new ServerRegistry(maxServers);
+    }
+
+    @Override
+    public void addServer(Server server) {
+        serverRegistry.add(server);
+    }
+
+    @Override
+    public void removeServer(String ipAddress) {
+        serverRegistry.remove(ipAddress);
+    }
+
+    @Override
+    public void applyMembership(Collection<Server> added, Collection<String> removed) {
+        serverRegistry.apply(added, removed);
+    }
+
+    @Override
+    public void removeAllServer() {
+        serverRegistry.clear();
+    }
+
+    @Override
+    public Server getServer() {
+        Server[] servers = serverRegistry.snapshot();
+        int n = servers.length;
+        if (n == 0) {
+            throw new IllegalStateException("No servers available");
+        }
+        Server chosen;
+        if (n == 1) {
+            chosen = servers[0].isHealthy() ? servers[0] : null;
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(n);
+            int second = random.nextInt(n - 1);
+            if (second >= first) {
+                second++;
+            }
+            chosen = lessLoaded(servers[first], servers[second]);
+            if (chosen == null) {
+                chosen = firstHealthy(servers, first);
+            }
+        }
+        if (chosen == null) {
+            throw new IllegalStateException("No healthy servers available");
+        }
+        chosen.incrementActiveConnections();
+        return chosen;
+    }
+
+    @Override
+    public void releaseServer(Server server) {
+        server.decrementActiveConnections();
+    }
+
+    private static Server lessLoaded(Server a, Server b) {
+        if (!a.isHealthy()) {
+            return b.isHealthy() ? b : null;
+        }
+        if (!b.isHealthy()) {
+            return a;
+        }
+        long loadA = (long) a.getActiveConnections() * weight(b);
+        long loadB = (long) b.getActiveConnections() * weight(a);
+        return loadB < loadA ? b : a;
+    }
+
+    /**
+     * Fallback when both samples are unhealthy: the next healthy server after {@code from}.
+     */
+    private static Server firstHealthy(Server[] servers, int from) {
+        for (int i = 1; i < servers.length; i++) {
+            Server server = servers[(from + i) % servers.length];
+            if (server.isHealthy()) {
+                return server;
+            }
+        }
+        return null;
+    }
+
+    private static int weight(Server server) {
+        return Math.max(1, server.getCapacity());
+    }
+}
@@ -2,71 +2,85 @@ package org.osayijoy.load_balancer.service;
 
 import org.osayijoy.load_balancer.model.Server;
 
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Hands out servers in turn. A pick reads one slot of the registry's immutable snapshot
+ * at a monotonically increasing counter; unhealthy servers are skipped, trying each
+ * server at most once.
+ */
 public class RoundRobinLoadBalancer implements LoadBalancer {
-    private static RoundRobinLoadBalancer instance;
-    private final ConcurrentLinkedQueue<Server> serverRegistry = new ConcurrentLinkedQueue<>();
-    private final AtomicInteger currentIndex = new AtomicInteger(0);
+    private static volatile RoundRobinLoadBalancer instance;
+    private final ServerRegistry serverRegistry = new ServerRegistry();
+    private final AtomicLong currentIndex = new AtomicLong();
 
-    private RoundRobinLoadBalancer() {
+    public RoundRobinLoadBalancer() {
     }
 
+    /**
+     * The process-wide shared instance; prefer a separate instance per pool.
+     */
     public static RoundRobinLoadBalancer getInstance() {
-        if (instance == null) {
+        RoundRobinLoadBalancer result = instance;
+        if (result == null) {
             synchronized (RoundRobinLoadBalancer.class) {
-                if (instance == null) {
-                    instance = new RoundRobinLoadBalancer();
+                result = instance;
+                if (result == null) {
+                    result = new RoundRobinLoadBalancer();
+                    instance = result;
                 }
             }
         }
-        return instance;
+        return result;
     }
 
     @Override
     public void addServer(Server server) {
-        if (serverRegistry.size() >= 10) {
-            throw new IllegalStateException("Server registry is full");
-        }
-
-        if (serverRegistry.stream().anyMatch(s -> s.getIpAddress().equals(server.getIpAddress()))) {
-            throw new IllegalArgumentException("Server with the same ID already exists");
-        }
         serverRegistry.add(server);
     }
 
     @Override
     public void removeServer(String serverId) {
-        boolean removed = serverRegistry.removeIf(server -> server.getIpAddress().equals(serverId));
-        if (!removed) {
+        if (serverRegistry.remove(serverId) == null) {
             throw new IllegalArgumentException("Server with ID " + serverId + " not found in the registry");
         }
     }
 
+    @Override
+    public void applyMembership(Collection<Server> added, Collection<String> removed) {
+        serverRegistry.apply(added, removed);
+    }
+
     @Override
     public void removeAllServer() {
         serverRegistry.clear();
+        currentIndex.set(0);
     }
 
     @Override
     public Server getServer() {
-        if (serverRegistry.isEmpty()) {
+        Server[] servers = serverRegistry.snapshot();
+        int length = servers.length;
+        if (length == 0) {
             throw new IllegalStateException("No servers available");
         }
-
-        int index = currentIndex.getAndUpdate(current -> (current + 1) % serverRegistry.size());
-        int i = 0;
-        for (Server server : serverRegistry) {
-            if (i++ == index) {
-                if (isServerHealthy(server)) {
-                    return server;
-                }
+        long start = currentIndex.getAndIncrement();
+        for (int i = 0; i < length; i++) {
+            Server server = servers[(int) Long.remainderUnsigned(start + i, length)];
+            if (isServerHealthy(server)) {
+                server.incrementActiveConnections();
+                return server;
             }
         }
         throw new IllegalStateException("No healthy servers available");
     }
 
+    @Override
+    public void releaseServer(Server server) {
+        server.decrementActiveConnections();
+    }
+
     private boolean isServerHealthy(Server server) {
         return server.isHealthy();
     }
@@ -0,0 +1,80 @@
+package org.osayijoy.load_balancer.service;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A server held for the duration of one request. Closing the lease releases the server
+ * to its load balancer with the time since the lease was taken, so in-flight counts can
+ * neither leak nor be released twice. A request that fails must call {@link #markFailed()}
+ * before the lease closes, that is inside the {@code try}:
+ * <pre>{@code
+ * try (ServerLease lease = loadBalancer.acquire()) {
+ *     try {
+ *         send(lease.getServer());
+ *     } catch (IOException e) {
+ *         lease.markFailed();
+ *         throw e;
+ *     }
+ * }
+ * }</pre>
+ * Closing is idempotent and thread-safe; only the first call releases.
+ */
+public final class ServerLease implements AutoCloseable {
+    private static final VarHandle RELEASED;
+
+    static {
+        try {
+            RELEASED = MethodHandles.lookup().findVarHandle(ServerLease.class, "released", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final LoadBalancer loadBalancer;
+    private final Server server;
+    private final long startNanos;
+    private volatile boolean failed;
+    @SuppressWarnings("unused")
+    private volatile boolean released;
+    private volatile long durationNanos = -1;
+
+    ServerLease(LoadBalancer loadBalancer, Server server) {
+        this.loadBalancer = loadBalancer;
+        this.server = server;
+        this.startNanos = System.nanoTime();
+    }
+
+    public Server getServer() {
+        return server;
+    }
+
+    /**
+     * Reports the request as failed when the lease is closed.
+     */
+    public void markFailed() {
+        failed = true;
+    }
+
+    /**
+     * How long the lease was held, or -1 while it is still open.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    @Override
+    public void close() {
+        if (RELEASED.compareAndSet(this, false, true)) {
+            long duration = System.nanoTime() - startNanos;
+            durationNanos = duration;
+            loadBalancer.releaseServer(server, duration, !failed);
+        }
+    }
+}
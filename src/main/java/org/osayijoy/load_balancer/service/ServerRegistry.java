@@ -0,0 +1,107 @@
+package org.osayijoy.load_balancer.service;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copy-on-write set of servers keyed by IP address. Writers serialize on the registry and
+ * publish a fresh array; readers take {@link #snapshot()} and never block. Lookups by
+ * address are hash lookups, and {@link #apply} folds any number of changes into a single
+ * O(n) copy, so large pools should change membership in batches.
+ */
+final class ServerRegistry {
+    private static final Server[] EMPTY = new Server[0];
+
+    private final int maxServers;
+    private final Map<String, Server> byAddress = new HashMap<>();
+    private volatile Server[] servers = EMPTY;
+
+    ServerRegistry() {
+        this(Integer.MAX_VALUE);
+    }
+
+    ServerRegistry(int maxServers) {
+        this.maxServers = maxServers;
+    }
+
+    /**
+     * The current servers in insertion order. The array is shared and must not be modified.
+     */
+    Server[] snapshot() {
+        return servers;
+    }
+
+    synchronized Server get(String ipAddress) {
+        return byAddress.get(ipAddress);
+    }
+
+    synchronized void add(Server server) {
+        apply(List.of(server), List.of());
+    }
+
+    synchronized Server remove(String ipAddress) {
+        Server removed = byAddress.get(ipAddress);
+        if (removed != null) {
+            apply(List.of(), List.of(ipAddress));
+        }
+        return removed;
+    }
+
+    /**
+     * Removes and adds servers in one step; readers see either the old or the new
+     * membership. An added server may replace a removed one with the same address.
+     * Unknown addresses to remove are ignored. Nothing changes if any addition is invalid.
+     *
+     * @return the servers that were removed
+     */
+    synchronized List<Server> apply(Collection<Server> added, Collection<String> removed) {
+        Set<String> removedAddresses = new HashSet<>();
+        for (String ipAddress : removed) {
+            if (byAddress.containsKey(ipAddress)) {
+                removedAddresses.add(ipAddress);
+            }
+        }
+        Set<String> addedAddresses = new HashSet<>();
+        for (Server server : added) {
+            String ipAddress = server.getIpAddress();
+            boolean taken = byAddress.containsKey(ipAddress) && !removedAddresses.contains(ipAddress);
+            if (taken || !addedAddresses.add(ipAddress)) {
+                throw new IllegalArgumentException("Server with the same IP address already exists");
+            }
+        }
+        if ((long) byAddress.size() - removedAddresses.size() + added.size() > maxServers) {
+            throw new IllegalStateException("Server registry is full");
+        }
+
+        List<Server> removedServers = new ArrayList<>(removedAddresses.size());
+        for (String ipAddress : removedAddresses) {
+            removedServers.add(byAddress.remove(ipAddress));
+        }
+        Server[] current = servers;
+        Server[] next = new Server[current.length - removedServers.size() + added.size()];
+        int j = 0;
+        for (Server server : current) {
+            if (removedAddresses.isEmpty() || byAddress.get(server.getIpAddress()) == server) {
+                next[j++] = server;
+            }
+        }
+        for (Server server : added) {
+            byAddress.put(server.getIpAddress(), server);
+            next[j++] = server;
+        }
+        servers = next;
+        return removedServers;
+    }
+
+    synchronized void clear() {
+        byAddress.clear();
+        servers = EMPTY;
+    }
+}
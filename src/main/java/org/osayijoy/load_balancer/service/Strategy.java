@@ -0,0 +1,28 @@
+package org.osayijoy.load_balancer.service;
+
+public enum Strategy {
+    /**
+     * Servers in turn, ignoring load and capacity.
+     */
+    ROUND_ROBIN,
+    /**
+     * Servers in turn, each as often as its capacity, interleaved smoothly.
+     */
+    WEIGHTED_ROUND_ROBIN,
+    /**
+     * The server with the fewest active connections per unit of capacity.
+     */
+    LEAST_CONNECTION,
+    /**
+     * The less loaded of two random servers; O(1) and resistant to herding.
+     */
+    POWER_OF_TWO_CHOICES,
+    /**
+     * The lower peak-EWMA latency times load of two random servers.
+     */
+    PEAK_EWMA,
+    /**
+     * The same server for the same key, with bounded loads.
+     */
+    CONSISTENT_HASH
+}
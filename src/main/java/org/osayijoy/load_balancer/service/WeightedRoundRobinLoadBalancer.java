@@ -0,0 +1,217 @@
+package org.osayijoy.load_balancer.service;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Round-robin in proportion to {@link Server#getCapacity()}, using the smooth weighted
+ * algorithm popularised by nginx so that a heavy server's turns are interleaved with the
+ * others rather than taken in a burst.
+ * <p>
+ * The whole cycle is precomputed into a schedule array whenever membership or a weight
+ * changes, so a pick is one counter increment and one array read. Servers without a
+ * capacity weigh 1; weights are divided by their common divisor, and scaled down if the
+ * cycle would exceed {@value #MAX_SCHEDULE_LENGTH} slots.
+ * <p>
+ * The smooth algorithm costs O(slots × servers) per rebuild. Large pools instead fill
+ * the schedule in order of each server's next ideal turn, {@code (picks + 1) / weight},
+ * from a heap in O(slots × log servers), which interleaves just as evenly.
+ */
+public class WeightedRoundRobinLoadBalancer implements LoadBalancer {
+    static final int MAX_SCHEDULE_LENGTH = 1 << 16;
+    static final long SMOOTH_REBUILD_LIMIT = 1L << 22;
+    private static final Server[] EMPTY = new Server[0];
+
+    private final ServerRegistry serverRegistry;
+    private final AtomicLong currentIndex = new AtomicLong();
+    private volatile Server[] schedule = EMPTY;
+
+    public WeightedRoundRobinLoadBalancer() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public WeightedRoundRobinLoadBalancer(int maxServers) {
+        this.serverRegistry = new ServerRegistry(maxServers);
+    }
+
+    @Override
+    public synchronized void addServer(Server server) {
+        serverRegistry.add(server);
+        rebuildSchedule();
+    }
+
+    @Override
+    public synchronized void removeServer(String ipAddress) {
+        if (serverRegistry.remove(ipAddress) != null) {
+            rebuildSchedule();
+        }
+    }
+
+    @Override
+    public synchronized void applyMembership(Collection<Server> added, Collection<String> removed) {
+        serverRegistry.apply(added, removed);
+        rebuildSchedule();
+    }
+
+    @Override
+    public synchronized void removeAllServer() {
+        serverRegistry.clear();
+        rebuildSchedule();
+    }
+
+    /**
+     * Changes a server's capacity and recomputes the schedule.
+     */
+    public synchronized void setWeight(String ipAddress, int weight) {
+        if (weight < 1) {
+            // the schedule gives every server at least one slot, so 0 would not drain it
+            throw new IllegalArgumentException("Weight must be at least 1; remove the server to drain it");
+        }
+        Server server = serverRegistry.get(ipAddress);
+        if (server == null) {
+            throw new IllegalArgumentException("Server with ID " + ipAddress + " not found in the registry");
+        }
+        server.setCapacity(weight);
+        rebuildSchedule();
+    }
+
+    @Override
+    public Server getServer() {
+        Server[] current = schedule;
+        int length = current.length;
+        if (length == 0) {
+            throw new IllegalStateException("No servers available");
+        }
+        long start = currentIndex.getAndIncrement();
+        for (int i = 0; i < length; i++) {
+            Server server = current[(int) Long.remainderUnsigned(start + i, length)];
+            if (server.isHealthy()) {
+                server.incrementActiveConnections();
+                return server;
+            }
+        }
+        throw new IllegalStateException("No healthy servers available");
+    }
+
+    @Override
+    public void releaseServer(Server server) {
+        server.decrementActiveConnections();
+    }
+
+    int scheduleLength() {
+        return schedule.length;
+    }
+
+    private void rebuildSchedule() {
+        Server[] servers = serverRegistry.snapshot();
+        if (servers.length == 0) {
+            schedule = EMPTY;
+            return;
+        }
+        int[] weights = new int[servers.length];
+        int divisor = 0;
+        long total = 0;
+        for (int i = 0; i < servers.length; i++) {
+            weights[i] = Math.max(1, servers[i].getCapacity());
+            divisor = gcd(divisor, weights[i]);
+            total += weights[i];
+        }
+        total /= divisor;
+        double scale = total > MAX_SCHEDULE_LENGTH ? (double) MAX_SCHEDULE_LENGTH / total : 1;
+        int length = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Math.max(1, (int) (weights[i] / divisor * scale));
+            length += weights[i];
+        }
+
+        schedule = (long) length * servers.length <= SMOOTH_REBUILD_LIMIT
+                ? smoothSchedule(servers, weights, length)
+                : turnOrderSchedule(servers, weights, length);
+    }
+
+    private static Server[] smoothSchedule(Server[] servers, int[] weights, int length) {
+        for (Server server : servers) {
+            server.setCurrentWeight(0);
+        }
+        Server[] next = new Server[length];
+        for (int slot = 0; slot < length; slot++) {
+            Server best = null;
+            for (int i = 0; i < servers.length; i++) {
+                Server server = servers[i];
+                server.setCurrentWeight(server.getCurrentWeight() + weights[i]);
+                if (best == null || server.getCurrentWeight() > best.getCurrentWeight()) {
+                    best = server;
+                }
+            }
+            best.setCurrentWeight(best.getCurrentWeight() - length);
+            next[slot] = best;
+        }
+        return next;
+    }
+
+    /**
+     * Fills the schedule from a binary min-heap of server indexes ordered by next turn.
+     */
+    private static Server[] turnOrderSchedule(Server[] servers, int[] weights, int length) {
+        int n = servers.length;
+        int[] picks = new int[n];
+        int[] heap = new int[n];
+        for (int i = 0; i < n; i++) {
+            heap[i] = i;
+        }
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, picks, weights);
+        }
+        Server[] next = new Server[length];
+        for (int slot = 0; slot < length; slot++) {
+            int top = heap[0];
+            next[slot] = servers[top];
+            picks[top]++;
+            siftDown(heap, 0, picks, weights);
+        }
+        return next;
+    }
+
+    private static void siftDown(int[] heap, int index, int[] picks, int[] weights) {
+        int n = heap.length;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < n && turnsBefore(heap[left], heap[smallest], picks, weights)) {
+                smallest = left;
+            }
+            if (right < n && turnsBefore(heap[right], heap[smallest], picks, weights)) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            int swap = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = swap;
+            index = smallest;
+        }
+    }
+
+    /**
+     * Whether server {@code a}'s next turn, {@code (picks + 1) / weight}, comes before
+     * {@code b}'s; ties go to the earlier server.
+     */
+    private static boolean turnsBefore(int a, int b, int[] picks, int[] weights) {
+        long turnA = (picks[a] + 1L) * weights[b];
+        long turnB = (picks[b] + 1L) * weights[a];
+        return turnA < turnB || (turnA == turnB && a < b);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,223 @@
+package org.osayijoy.url_shortener.analytics;
+
+import org.osayijoy.url_shortener.code.Base62;
+import org.osayijoy.url_shortener.code.CodeProbe;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-code click counts with per-minute and per-hour time series.
+ * <p>
+ * {@link #recordClick} turns the code into a {@code long} key ({@link Base62#pack}, or an
+ * id assigned on first sight for codes that do not pack) and appends it to a ring buffer
+ * owned by the calling thread: no locks, no CAS and no allocation on the redirect path.
+ * If a buffer fills up between drains the click is dropped and counted in
+ * {@link #getDroppedClicks()} rather than making the redirect wait.
+ * <p>
+ * A background thread drains every buffer at a fixed interval and adds the clicks to the
+ * bucket of the minute they were drained in. Queries therefore lag by up to one drain
+ * interval; {@link #flush()} drains synchronously. The buffer of a thread that has
+ * terminated is drained one last time and then dropped.
+ */
+public class ClickAnalytics implements ClickRecorder, Closeable {
+    public static final int MINUTE_BUCKETS = 60;
+    public static final int HOUR_BUCKETS = 24;
+    private static final long MINUTE_MILLIS = 60_000;
+
+    private final int bufferCapacity;
+    private final LongSupplier clock;
+    private final List<ClickBuffer> buffers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<ClickBuffer> localBuffer = ThreadLocal.withInitial(this::newBuffer);
+    private final Map<String, Long> keywordKeys = new ConcurrentHashMap<>();
+    private final Map<Long, String> keywords = new ConcurrentHashMap<>();
+    private final AtomicLong lastKeywordId = new AtomicLong();
+    private final Map<Long, CodeStats> stats = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final Map<Long, long[]> pending = new HashMap<>();
+    private final LongConsumer tally = this::tally;
+    private final ScheduledExecutorService aggregator;
+
+    public ClickAnalytics() {
+        this(4096, 100, System::currentTimeMillis);
+    }
+
+    /**
+     * @param bufferCapacity      clicks each thread can buffer between drains, rounded up
+     *                            to a power of two
+     * @param drainIntervalMillis how often the background thread drains, or {@code 0} to
+     *                            drain only on {@link #flush()}
+     * @param clock               wall clock in milliseconds, used to pick buckets
+     */
+    public ClickAnalytics(int bufferCapacity, long drainIntervalMillis, LongSupplier clock) {
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        this.bufferCapacity = bufferCapacity == 1 ? 1 : Integer.highestOneBit(bufferCapacity - 1) << 1;
+        this.clock = clock;
+        if (drainIntervalMillis > 0) {
+            this.aggregator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "click-aggregator");
+                thread.setDaemon(true);
+                return thread;
+            });
+            aggregator.scheduleWithFixedDelay(this::flush, drainIntervalMillis, drainIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.aggregator = null;
+        }
+    }
+
+    @Override
+    public void recordClick(CharSequence code, int start, int end) {
+        long key = Base62.pack(code, start, end);
+        if (key == Base62.NOT_PACKABLE) {
+            key = keywordKey(code, start, end);
+        }
+        if (!localBuffer.get().offer(key)) {
+            dropped.increment();
+        }
+    }
+
+    public long getClicks(String code) {
+        CodeStats codeStats = statsOf(code);
+        return codeStats == null ? 0 : codeStats.total();
+    }
+
+    /**
+     * Clicks in each of the last {@value #MINUTE_BUCKETS} minutes, oldest first, ending
+     * with the current minute.
+     */
+    public long[] getClicksPerMinute(String code) {
+        CodeStats codeStats = statsOf(code);
+        long minute = clock.getAsLong() / MINUTE_MILLIS;
+        return codeStats == null ? new long[MINUTE_BUCKETS] : codeStats.perMinute(minute);
+    }
+
+    /**
+     * Clicks in each of the last {@value #HOUR_BUCKETS} hours, oldest first, ending with
+     * the current hour.
+     */
+    public long[] getClicksPerHour(String code) {
+        CodeStats codeStats = statsOf(code);
+        long hour = clock.getAsLong() / MINUTE_MILLIS / 60;
+        return codeStats == null ? new long[HOUR_BUCKETS] : codeStats.perHour(hour);
+    }
+
+    /**
+     * The {@code n} most clicked codes, most clicked first.
+     */
+    public List<CodeClicks> topCodes(int n) {
+        if (n < 1) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<CodeClicks> top = new PriorityQueue<>(n + 1, Comparator.comparingLong(CodeClicks::getClicks));
+        for (Map.Entry<Long, CodeStats> entry : stats.entrySet()) {
+            long clicks = entry.getValue().total();
+            if (top.size() < n || clicks > top.peek().getClicks()) {
+                top.add(new CodeClicks(codeOf(entry.getKey()), clicks));
+                if (top.size() > n) {
+                    top.poll();
+                }
+            }
+        }
+        List<CodeClicks> result = new ArrayList<>(top);
+        result.sort(Comparator.comparingLong(CodeClicks::getClicks).reversed());
+        return result;
+    }
+
+    public long getDroppedClicks() {
+        return dropped.sum();
+    }
+
+    /**
+     * Drains every thread's buffer into the per-code statistics.
+     */
+    public synchronized void flush() {
+        for (ClickBuffer buffer : buffers) {
+            // checked before draining: a dead owner cannot have offered anything since
+            boolean orphaned = buffer.isOrphaned();
+            buffer.drain(tally);
+            if (orphaned) {
+                buffers.remove(buffer);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        long minute = clock.getAsLong() / MINUTE_MILLIS;
+        for (Map.Entry<Long, long[]> entry : pending.entrySet()) {
+            stats.computeIfAbsent(entry.getKey(), key -> new CodeStats(MINUTE_BUCKETS, HOUR_BUCKETS))
+                    .add(minute, entry.getValue()[0]);
+        }
+        pending.clear();
+    }
+
+    @Override
+    public void close() {
+        if (aggregator != null) {
+            aggregator.shutdown();
+            try {
+                aggregator.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    int bufferCount() {
+        return buffers.size();
+    }
+
+    private void tally(long key) {
+        pending.computeIfAbsent(key, k -> new long[1])[0]++;
+    }
+
+    private ClickBuffer newBuffer() {
+        ClickBuffer buffer = new ClickBuffer(bufferCapacity, Thread.currentThread());
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private long keywordKey(CharSequence code, int start, int end) {
+        Long key = CodeProbe.get(keywordKeys, code, start, end);
+        if (key != null) {
+            return key;
+        }
+        return keywordKeys.computeIfAbsent(code.subSequence(start, end).toString(), keyword -> {
+            long id = -lastKeywordId.incrementAndGet();
+            keywords.put(id, keyword);
+            return id;
+        });
+    }
+
+    private CodeStats statsOf(String code) {
+        long key = Base62.pack(code);
+        if (key == Base62.NOT_PACKABLE) {
+            Long keywordKey = keywordKeys.get(code);
+            if (keywordKey == null) {
+                return null;
+            }
+            key = keywordKey;
+        }
+        return stats.get(key);
+    }
+
+    private String codeOf(long key) {
+        return key > 0 ? Base62.unpack(key) : keywords.get(key);
+    }
+}
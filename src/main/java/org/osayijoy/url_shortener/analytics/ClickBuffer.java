@@ -0,0 +1,54 @@
+package org.osayijoy.url_shortener.analytics;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Single-producer, single-consumer ring of code keys. Each redirect thread owns one and
+ * only the aggregator drains it, so both sides get by with ordered stores and no CAS.
+ */
+final class ClickBuffer {
+    private final long[] keys;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final WeakReference<Thread> owner;
+
+    ClickBuffer(int capacity, Thread owner) {
+        this.keys = new long[capacity];
+        this.mask = capacity - 1;
+        this.owner = new WeakReference<>(owner);
+    }
+
+    /**
+     * Whether the owning thread has terminated, so nothing more will be offered.
+     */
+    boolean isOrphaned() {
+        Thread thread = owner.get();
+        return thread == null || !thread.isAlive();
+    }
+
+    /**
+     * @return {@code false} if the buffer is full and the click was dropped
+     */
+    boolean offer(long key) {
+        long position = tail.get();
+        if (position - head.get() == keys.length) {
+            return false;
+        }
+        keys[(int) position & mask] = key;
+        tail.lazySet(position + 1);
+        return true;
+    }
+
+    int drain(LongConsumer consumer) {
+        long position = head.get();
+        long end = tail.get();
+        for (long i = position; i < end; i++) {
+            consumer.accept(keys[(int) i & mask]);
+        }
+        head.lazySet(end);
+        return (int) (end - position);
+    }
+}
@@ -0,0 +1,16 @@
+package org.osayijoy.url_shortener.analytics;
+
+/**
+ * Hook called on the redirect path for every resolved code. Implementations must be
+ * cheap and must not block.
+ */
+public interface ClickRecorder {
+    ClickRecorder NONE = (code, start, end) -> {
+    };
+
+    /**
+     * Records a click on the code in {@code code[start, end)}. The sequence may be a
+     * reused view and must not be retained.
+     */
+    void recordClick(CharSequence code, int start, int end);
+}
@@ -0,0 +1,27 @@
+package org.osayijoy.url_shortener.analytics;
+
+/**
+ * A code and its click count, as returned by {@link ClickAnalytics#topCodes(int)}.
+ */
+public final class CodeClicks {
+    private final String code;
+    private final long clicks;
+
+    public CodeClicks(String code, long clicks) {
+        this.code = code;
+        this.clicks = clicks;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    @Override
+    public String toString() {
+        return code + "=" + clicks;
+    }
+}
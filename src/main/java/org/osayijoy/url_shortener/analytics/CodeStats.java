@@ -0,0 +1,70 @@
+package org.osayijoy.url_shortener.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Click counts of one code: a running total plus rings of per-minute and per-hour buckets.
+ * A bucket is reset lazily when its slot is reused for a later period. Written by the
+ * aggregator and read by queries, so access is synchronized.
+ */
+final class CodeStats {
+    private final Buckets minutes;
+    private final Buckets hours;
+    private long total;
+
+    CodeStats(int minuteBuckets, int hourBuckets) {
+        this.minutes = new Buckets(minuteBuckets);
+        this.hours = new Buckets(hourBuckets);
+    }
+
+    synchronized void add(long minute, long clicks) {
+        total += clicks;
+        minutes.add(minute, clicks);
+        hours.add(minute / 60, clicks);
+    }
+
+    synchronized long total() {
+        return total;
+    }
+
+    synchronized long[] perMinute(long currentMinute) {
+        return minutes.snapshot(currentMinute);
+    }
+
+    synchronized long[] perHour(long currentHour) {
+        return hours.snapshot(currentHour);
+    }
+
+    private static final class Buckets {
+        private final long[] periods;
+        private final long[] counts;
+
+        private Buckets(int size) {
+            this.periods = new long[size];
+            this.counts = new long[size];
+            Arrays.fill(periods, -1);
+        }
+
+        private void add(long period, long clicks) {
+            int slot = (int) (period % counts.length);
+            if (periods[slot] != period) {
+                if (periods[slot] > period) {
+                    return;
+                }
+                periods[slot] = period;
+                counts[slot] = 0;
+            }
+            counts[slot] += clicks;
+        }
+
+        private long[] snapshot(long current) {
+            long[] result = new long[counts.length];
+            for (int i = 0; i < result.length; i++) {
+                long period = current - result.length + 1 + i;
+                int slot = (int) Math.floorMod(period, (long) counts.length);
+                result[i] = periods[slot] == period ? counts[slot] : 0;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.osayijoy.url_shortener.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class CacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 1.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + '}';
+    }
+}
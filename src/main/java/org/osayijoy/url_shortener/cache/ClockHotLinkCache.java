@@ -0,0 +1,122 @@
+package org.osayijoy.url_shortener.cache;
+
+import org.osayijoy.url_shortener.code.CodeProbe;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CLOCK (second chance) cache. A hit only sets the entry's reference bit, so reads never
+ * lock. Inserts sweep a hand over a fixed ring, clearing reference bits until they find
+ * an entry that was not used since the last pass.
+ */
+public class ClockHotLinkCache implements HotLinkCache {
+    private final int maximumSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Entry[] ring;
+    private final CacheStats stats = new CacheStats();
+    private int hand;
+    private int used;
+
+    public ClockHotLinkCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.ring = new Entry[maximumSize];
+    }
+
+    @Override
+    public String get(CharSequence code, int start, int end) {
+        Entry entry = CodeProbe.get(entries, code, start, end);
+        if (entry == null) {
+            stats.recordMiss();
+            return null;
+        }
+        stats.recordHit();
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public synchronized void put(String code, String longUrl) {
+        Entry existing = entries.get(code);
+        if (existing != null) {
+            existing.value = longUrl;
+            existing.referenced = true;
+            return;
+        }
+        int slot;
+        if (used < maximumSize) {
+            slot = findFreeSlot();
+            used++;
+        } else {
+            slot = evict();
+        }
+        Entry entry = new Entry(code, longUrl, slot);
+        ring[slot] = entry;
+        entries.put(code, entry);
+    }
+
+    private int findFreeSlot() {
+        while (ring[hand] != null) {
+            hand = (hand + 1) % maximumSize;
+        }
+        return hand;
+    }
+
+    private int evict() {
+        while (true) {
+            Entry candidate = ring[hand];
+            if (candidate.referenced) {
+                candidate.referenced = false;
+                hand = (hand + 1) % maximumSize;
+                continue;
+            }
+            entries.remove(candidate.key, candidate);
+            stats.recordEviction();
+            int slot = hand;
+            hand = (hand + 1) % maximumSize;
+            return slot;
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(String code) {
+        Entry entry = entries.remove(code);
+        if (entry != null) {
+            ring[entry.slot] = null;
+            used--;
+        }
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final int slot;
+        private volatile String value;
+        private volatile boolean referenced;
+
+        private Entry(String key, String value, int slot) {
+            this.key = key;
+            this.value = value;
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.osayijoy.url_shortener.cache;
+
+public enum EvictionPolicy {
+    /**
+     * Least recently used. Cheap, but a single scan of cold codes flushes the cache.
+     */
+    LRU,
+    /**
+     * Second-chance approximation of LRU; reads only set a reference bit and never lock.
+     */
+    CLOCK,
+    /**
+     * Window TinyLFU: a small LRU window in front of a segmented LRU whose admission is
+     * guarded by a frequency sketch, so one-hit wonders cannot push out popular codes.
+     */
+    W_TINY_LFU
+}
@@ -0,0 +1,70 @@
+package org.osayijoy.url_shortener.cache;
+
+/**
+ * Count-min sketch of 4-bit counters used as TinyLFU's popularity estimate. After
+ * {@code 10 * maximumSize} increments every counter is halved, so old popularity fades.
+ * Not thread-safe; callers hold their cache's policy lock.
+ */
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {
+            0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int width = Integer.highestOneBit(Math.max(16, maximumSize) - 1) << 1;
+        this.counters = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * Math.max(16, maximumSize);
+    }
+
+    int frequency(int keyHash) {
+        int hash = spread(keyHash);
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[row][index(hash, row)]);
+        }
+        return frequency;
+    }
+
+    void increment(int keyHash) {
+        int hash = spread(keyHash);
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45D9F3B;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
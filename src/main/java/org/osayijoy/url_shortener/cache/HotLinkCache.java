@@ -0,0 +1,44 @@
+package org.osayijoy.url_shortener.cache;
+
+/**
+ * Small, bounded, on-heap cache of code -> long URL for the most requested links.
+ */
+public interface HotLinkCache {
+
+    /**
+     * Returns the cached long URL, or {@code null} on a miss. Both outcomes count as an
+     * access for the eviction policy.
+     */
+    default String get(String code) {
+        return get(code, 0, code.length());
+    }
+
+    /**
+     * Same as {@link #get(String)} for the code in {@code code[start, end)}, without
+     * copying it into a {@code String}.
+     */
+    String get(CharSequence code, int start, int end);
+
+    void put(String code, String longUrl);
+
+    void invalidate(String code);
+
+    int size();
+
+    int maximumSize();
+
+    CacheStats stats();
+
+    static HotLinkCache create(EvictionPolicy policy, int maximumSize) {
+        switch (policy) {
+            case LRU:
+                return new LruHotLinkCache(maximumSize);
+            case CLOCK:
+                return new ClockHotLinkCache(maximumSize);
+            case W_TINY_LFU:
+                return new TinyLfuHotLinkCache(maximumSize);
+            default:
+                throw new IllegalArgumentException("Unknown eviction policy " + policy);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.osayijoy.url_shortener.cache;
+
+/**
+ * Intrusive doubly-linked list used by the LRU-style policies. Not thread-safe; callers
+ * hold their cache's policy lock.
+ */
+final class LinkedNodes {
+    private final Node head = new Node(null, null);
+    private int size;
+
+    LinkedNodes() {
+        head.prev = head;
+        head.next = head;
+    }
+
+    static class Node {
+        final String key;
+        volatile String value;
+        Node prev;
+        Node next;
+        int queue;
+
+        Node(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void addFirst(Node node) {
+        node.prev = head;
+        node.next = head.next;
+        head.next.prev = node;
+        head.next = node;
+        size++;
+    }
+
+    void moveToFront(Node node) {
+        if (head.next != node) {
+            unlink(node);
+            addFirst(node);
+        }
+    }
+
+    /**
+     * Unlinks {@code node} if it is still linked; returns whether it was.
+     */
+    boolean unlink(Node node) {
+        if (node.prev == null) {
+            return false;
+        }
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        size--;
+        return true;
+    }
+
+    Node last() {
+        return size == 0 ? null : head.prev;
+    }
+}
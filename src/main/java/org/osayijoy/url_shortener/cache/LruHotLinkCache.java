@@ -0,0 +1,99 @@
+package org.osayijoy.url_shortener.cache;
+
+import org.osayijoy.url_shortener.code.CodeProbe;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LRU cache. Lookups go through a {@link ConcurrentHashMap}; the recency list is only
+ * reordered when its lock is free, so under contention reads are recorded on a
+ * best-effort basis instead of queueing behind each other.
+ */
+public class LruHotLinkCache implements HotLinkCache {
+    private final int maximumSize;
+    private final Map<String, LinkedNodes.Node> entries = new ConcurrentHashMap<>();
+    private final LinkedNodes order = new LinkedNodes();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CacheStats stats = new CacheStats();
+
+    public LruHotLinkCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public String get(CharSequence code, int start, int end) {
+        LinkedNodes.Node node = CodeProbe.get(entries, code, start, end);
+        if (node == null) {
+            stats.recordMiss();
+            return null;
+        }
+        stats.recordHit();
+        if (lock.tryLock()) {
+            try {
+                if (node.prev != null) {
+                    order.moveToFront(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    @Override
+    public void put(String code, String longUrl) {
+        lock.lock();
+        try {
+            LinkedNodes.Node node = entries.get(code);
+            if (node != null) {
+                node.value = longUrl;
+                order.moveToFront(node);
+                return;
+            }
+            node = new LinkedNodes.Node(code, longUrl);
+            entries.put(code, node);
+            order.addFirst(node);
+            while (order.size() > maximumSize) {
+                LinkedNodes.Node eldest = order.last();
+                order.unlink(eldest);
+                entries.remove(eldest.key, eldest);
+                stats.recordEviction();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidate(String code) {
+        lock.lock();
+        try {
+            LinkedNodes.Node node = entries.remove(code);
+            if (node != null) {
+                order.unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats;
+    }
+}
@@ -0,0 +1,172 @@
+package org.osayijoy.url_shortener.cache;
+
+import org.osayijoy.url_shortener.code.CodeProbe;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Window TinyLFU cache.
+ * <p>
+ * New entries land in a small LRU window (1% of the capacity). Entries leaving the window
+ * compete with the main space's eviction victim and are only admitted if the frequency
+ * sketch has seen them more often, so a scan of cold codes churns the window but leaves
+ * the popular codes in the main space alone. The main space is a segmented LRU: a hit in
+ * probation promotes the entry to the protected segment (80% of the main space).
+ * <p>
+ * Lookups go through a {@link ConcurrentHashMap}; accesses update the sketch and the
+ * queues only when the policy lock is free, so reads never wait for each other.
+ */
+public class TinyLfuHotLinkCache implements HotLinkCache {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final Map<String, LinkedNodes.Node> entries = new ConcurrentHashMap<>();
+    private final LinkedNodes window = new LinkedNodes();
+    private final LinkedNodes probation = new LinkedNodes();
+    private final LinkedNodes protectedQueue = new LinkedNodes();
+    private final FrequencySketch sketch;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CacheStats stats = new CacheStats();
+
+    public TinyLfuHotLinkCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (maximumSize - windowMaximum) * 8 / 10;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public String get(CharSequence code, int start, int end) {
+        LinkedNodes.Node node = CodeProbe.get(entries, code, start, end);
+        if (node == null) {
+            stats.recordMiss();
+        } else {
+            stats.recordHit();
+        }
+        if (lock.tryLock()) {
+            try {
+                sketch.increment(CodeProbe.hash(code, start, end));
+                if (node != null && node.prev != null) {
+                    onHit(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public void put(String code, String longUrl) {
+        lock.lock();
+        try {
+            LinkedNodes.Node node = entries.get(code);
+            if (node != null) {
+                node.value = longUrl;
+                onHit(node);
+                return;
+            }
+            node = new LinkedNodes.Node(code, longUrl);
+            node.queue = WINDOW;
+            entries.put(code, node);
+            window.addFirst(node);
+            if (window.size() > windowMaximum) {
+                LinkedNodes.Node candidate = window.last();
+                window.unlink(candidate);
+                admit(candidate);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onHit(LinkedNodes.Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToFront(node);
+                break;
+            case PROBATION:
+                probation.unlink(node);
+                node.queue = PROTECTED;
+                protectedQueue.addFirst(node);
+                if (protectedQueue.size() > protectedMaximum) {
+                    LinkedNodes.Node demoted = protectedQueue.last();
+                    protectedQueue.unlink(demoted);
+                    demoted.queue = PROBATION;
+                    probation.addFirst(demoted);
+                }
+                break;
+            default:
+                protectedQueue.moveToFront(node);
+        }
+    }
+
+    private void admit(LinkedNodes.Node candidate) {
+        candidate.queue = PROBATION;
+        if (probation.size() + protectedQueue.size() < maximumSize - windowMaximum) {
+            probation.addFirst(candidate);
+            return;
+        }
+        LinkedNodes.Node victim = probation.isEmpty() ? protectedQueue.last() : probation.last();
+        if (victim != null && sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+            (victim.queue == PROBATION ? probation : protectedQueue).unlink(victim);
+            evict(victim);
+            probation.addFirst(candidate);
+        } else {
+            evict(candidate);
+        }
+    }
+
+    private void evict(LinkedNodes.Node node) {
+        entries.remove(node.key, node);
+        stats.recordEviction();
+    }
+
+    @Override
+    public void invalidate(String code) {
+        lock.lock();
+        try {
+            LinkedNodes.Node node = entries.remove(code);
+            if (node != null) {
+                queueOf(node).unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private LinkedNodes queueOf(LinkedNodes.Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            default:
+                return protectedQueue;
+        }
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats;
+    }
+}
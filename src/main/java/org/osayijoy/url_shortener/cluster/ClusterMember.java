@@ -0,0 +1,218 @@
+package org.osayijoy.url_shortener.cluster;
+
+import org.osayijoy.url_shortener.cache.EvictionPolicy;
+import org.osayijoy.url_shortener.cache.HotLinkCache;
+import org.osayijoy.url_shortener.code.Base62;
+import org.osayijoy.url_shortener.code.BlockShortCodeGenerator;
+import org.osayijoy.url_shortener.service.UrlShortener;
+import org.osayijoy.url_shortener.store.ConcurrentUrlMappingStore;
+import org.osayijoy.url_shortener.store.UrlMappingStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One node of a shortener cluster.
+ * <p>
+ * Building a member binds its cluster RPC server; {@link #join} then sets the membership,
+ * which may be changed later (mappings are not moved when ownership changes). Each member
+ * generates codes from its own slice of the id space, chosen by its index, so nodes never
+ * need to coordinate to hand out unique codes. Any member can shorten and resolve any
+ * link through {@link #getUrlShortener()}.
+ */
+public class ClusterMember implements Closeable {
+    private final ClusterNode node;
+    private final UrlMappingStore localStore;
+    private final ClusterServer server;
+    private final ClusteredUrlMappingStore store;
+    private final BlockShortCodeGenerator codeGenerator;
+    private final UrlShortener urlShortener;
+    private final int virtualNodes;
+    private final int replicationFactor;
+    private final int timeoutMillis;
+    private Map<Integer, NodeClient> clients = new HashMap<>();
+
+    private ClusterMember(Builder builder) throws IOException {
+        this.localStore = builder.localStore != null ? builder.localStore : new ConcurrentUrlMappingStore();
+        this.virtualNodes = builder.virtualNodes;
+        this.replicationFactor = builder.replicationFactor;
+        this.timeoutMillis = builder.timeoutMillis;
+        HotLinkCache remoteCache = builder.remoteCacheSize > 0
+                ? HotLinkCache.create(EvictionPolicy.W_TINY_LFU, builder.remoteCacheSize)
+                : null;
+        this.server = new ClusterServer(builder.bindAddress, localStore, remoteCache);
+        this.node = new ClusterNode(builder.index, server.getAddress());
+        this.store = new ClusteredUrlMappingStore(node, localStore, remoteCache,
+                new ClusteredUrlMappingStore.Topology(new HashRing(Set.of(node), virtualNodes, replicationFactor), clients));
+
+        long slice = Base62.pow(builder.codeLength) / builder.maxNodes;
+        this.codeGenerator = new BlockShortCodeGenerator(builder.codeLength, BlockShortCodeGenerator.DEFAULT_BLOCK_SIZE,
+                slice * builder.index, slice * (builder.index + 1L));
+        this.urlShortener = new UrlShortener(store, codeGenerator);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public ClusterNode getNode() {
+        return node;
+    }
+
+    /**
+     * Sets the members of the cluster, which must include this node.
+     */
+    public synchronized void join(Collection<ClusterNode> members) {
+        if (!members.contains(node)) {
+            throw new IllegalArgumentException("Members must include " + node);
+        }
+        Set<Integer> indexes = new HashSet<>();
+        for (ClusterNode member : members) {
+            if (!indexes.add(member.getIndex())) {
+                throw new IllegalArgumentException("Duplicate node index " + member.getIndex());
+            }
+        }
+        Map<Integer, NodeClient> joined = new HashMap<>();
+        for (ClusterNode member : members) {
+            if (member.equals(node)) {
+                continue;
+            }
+            NodeClient existing = clients.get(member.getIndex());
+            joined.put(member.getIndex(), existing != null && existing.getNode().equals(member)
+                    ? existing
+                    : new NodeClient(member, timeoutMillis));
+        }
+        store.setTopology(new ClusteredUrlMappingStore.Topology(
+                new HashRing(members, virtualNodes, replicationFactor), joined));
+        for (Map.Entry<Integer, NodeClient> entry : clients.entrySet()) {
+            if (joined.get(entry.getKey()) != entry.getValue()) {
+                entry.getValue().close();
+            }
+        }
+        clients = joined;
+    }
+
+    public UrlShortener getUrlShortener() {
+        return urlShortener;
+    }
+
+    /**
+     * The cluster-wide store, for building a {@link UrlShortener} with other options
+     * together with {@link #getCodeGenerator()}.
+     */
+    public ClusteredUrlMappingStore getStore() {
+        return store;
+    }
+
+    public BlockShortCodeGenerator getCodeGenerator() {
+        return codeGenerator;
+    }
+
+    /**
+     * The mappings this node holds as a replica.
+     */
+    public UrlMappingStore getLocalStore() {
+        return localStore;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        urlShortener.close();
+        server.close();
+        for (NodeClient client : clients.values()) {
+            client.close();
+        }
+    }
+
+    public static final class Builder {
+        private int index;
+        private InetSocketAddress bindAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        private UrlMappingStore localStore;
+        private int replicationFactor = 3;
+        private int virtualNodes = 128;
+        private int maxNodes = 64;
+        private int codeLength = BlockShortCodeGenerator.DEFAULT_CODE_LENGTH;
+        private int remoteCacheSize = 10_000;
+        private int timeoutMillis = 2_000;
+
+        private Builder() {
+        }
+
+        /**
+         * This node's index, unique in the cluster and below {@link #maxNodes(int)}.
+         */
+        public Builder index(int index) {
+            this.index = index;
+            return this;
+        }
+
+        public Builder bindAddress(InetSocketAddress bindAddress) {
+            this.bindAddress = bindAddress;
+            return this;
+        }
+
+        public Builder localStore(UrlMappingStore localStore) {
+            this.localStore = localStore;
+            return this;
+        }
+
+        public Builder replicationFactor(int replicationFactor) {
+            if (replicationFactor < 1) {
+                throw new IllegalArgumentException("Replication factor must be positive");
+            }
+            this.replicationFactor = replicationFactor;
+            return this;
+        }
+
+        public Builder virtualNodes(int virtualNodes) {
+            if (virtualNodes < 1) {
+                throw new IllegalArgumentException("Virtual node count must be positive");
+            }
+            this.virtualNodes = virtualNodes;
+            return this;
+        }
+
+        /**
+         * Number of slices the code id space is split into; must be the same on every node.
+         */
+        public Builder maxNodes(int maxNodes) {
+            if (maxNodes < 1) {
+                throw new IllegalArgumentException("Max nodes must be positive");
+            }
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
+        public Builder codeLength(int codeLength) {
+            this.codeLength = codeLength;
+            return this;
+        }
+
+        /**
+         * Size of the cache of redirects for codes this node does not hold, or 0 to disable it.
+         */
+        public Builder remoteCacheSize(int remoteCacheSize) {
+            this.remoteCacheSize = remoteCacheSize;
+            return this;
+        }
+
+        public Builder timeoutMillis(int timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        public ClusterMember build() throws IOException {
+            if (index < 0 || index >= maxNodes) {
+                throw new IllegalArgumentException("Node index must be in [0, " + maxNodes + ")");
+            }
+            return new ClusterMember(this);
+        }
+    }
+}
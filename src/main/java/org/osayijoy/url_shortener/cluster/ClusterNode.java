@@ -0,0 +1,51 @@
+package org.osayijoy.url_shortener.cluster;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+
+/**
+ * A member of a shortener cluster: its index, which also selects its slice of the code
+ * id space, and the address its cluster RPC server listens on.
+ */
+public final class ClusterNode {
+    private final int index;
+    private final InetSocketAddress address;
+
+    public ClusterNode(int index, InetSocketAddress address) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Node index cannot be negative");
+        }
+        this.index = index;
+        this.address = Objects.requireNonNull(address, "address");
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ClusterNode)) {
+            return false;
+        }
+        ClusterNode node = (ClusterNode) other;
+        return index == node.index && address.equals(node.address);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * index + address.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "node-" + index + "@" + address.getHostString() + ":" + address.getPort();
+    }
+}
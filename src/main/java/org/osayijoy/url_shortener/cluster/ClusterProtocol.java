@@ -0,0 +1,86 @@
+package org.osayijoy.url_shortener.cluster;
+
+import org.osayijoy.url_shortener.cache.HotLinkCache;
+import org.osayijoy.url_shortener.store.UrlMappingStore;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format of the cluster RPC. A request is an operation byte followed by two
+ * strings; a response is one string. Strings are an {@code int} byte length, {@code -1}
+ * for {@code null}, followed by UTF-8 bytes. Boolean results are sent as {@code "1"} or
+ * {@code null}.
+ */
+final class ClusterProtocol {
+    static final byte GET_LONG_URL = 1;
+    static final byte GET_CODE = 2;
+    static final byte PUT_IF_ABSENT = 3;
+    static final byte BIND_IF_ABSENT = 4;
+    static final byte BIND = 5;
+    static final byte REMOVE = 6;
+    static final byte INVALIDATE = 7;
+
+    private static final String TRUE = "1";
+    private static final int MAX_STRING_BYTES = 1 << 24;
+
+    private ClusterProtocol() {
+    }
+
+    /**
+     * Runs an operation against a node's local store.
+     */
+    static String apply(UrlMappingStore store, HotLinkCache remoteCache, byte operation, String first, String second) {
+        switch (operation) {
+            case GET_LONG_URL:
+                return store.getLongUrl(first);
+            case GET_CODE:
+                return store.getCode(first);
+            case PUT_IF_ABSENT:
+                return store.putIfAbsent(first, second) ? TRUE : null;
+            case BIND_IF_ABSENT:
+                return store.bindIfAbsent(first, second);
+            case BIND:
+                store.bind(first, second);
+                return null;
+            case REMOVE:
+                return store.remove(first);
+            case INVALIDATE:
+                if (remoteCache != null) {
+                    remoteCache.invalidate(first);
+                }
+                return null;
+            default:
+                throw new IllegalArgumentException("Unknown cluster operation " + operation);
+        }
+    }
+
+    static boolean isTrue(String result) {
+        return TRUE.equals(result);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("Cluster message too large: " + length + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
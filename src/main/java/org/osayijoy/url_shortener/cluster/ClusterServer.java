@@ -0,0 +1,107 @@
+package org.osayijoy.url_shortener.cluster;
+
+import org.osayijoy.url_shortener.cache.HotLinkCache;
+import org.osayijoy.url_shortener.store.UrlMappingStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Serves the cluster RPC for a node's local store. Peers keep a few long-lived
+ * connections each, so a blocking thread per connection is enough.
+ */
+final class ClusterServer implements Closeable {
+    private final ServerSocket serverSocket;
+    private final UrlMappingStore store;
+    private final HotLinkCache remoteCache;
+    private final ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cluster-server");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    ClusterServer(InetSocketAddress bindAddress, UrlMappingStore store, HotLinkCache remoteCache) throws IOException {
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(bindAddress);
+        this.store = store;
+        this.remoteCache = remoteCache;
+        workers.execute(this::accept);
+    }
+
+    InetSocketAddress getAddress() {
+        return new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                // closed, or a connection that failed before it was accepted
+                continue;
+            }
+            try {
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                workers.execute(() -> serve(socket));
+            } catch (IOException | RejectedExecutionException e) {
+                // setup failed or the server is shutting down
+                connections.remove(socket);
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                byte operation = in.readByte();
+                String first = ClusterProtocol.readString(in);
+                String second = ClusterProtocol.readString(in);
+                ClusterProtocol.writeString(out, ClusterProtocol.apply(store, remoteCache, operation, first, second));
+                out.flush();
+            }
+        } catch (EOFException e) {
+            // peer closed the connection
+        } catch (IOException | RuntimeException e) {
+            // drop the connection; the peer retries on another replica or connection
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,214 @@
+package org.osayijoy.url_shortener.cluster;
+
+import org.osayijoy.url_shortener.cache.HotLinkCache;
+import org.osayijoy.url_shortener.store.UrlMappingStore;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Store view of a whole cluster from one member. Code-keyed operations go to the replicas
+ * of the code and long-URL-keyed operations to the replicas of the long URL, as placed by
+ * a consistent-hash ring; replicas that are this node are served from the local store
+ * without a network hop.
+ * <p>
+ * Conditional writes ({@code putIfAbsent}, {@code bindIfAbsent}) are decided by the first
+ * reachable replica and then copied to the others on a best-effort basis. Reads fail over
+ * along the replica list. Redirect lookups of codes this node does not hold are cached in
+ * an optional {@link HotLinkCache}; removals invalidate it on every member.
+ * <p>
+ * {@link #size()} and {@link #forEachCode} only cover the codes held by this node.
+ */
+public class ClusteredUrlMappingStore implements UrlMappingStore {
+    private final ClusterNode self;
+    private final UrlMappingStore local;
+    private final HotLinkCache remoteCache;
+    private volatile Topology topology;
+
+    ClusteredUrlMappingStore(ClusterNode self, UrlMappingStore local, HotLinkCache remoteCache, Topology topology) {
+        this.self = self;
+        this.local = local;
+        this.remoteCache = remoteCache;
+        this.topology = topology;
+    }
+
+    void setTopology(Topology topology) {
+        this.topology = topology;
+    }
+
+    @Override
+    public String getLongUrl(String code) {
+        return getLongUrl(code, 0, code.length());
+    }
+
+    @Override
+    public String getLongUrl(CharSequence code, int start, int end) {
+        ClusterNode[] replicas = topology.ring.replicas(code, start, end);
+        if (contains(replicas, self)) {
+            return local.getLongUrl(code, start, end);
+        }
+        if (remoteCache != null) {
+            String cached = remoteCache.get(code, start, end);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String key = code.subSequence(start, end).toString();
+        String longUrl = read(replicas, ClusterProtocol.GET_LONG_URL, key);
+        if (longUrl != null && remoteCache != null) {
+            remoteCache.put(key, longUrl);
+        }
+        return longUrl;
+    }
+
+    @Override
+    public String getCode(String longUrl) {
+        ClusterNode[] replicas = topology.ring.replicas(longUrl);
+        if (contains(replicas, self)) {
+            return local.getCode(longUrl);
+        }
+        return read(replicas, ClusterProtocol.GET_CODE, longUrl);
+    }
+
+    @Override
+    public boolean putIfAbsent(String code, String longUrl) {
+        ClusterNode[] replicas = topology.ring.replicas(code);
+        Decision decision = decide(replicas, ClusterProtocol.PUT_IF_ABSENT, code, longUrl);
+        if (!ClusterProtocol.isTrue(decision.result)) {
+            return false;
+        }
+        replicate(replicas, decision.replica, ClusterProtocol.PUT_IF_ABSENT, code, longUrl);
+        return true;
+    }
+
+    @Override
+    public String bindIfAbsent(String longUrl, String code) {
+        ClusterNode[] replicas = topology.ring.replicas(longUrl);
+        Decision decision = decide(replicas, ClusterProtocol.BIND_IF_ABSENT, longUrl, code);
+        if (decision.result == null) {
+            replicate(replicas, decision.replica, ClusterProtocol.BIND, longUrl, code);
+        }
+        return decision.result;
+    }
+
+    @Override
+    public void bind(String longUrl, String code) {
+        ClusterNode[] replicas = topology.ring.replicas(longUrl);
+        Decision decision = decide(replicas, ClusterProtocol.BIND, longUrl, code);
+        replicate(replicas, decision.replica, ClusterProtocol.BIND, longUrl, code);
+    }
+
+    @Override
+    public String remove(String code) {
+        Topology current = topology;
+        ClusterNode[] replicas = current.ring.replicas(code);
+        Decision decision = decide(replicas, ClusterProtocol.REMOVE, code, null);
+        replicate(replicas, decision.replica, ClusterProtocol.REMOVE, code, null);
+        if (remoteCache != null) {
+            remoteCache.invalidate(code);
+        }
+        for (NodeClient client : current.clients.values()) {
+            if (!contains(replicas, client.getNode())) {
+                tryCall(client.getNode(), ClusterProtocol.INVALIDATE, code, null);
+            }
+        }
+        return decision.result;
+    }
+
+    @Override
+    public int size() {
+        return local.size();
+    }
+
+    @Override
+    public void forEachCode(Consumer<String> action) {
+        local.forEachCode(action);
+    }
+
+    /**
+     * Runs an operation on the first reachable replica, which decides its outcome.
+     */
+    private Decision decide(ClusterNode[] replicas, byte operation, String first, String second) {
+        for (int i = 0; i < replicas.length; i++) {
+            try {
+                return new Decision(i, call(replicas[i], operation, first, second));
+            } catch (IOException e) {
+                // try the next replica
+            }
+        }
+        throw new IllegalStateException("No replica reachable for " + first);
+    }
+
+    private void replicate(ClusterNode[] replicas, int primary, byte operation, String first, String second) {
+        for (int i = primary + 1; i < replicas.length; i++) {
+            tryCall(replicas[i], operation, first, second);
+        }
+    }
+
+    private String read(ClusterNode[] replicas, byte operation, String key) {
+        for (ClusterNode replica : replicas) {
+            try {
+                return call(replica, operation, key, null);
+            } catch (IOException e) {
+                // try the next replica
+            }
+        }
+        throw new IllegalStateException("No replica reachable for " + key);
+    }
+
+    private void tryCall(ClusterNode node, byte operation, String first, String second) {
+        try {
+            call(node, operation, first, second);
+        } catch (IOException e) {
+            // best effort: a replica that is down misses this write
+        }
+    }
+
+    private String call(ClusterNode node, byte operation, String first, String second) throws IOException {
+        if (node.equals(self)) {
+            return ClusterProtocol.apply(local, remoteCache, operation, first, second);
+        }
+        NodeClient client = topology.clients.get(node.getIndex());
+        if (client == null) {
+            throw new IOException("No connection to " + node);
+        }
+        return client.call(operation, first, second);
+    }
+
+    private static boolean contains(ClusterNode[] nodes, ClusterNode node) {
+        for (ClusterNode candidate : nodes) {
+            if (candidate.equals(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Decision {
+        private final int replica;
+        private final String result;
+
+        private Decision(int replica, String result) {
+            this.replica = replica;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Ring and peer clients of one membership, swapped as a unit.
+     */
+    static final class Topology {
+        private final HashRing ring;
+        private final Map<Integer, NodeClient> clients;
+
+        Topology(HashRing ring, Map<Integer, NodeClient> clients) {
+            this.ring = ring;
+            this.clients = clients;
+        }
+
+        Map<Integer, NodeClient> clients() {
+            return clients;
+        }
+    }
+}
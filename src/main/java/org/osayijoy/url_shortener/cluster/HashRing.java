@@ -0,0 +1,81 @@
+package org.osayijoy.url_shortener.cluster;
+
+import org.osayijoy.url_shortener.code.StringHash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable consistent-hash ring. Each node is placed at {@code virtualNodes} points; a
+ * key belongs to the first point at or after its hash, and its replicas are the distinct
+ * nodes met walking clockwise from there. Replica lists are computed once per point, so a
+ * lookup is a binary search with no allocation.
+ */
+final class HashRing {
+    private final long[] points;
+    private final ClusterNode[][] replicas;
+
+    HashRing(Collection<ClusterNode> nodes, int virtualNodes, int replicationFactor) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one node");
+        }
+        int total = nodes.size() * virtualNodes;
+        long[][] placed = new long[total][];
+        List<ClusterNode> byIndex = new ArrayList<>(nodes);
+        int position = 0;
+        for (int n = 0; n < byIndex.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                placed[position++] = new long[]{hash(byIndex.get(n).getIndex() + "#" + v), n};
+            }
+        }
+        Arrays.sort(placed, (a, b) -> Long.compare(a[0], b[0]));
+
+        int copies = Math.min(replicationFactor, nodes.size());
+        this.points = new long[total];
+        this.replicas = new ClusterNode[total][];
+        for (int i = 0; i < total; i++) {
+            points[i] = placed[i][0];
+            ClusterNode[] owners = new ClusterNode[copies];
+            int found = 0;
+            for (int j = i; found < copies; j = (j + 1) % total) {
+                ClusterNode candidate = byIndex.get((int) placed[j][1]);
+                if (!contains(owners, found, candidate)) {
+                    owners[found++] = candidate;
+                }
+            }
+            replicas[i] = owners;
+        }
+    }
+
+    /**
+     * Replicas of the key in {@code key[start, end)}, primary first. The array is shared
+     * and must not be modified.
+     */
+    ClusterNode[] replicas(CharSequence key, int start, int end) {
+        long hash = StringHash.hash(key, start, end);
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return replicas[index == points.length ? 0 : index];
+    }
+
+    ClusterNode[] replicas(String key) {
+        return replicas(key, 0, key.length());
+    }
+
+    private static boolean contains(ClusterNode[] nodes, int count, ClusterNode node) {
+        for (int i = 0; i < count; i++) {
+            if (nodes[i].equals(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long hash(CharSequence key) {
+        return StringHash.hash(key, 0, key.length());
+    }
+}
@@ -0,0 +1,91 @@
+package org.osayijoy.url_shortener.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Client for one peer's cluster RPC. Connections are pooled and reused; one that fails
+ * is closed rather than returned, and the failure is passed on so the caller can try
+ * another replica.
+ */
+final class NodeClient implements Closeable {
+    private final ClusterNode node;
+    private final int timeoutMillis;
+    private final Queue<Connection> idle = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    NodeClient(ClusterNode node, int timeoutMillis) {
+        this.node = node;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    ClusterNode getNode() {
+        return node;
+    }
+
+    String call(byte operation, String first, String second) throws IOException {
+        if (closed) {
+            throw new IOException(node + " client is closed");
+        }
+        Connection connection = idle.poll();
+        if (connection == null) {
+            connection = new Connection(node, timeoutMillis);
+        }
+        try {
+            connection.out.writeByte(operation);
+            ClusterProtocol.writeString(connection.out, first);
+            ClusterProtocol.writeString(connection.out, second);
+            connection.out.flush();
+            String result = ClusterProtocol.readString(connection.in);
+            idle.add(connection);
+            return result;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private static final class Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Connection(ClusterNode node, int timeoutMillis) throws IOException {
+            this.socket = new Socket();
+            try {
+                socket.connect(node.getAddress(), timeoutMillis);
+                socket.setSoTimeout(timeoutMillis);
+                socket.setTcpNoDelay(true);
+                this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already unusable
+            }
+        }
+    }
+}
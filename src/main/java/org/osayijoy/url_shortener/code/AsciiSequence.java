@@ -0,0 +1,73 @@
+package org.osayijoy.url_shortener.code;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable {@link CharSequence} view of ASCII bytes, so codes read from a request buffer
+ * can be parsed and looked up without decoding them into a {@code String}.
+ */
+public final class AsciiSequence implements CharSequence {
+    private byte[] bytes;
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    public AsciiSequence wrap(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.buffer = null;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * Views {@code length} bytes of {@code buffer} starting at absolute index {@code offset}.
+     * The buffer's position and limit are not used or changed.
+     */
+    public AsciiSequence wrap(ByteBuffer buffer, int offset, int length) {
+        this.bytes = null;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    /**
+     * Drops the reference to the wrapped bytes.
+     */
+    public void clear() {
+        bytes = null;
+        buffer = null;
+        length = 0;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        byte value = bytes != null ? bytes[offset + index] : buffer.get(offset + index);
+        return (char) (value & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        AsciiSequence sequence = new AsciiSequence();
+        return bytes != null
+                ? sequence.wrap(bytes, offset + start, end - start)
+                : sequence.wrap(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        if (bytes != null) {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        byte[] copy = new byte[length];
+        buffer.get(offset, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,94 @@
+package org.osayijoy.url_shortener.code;
+
+public final class Base62 {
+    public static final int RADIX = 62;
+    /**
+     * Longest code {@link #pack} accepts: 63^10 still fits in a positive long.
+     */
+    public static final int MAX_PACKED_LENGTH = 10;
+    public static final long NOT_PACKABLE = -1;
+    private static final char[] ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private Base62() {
+    }
+
+    /**
+     * Writes {@code value} as exactly {@code length} Base62 digits into {@code dst},
+     * left-padded with '0'.
+     */
+    public static void encode(long value, char[] dst, int offset, int length) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be negative");
+        }
+        for (int i = offset + length - 1; i >= offset; i--) {
+            dst[i] = ALPHABET[(int) (value % RADIX)];
+            value /= RADIX;
+        }
+        if (value != 0) {
+            throw new IllegalArgumentException("Value does not fit in " + length + " digits");
+        }
+    }
+
+    /**
+     * Returns the value of {@code c} as a Base62 digit, or -1 if it is not one.
+     */
+    public static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 36;
+        }
+        return -1;
+    }
+
+    /**
+     * Packs a code of 1 to {@link #MAX_PACKED_LENGTH} Base62 characters into a positive
+     * long without allocating. Digits are stored shifted by one in base 63, so codes that
+     * only differ by leading '0's still pack differently.
+     *
+     * @return the packed code, or {@link #NOT_PACKABLE} if the characters in
+     * {@code [start, end)} are not a packable code
+     */
+    public static long pack(CharSequence code, int start, int end) {
+        int length = end - start;
+        if (length < 1 || length > MAX_PACKED_LENGTH) {
+            return NOT_PACKABLE;
+        }
+        long packed = 0;
+        for (int i = start; i < end; i++) {
+            int digit = digit(code.charAt(i));
+            if (digit < 0) {
+                return NOT_PACKABLE;
+            }
+            packed = packed * (RADIX + 1) + digit + 1;
+        }
+        return packed;
+    }
+
+    public static long pack(CharSequence code) {
+        return pack(code, 0, code.length());
+    }
+
+    public static String unpack(long packed) {
+        char[] buffer = new char[MAX_PACKED_LENGTH];
+        int position = buffer.length;
+        while (packed > 0) {
+            buffer[--position] = ALPHABET[(int) (packed % (RADIX + 1)) - 1];
+            packed /= RADIX + 1;
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    public static long pow(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= RADIX;
+        }
+        return result;
+    }
+}
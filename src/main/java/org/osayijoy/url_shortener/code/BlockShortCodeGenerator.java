@@ -0,0 +1,138 @@
+package org.osayijoy.url_shortener.code;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter-based generator. Each thread leases a block of ids from an {@link IdBlockSource}
+ * (a shared in-memory counter by default) and hands them out without further coordination,
+ * so codes are collision-free by construction and there is no retry loop.
+ * <p>
+ * Ids are spread over the code space with a multiplicative permutation modulo
+ * 62^codeLength before Base62 encoding, so consecutive links do not get consecutive codes.
+ */
+public class BlockShortCodeGenerator implements ShortCodeGenerator {
+    public static final int DEFAULT_CODE_LENGTH = 8;
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+    private static final int MAX_CODE_LENGTH = 8;
+    private static final long MULTIPLIER_SEED = 0x5DEECE66DL;
+
+    private final IdBlockSource source;
+    private final long endId;
+    private final int blockSize;
+    private final int codeLength;
+    private final long codeSpace;
+    private final long multiplier;
+    private final ThreadLocal<Lease> leases;
+
+    public BlockShortCodeGenerator() {
+        this(DEFAULT_CODE_LENGTH, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockShortCodeGenerator(int codeLength, int blockSize) {
+        this(codeLength, blockSize, 0, codeSpace(codeLength));
+    }
+
+    /**
+     * Creates a generator that only hands out ids in {@code [firstId, endId)}. Disjoint
+     * ranges give disjoint codes, which lets independent generators share a code space.
+     */
+    public BlockShortCodeGenerator(int codeLength, int blockSize, long firstId, long endId) {
+        this(codeLength, blockSize, rangeSource(codeLength, firstId, endId), endId);
+    }
+
+    /**
+     * Creates a generator that leases its blocks from {@code source}, for example a
+     * {@link FileIdBlockSource} so that codes keep being unique across restarts.
+     */
+    public BlockShortCodeGenerator(int codeLength, int blockSize, IdBlockSource source) {
+        this(codeLength, blockSize, source, codeSpace(codeLength));
+    }
+
+    private BlockShortCodeGenerator(int codeLength, int blockSize, IdBlockSource source, long endId) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.codeLength = codeLength;
+        this.codeSpace = codeSpace(codeLength);
+        this.blockSize = blockSize;
+        this.source = source;
+        this.endId = endId;
+        this.multiplier = coprimeMultiplier(codeSpace);
+        this.leases = ThreadLocal.withInitial(() -> new Lease(codeLength));
+    }
+
+    @Override
+    public String nextCode(String longUrl) {
+        Lease lease = leases.get();
+        if (lease.next == lease.end) {
+            long start = source.nextBlock(blockSize);
+            if (start >= endId) {
+                throw new IllegalStateException("Short code space exhausted");
+            }
+            lease.next = start;
+            lease.end = Math.min(start + blockSize, endId);
+        }
+        Base62.encode(permute(lease.next++), lease.buffer, 0, codeLength);
+        return new String(lease.buffer);
+    }
+
+    public int getCodeLength() {
+        return codeLength;
+    }
+
+    private static long codeSpace(int codeLength) {
+        if (codeLength < 1 || codeLength > MAX_CODE_LENGTH) {
+            throw new IllegalArgumentException("Code length must be between 1 and " + MAX_CODE_LENGTH);
+        }
+        return Base62.pow(codeLength);
+    }
+
+    private static IdBlockSource rangeSource(int codeLength, long firstId, long endId) {
+        if (firstId < 0 || endId > codeSpace(codeLength) || firstId >= endId) {
+            throw new IllegalArgumentException("Id range must lie within the code space");
+        }
+        AtomicLong next = new AtomicLong(firstId);
+        return next::getAndAdd;
+    }
+
+    private long permute(long id) {
+        // (id * multiplier) mod codeSpace in 12-bit steps; both operands are below 62^8 < 2^48,
+        // so no intermediate product overflows a signed long
+        long result = 0;
+        for (int shift = 36; shift >= 0; shift -= 12) {
+            long chunk = (multiplier >>> shift) & 0xFFF;
+            result = ((result << 12) % codeSpace + (id * chunk) % codeSpace) % codeSpace;
+        }
+        return result;
+    }
+
+    private static long coprimeMultiplier(long codeSpace) {
+        if (codeSpace <= 2) {
+            return 1;
+        }
+        long candidate = MULTIPLIER_SEED % codeSpace;
+        while (candidate <= 1 || gcd(candidate, codeSpace) != 1) {
+            candidate = (candidate + 1) % codeSpace;
+        }
+        return candidate;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static final class Lease {
+        private final char[] buffer;
+        private long next;
+        private long end;
+
+        private Lease(int codeLength) {
+            this.buffer = new char[codeLength];
+        }
+    }
+}
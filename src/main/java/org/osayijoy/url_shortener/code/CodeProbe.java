@@ -0,0 +1,93 @@
+package org.osayijoy.url_shortener.code;
+
+import java.util.Map;
+
+/**
+ * Looks up {@code String}-keyed hash maps with a slice of a {@link CharSequence}, without
+ * building a {@code String} for the key.
+ * <p>
+ * {@link java.util.HashMap} and {@link java.util.concurrent.ConcurrentHashMap} hash the
+ * probe with {@link #hashCode()} and compare it with {@code probe.equals(storedKey)}, so a
+ * reusable per-thread probe whose hash and equality match {@link String}'s finds the entry.
+ * Only use it with those maps; the probe is never stored.
+ */
+public final class CodeProbe implements CharSequence {
+    private static final ThreadLocal<CodeProbe> PROBES = ThreadLocal.withInitial(CodeProbe::new);
+
+    private CharSequence source;
+    private int start;
+    private int length;
+    private int hash;
+
+    private CodeProbe() {
+    }
+
+    public static <V> V get(Map<String, V> map, CharSequence code, int start, int end) {
+        CodeProbe probe = PROBES.get();
+        probe.source = code;
+        probe.start = start;
+        probe.length = end - start;
+        probe.hash = hash(code, start, end);
+        try {
+            return map.get(probe);
+        } finally {
+            probe.source = null;
+        }
+    }
+
+    /**
+     * Same value as {@code code.subSequence(start, end).toString().hashCode()}.
+     */
+    public static int hash(CharSequence code, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + code.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * Whether {@code code[start, end)} has the same characters as {@code value}.
+     */
+    public static boolean contentEquals(CharSequence code, int start, int end, String value) {
+        if (value.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != code.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof String && contentEquals(source, start, start + length, (String) other);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return source.subSequence(start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        return source.subSequence(start, start + length).toString();
+    }
+}
@@ -0,0 +1,73 @@
+package org.osayijoy.url_shortener.code;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Id source that survives restarts. It persists a high-water mark and reserves ids ahead
+ * of use, so only one write and fsync is needed per {@code reserveAhead} ids. Ids reserved
+ * but not handed out before a crash are skipped, never reused.
+ */
+public class FileIdBlockSource implements IdBlockSource, Closeable {
+    public static final long DEFAULT_RESERVE_AHEAD = 1 << 20;
+
+    private final FileChannel channel;
+    private final long reserveAhead;
+    private final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+    private long next;
+    private long reservedEnd;
+
+    public FileIdBlockSource(Path file) {
+        this(file, DEFAULT_RESERVE_AHEAD);
+    }
+
+    public FileIdBlockSource(Path file, long reserveAhead) {
+        if (reserveAhead < 1) {
+            throw new IllegalArgumentException("Reserve ahead must be positive");
+        }
+        this.reserveAhead = reserveAhead;
+        try {
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() >= Long.BYTES) {
+                channel.read(buffer, 0);
+                next = buffer.flip().getLong();
+            }
+            reservedEnd = next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open id sequence " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized long nextBlock(int size) {
+        long start = next;
+        if (start + size > reservedEnd) {
+            persist(start + Math.max(size, reserveAhead));
+        }
+        next = start + size;
+        return start;
+    }
+
+    private void persist(long highWater) {
+        try {
+            buffer.clear();
+            buffer.putLong(highWater).flip();
+            channel.write(buffer, 0);
+            channel.force(false);
+            reservedEnd = highWater;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot persist id sequence", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
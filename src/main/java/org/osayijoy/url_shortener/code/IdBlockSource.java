@@ -0,0 +1,13 @@
+package org.osayijoy.url_shortener.code;
+
+/**
+ * Hands out blocks of numeric ids to a {@link BlockShortCodeGenerator}. Blocks returned by
+ * one source must never overlap.
+ */
+public interface IdBlockSource {
+
+    /**
+     * Reserves {@code size} consecutive ids and returns the first one.
+     */
+    long nextBlock(int size);
+}
@@ -0,0 +1,14 @@
+package org.osayijoy.url_shortener.code;
+
+/**
+ * Produces short codes for new mappings. Implementations must be thread-safe and should
+ * never hand out the same code twice.
+ */
+public interface ShortCodeGenerator {
+
+    /**
+     * Returns a fresh code for {@code longUrl}. Generators that do not derive codes from
+     * the URL are free to ignore it.
+     */
+    String nextCode(String longUrl);
+}
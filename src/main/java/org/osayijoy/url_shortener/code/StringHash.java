@@ -0,0 +1,32 @@
+package org.osayijoy.url_shortener.code;
+
+/**
+ * 64-bit hash of a {@link CharSequence} slice: FNV-1a over the chars, finished with
+ * MurmurHash3's {@code fmix64} so every output bit depends on every input char. Shared by
+ * the stores' indexes and filters and the cluster's hash ring, which must all agree on it.
+ */
+public final class StringHash {
+
+    private StringHash() {
+    }
+
+    public static long hash(CharSequence value, int start, int end) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * MurmurHash3's {@code fmix64} finalizer.
+     */
+    public static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
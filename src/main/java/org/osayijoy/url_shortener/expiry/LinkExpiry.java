@@ -0,0 +1,160 @@
+package org.osayijoy.url_shortener.expiry;
+
+import org.osayijoy.url_shortener.code.CodeProbe;
+import org.osayijoy.url_shortener.store.UrlMappingStore;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Expires codes of a {@link UrlMappingStore} at their deadline.
+ * <p>
+ * Deadlines live in a map that the redirect path checks (without allocating) so an
+ * expired link stops resolving the moment its deadline passes, and in a
+ * {@link TimingWheel} that a background thread advances every tick to remove expired
+ * codes from the store in small batches. Removing a code frees the mapping and makes the
+ * code or keyword available again.
+ */
+public class LinkExpiry implements Closeable {
+    private static final int RECLAIM_BATCH = 1024;
+
+    private final UrlMappingStore store;
+    private final LongSupplier clock;
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
+    private final TimingWheel<String> wheel;
+    private final ScheduledExecutorService reclaimer;
+    private final String[] batchCodes = new String[RECLAIM_BATCH];
+    private final long[] batchDeadlines = new long[RECLAIM_BATCH];
+    private int batchSize;
+
+    public LinkExpiry(UrlMappingStore store) {
+        this(store, 100, System::currentTimeMillis, true);
+    }
+
+    /**
+     * @param tickMillis granularity of the timing wheel and interval of background reclamation
+     * @param clock      wall clock in milliseconds
+     * @param background whether to reclaim on a background thread; otherwise only
+     *                   {@link #reclaim()} and expired reads remove codes
+     */
+    public LinkExpiry(UrlMappingStore store, long tickMillis, LongSupplier clock, boolean background) {
+        this.store = store;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(tickMillis, clock.getAsLong());
+        if (background) {
+            this.reclaimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "link-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reclaimer.scheduleWithFixedDelay(this::reclaim, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.reclaimer = null;
+        }
+    }
+
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Expires {@code code} at {@code deadlineMillis}, replacing any earlier deadline.
+     */
+    public synchronized void expireAt(String code, long deadlineMillis) {
+        deadlines.put(code, deadlineMillis);
+        wheel.schedule(code, deadlineMillis);
+    }
+
+    /**
+     * Whether the code in {@code code[start, end)} has a deadline that has passed.
+     */
+    public boolean isExpired(CharSequence code, int start, int end) {
+        if (deadlines.isEmpty()) {
+            return false;
+        }
+        Long deadline = CodeProbe.get(deadlines, code, start, end);
+        return deadline != null && deadline <= clock.getAsLong();
+    }
+
+    /**
+     * Removes {@code code} from the store if its deadline has passed.
+     *
+     * @return whether the code was expired and removed
+     */
+    public boolean expireIfDue(String code) {
+        Long deadline = deadlines.get(code);
+        return deadline != null && deadline <= clock.getAsLong() && expire(code, deadline);
+    }
+
+    /**
+     * Removes every code whose deadline has passed, in batches so concurrent schedules
+     * and expired reads are never held up for long.
+     *
+     * @return the number of codes removed
+     */
+    public int reclaim() {
+        int removed = 0;
+        while (true) {
+            int polled;
+            synchronized (batchCodes) {
+                batchSize = 0;
+                polled = wheel.poll(clock.getAsLong(), RECLAIM_BATCH, this::collect);
+                for (int i = 0; i < polled; i++) {
+                    if (expire(batchCodes[i], batchDeadlines[i])) {
+                        removed++;
+                    }
+                    batchCodes[i] = null;
+                }
+            }
+            if (polled < RECLAIM_BATCH) {
+                return removed;
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Number of codes with a pending deadline.
+     */
+    public int size() {
+        return deadlines.size();
+    }
+
+    @Override
+    public void close() {
+        if (reclaimer != null) {
+            reclaimer.shutdownNow();
+            try {
+                reclaimer.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void collect(String code, long deadline) {
+        batchCodes[batchSize] = code;
+        batchDeadlines[batchSize] = deadline;
+        batchSize++;
+    }
+
+    /**
+     * Removes the code only if {@code deadline} is still its current deadline, so a stale
+     * wheel entry cannot remove a code that has since been reissued. Serialized so two
+     * expirers cannot both act on the same deadline.
+     */
+    private synchronized boolean expire(String code, long deadline) {
+        Long current = deadlines.get(code);
+        if (current == null || current != deadline) {
+            return false;
+        }
+        store.remove(code);
+        deadlines.remove(code, current);
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+package org.osayijoy.url_shortener.expiry;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Hierarchical timing wheel. Deadlines are rounded up to ticks; level {@code l} has 64
+ * buckets of {@code 64^l} ticks each, so scheduling is O(1) whatever the delay. As time
+ * advances, a higher-level bucket is cascaded into the lower levels when its span begins,
+ * and the level-0 bucket of the current tick becomes due. A bitmap of non-empty buckets
+ * per level lets the wheel jump straight to the next tick where either happens, so idle
+ * stretches cost nothing however long they are.
+ * <p>
+ * {@link #poll} hands out at most a bounded number of due entries per call, so expiring a
+ * large batch is spread over many short critical sections.
+ */
+final class TimingWheel<T> {
+    private static final int BITS = 6;
+    private static final int WHEEL_SIZE = 1 << BITS;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 6;
+    private static final long MAX_DELAY = 1L << (BITS * LEVELS);
+
+    private final long tickMillis;
+    private final Node[][] buckets = new Node[LEVELS][WHEEL_SIZE];
+    private final long[] occupied = new long[LEVELS];
+    private Node due;
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    synchronized void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis, tickMillis) + (Math.floorMod(deadlineMillis, tickMillis) == 0 ? 0 : 1);
+        place(new Node(item, deadlineMillis, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Advances the wheel up to {@code nowMillis} and passes due entries, with their
+     * deadlines, to {@code sink}, stopping after {@code limit} entries.
+     *
+     * @return the number of entries passed to {@code sink}
+     */
+    @SuppressWarnings("unchecked")
+    synchronized int poll(long nowMillis, int limit, ObjLongConsumer<T> sink) {
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        int polled = 0;
+        while (polled < limit) {
+            if (due != null) {
+                Node node = due;
+                due = node.next;
+                size--;
+                polled++;
+                sink.accept((T) node.item, node.deadlineMillis);
+                continue;
+            }
+            if (currentTick > nowTick) {
+                break;
+            }
+            long nextTick = nextEventTick();
+            if (nextTick > nowTick) {
+                currentTick = nowTick + 1;
+                break;
+            }
+            currentTick = nextTick;
+            advance();
+        }
+        return polled;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * The first tick from {@code currentTick} on at which a level-0 bucket becomes due or
+     * a higher-level bucket cascades, or {@link Long#MAX_VALUE} if every bucket is empty.
+     */
+    private long nextEventTick() {
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupied[level] == 0) {
+                continue;
+            }
+            int shift = BITS * level;
+            // first span of this level starting at or after currentTick
+            long span = -Math.floorDiv(-currentTick, 1L << shift);
+            int distance = Long.numberOfTrailingZeros(Long.rotateRight(occupied[level], (int) span & MASK));
+            next = Math.min(next, (span + distance) << shift);
+        }
+        return next;
+    }
+
+    private void advance() {
+        long tick = currentTick;
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((tick & ((1L << (BITS * level)) - 1)) == 0) {
+                int index = (int) (tick >>> (BITS * level)) & MASK;
+                Node node = buckets[level][index];
+                buckets[level][index] = null;
+                occupied[level] &= ~(1L << index);
+                while (node != null) {
+                    Node next = node.next;
+                    place(node);
+                    node = next;
+                }
+            }
+        }
+        int index = (int) tick & MASK;
+        Node node = buckets[0][index];
+        buckets[0][index] = null;
+        occupied[0] &= ~(1L << index);
+        while (node != null) {
+            Node next = node.next;
+            node.next = due;
+            due = node;
+            node = next;
+        }
+        currentTick = tick + 1;
+    }
+
+    private void place(Node node) {
+        long delay = node.deadlineTick - currentTick;
+        if (delay < 0) {
+            node.next = due;
+            due = node;
+            return;
+        }
+        long tick = node.deadlineTick;
+        int level = delay < WHEEL_SIZE ? 0 : (63 - Long.numberOfLeadingZeros(delay)) / BITS;
+        if (level >= LEVELS) {
+            level = LEVELS - 1;
+            tick = currentTick + MAX_DELAY - 1;
+        }
+        int index = (int) (tick >>> (BITS * level)) & MASK;
+        node.next = buckets[level][index];
+        buckets[level][index] = node;
+        occupied[level] |= 1L << index;
+    }
+
+    private static final class Node {
+        private final Object item;
+        private final long deadlineMillis;
+        private final long deadlineTick;
+        private Node next;
+
+        private Node(Object item, long deadlineMillis, long deadlineTick) {
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.osayijoy.url_shortener.server;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * State of one client connection. {@code in} and {@code out} stay in write mode: received
+ * bytes are in {@code in[0, position)} and bytes waiting to be sent in {@code out[0, position)}.
+ */
+final class Connection {
+    final SocketChannel channel;
+    ByteBuffer in;
+    ByteBuffer out;
+    boolean closeAfterWrite;
+    /**
+     * A response that was built but did not fit {@code out}, held with the length of the
+     * request it answers so the request is not handled, and its side effects repeated, twice.
+     */
+    byte[] deferredHead;
+    byte[] deferredTail;
+    byte[] deferredBody;
+    int deferredRequestEnd;
+
+    Connection(SocketChannel channel, ByteBuffer in, ByteBuffer out) {
+        this.channel = channel;
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * Whether a response of {@code bytes} can be queued now. A response that does not fit
+     * an empty pooled buffer gets a one-off heap buffer; otherwise the caller waits for the
+     * pending output to drain.
+     */
+    boolean reserve(int bytes, BufferPool pool) {
+        if (bytes <= out.remaining()) {
+            return true;
+        }
+        if (out.position() > 0) {
+            return false;
+        }
+        pool.release(out);
+        out = ByteBuffer.allocate(bytes);
+        return true;
+    }
+
+    void put(byte[] head, byte[] tail, byte[] body) {
+        out.put(head).put(tail).put(body);
+    }
+
+    /**
+     * Drops the first {@code bytes} received bytes, moving any pipelined request after
+     * them to the start of the buffer.
+     */
+    void consume(int bytes) {
+        in.flip();
+        in.position(bytes);
+        in.compact();
+    }
+}
@@ -0,0 +1,154 @@
+package org.osayijoy.url_shortener.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One selector thread serving a share of the connections. Everything a connection touches
+ * (its buffers, the buffer pool and the request handler) is confined to this thread.
+ */
+final class EventLoop implements Runnable {
+    private final Selector selector;
+    private final BufferPool pool;
+    private final RequestHandler handler;
+    private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    EventLoop(RequestHandler handler, BufferPool pool) throws IOException {
+        this.selector = Selector.open();
+        this.handler = handler;
+        this.pool = pool;
+    }
+
+    void register(SocketChannel channel) {
+        pending.add(channel);
+        selector.wakeup();
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                registerPending();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isWritable()) {
+                            onWritable(key, connection);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            onReadable(key, connection);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // drop only this connection; the loop keeps serving the others
+                        close(key, connection);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // shutting down
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                close(key, (Connection) key.attachment());
+            }
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                closeQuietly(channel);
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private void registerPending() {
+        SocketChannel channel;
+        while ((channel = pending.poll()) != null) {
+            try {
+                Connection connection = new Connection(channel, pool.acquire(), pool.acquire());
+                channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException e) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private void onReadable(SelectionKey key, Connection connection) throws IOException {
+        if (connection.channel.read(connection.in) < 0) {
+            close(key, connection);
+            return;
+        }
+        process(key, connection);
+    }
+
+    private void onWritable(SelectionKey key, Connection connection) throws IOException {
+        if (flush(key, connection)) {
+            process(key, connection);
+        }
+    }
+
+    /**
+     * Answers every complete request in the input buffer, then writes what it can.
+     */
+    private void process(SelectionKey key, Connection connection) throws IOException {
+        while (!connection.closeAfterWrite && handler.handle(connection)) {
+            // keep going while pipelined requests are answered
+        }
+        flush(key, connection);
+    }
+
+    /**
+     * @return {@code true} if all pending output was written and the connection stays open
+     */
+    private boolean flush(SelectionKey key, Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        if (out.position() > 0) {
+            out.flip();
+            connection.channel.write(out);
+            out.compact();
+        }
+        if (out.position() > 0) {
+            key.interestOps(SelectionKey.OP_WRITE);
+            return false;
+        }
+        if (!out.isDirect()) {
+            connection.out = pool.acquire();
+        }
+        if (connection.closeAfterWrite) {
+            close(key, connection);
+            return false;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+        return true;
+    }
+
+    private void close(SelectionKey key, Connection connection) {
+        key.cancel();
+        closeQuietly(connection.channel);
+        if (connection.in != null) {
+            pool.release(connection.in);
+            pool.release(connection.out);
+            connection.in = null;
+            connection.out = null;
+        }
+    }
+
+    static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // nothing left to release
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.osayijoy.url_shortener.server;
+
+import org.osayijoy.url_shortener.service.UrlShortener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Embedded HTTP front end for a {@link UrlShortener}.
+ * <ul>
+ *     <li>{@code GET /{code}} (or {@code HEAD}) answers {@code 302 Found}, or
+ *     {@code 301 Moved Permanently} if configured, with the long URL in {@code Location},
+ *     and {@code 404} for unknown codes.</li>
+ *     <li>{@code POST /shorten} with the long URL as the request body answers
+ *     {@code 201 Created} with the short URL, or {@code 400} for an invalid URL.</li>
+ * </ul>
+ * An acceptor thread hands connections round-robin to a fixed set of selector threads.
+ * Connections are kept alive (HTTP/1.1 default) and pipelined requests are answered in
+ * order. Each selector thread parses requests in place in pooled direct buffers and
+ * serves redirects from pre-encoded responses. {@code POST /shorten} runs on the selector
+ * thread, so a store that syncs to disk on every write slows the other connections of
+ * that thread down.
+ */
+public class RedirectServer implements Closeable {
+    private static final long ACCEPT_BACKOFF_MILLIS = 10;
+
+    private final InetSocketAddress bindAddress;
+    private final EventLoop[] eventLoops;
+    private final Thread[] threads;
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+
+    private RedirectServer(Builder builder) throws IOException {
+        this.bindAddress = builder.bindAddress;
+        this.eventLoops = new EventLoop[builder.eventLoops];
+        this.threads = new Thread[builder.eventLoops];
+        for (int i = 0; i < eventLoops.length; i++) {
+            BufferPool pool = new BufferPool(builder.bufferSize, 1024);
+            eventLoops[i] = new EventLoop(new RequestHandler(builder.urlShortener, builder.permanentRedirects, pool), pool);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public synchronized RedirectServer start() throws IOException {
+        if (serverChannel != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(bindAddress, 1024);
+        for (int i = 0; i < eventLoops.length; i++) {
+            threads[i] = new Thread(eventLoops[i], "redirect-server-" + i);
+            threads[i].start();
+        }
+        acceptor = new Thread(this::accept, "redirect-server-acceptor");
+        acceptor.start();
+        return this;
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void accept() {
+        int next = 0;
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // typically out of file descriptors; give connections a moment to close
+                backOff();
+                continue;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                EventLoop.closeQuietly(channel);
+                continue;
+            }
+            eventLoops[next].register(channel);
+            next = next + 1 == eventLoops.length ? 0 : next + 1;
+        }
+    }
+
+    private static void backOff() {
+        try {
+            Thread.sleep(ACCEPT_BACKOFF_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (serverChannel == null) {
+            return;
+        }
+        serverChannel.close();
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.shutdown();
+        }
+        try {
+            acceptor.join();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static final class Builder {
+        private UrlShortener urlShortener;
+        private InetSocketAddress bindAddress = new InetSocketAddress(8080);
+        private int eventLoops = Runtime.getRuntime().availableProcessors();
+        private int bufferSize = 8192;
+        private boolean permanentRedirects;
+
+        private Builder() {
+        }
+
+        public Builder urlShortener(UrlShortener urlShortener) {
+            this.urlShortener = urlShortener;
+            return this;
+        }
+
+        public Builder bindAddress(InetSocketAddress bindAddress) {
+            this.bindAddress = bindAddress;
+            return this;
+        }
+
+        public Builder port(int port) {
+            return bindAddress(new InetSocketAddress(port));
+        }
+
+        public Builder eventLoops(int eventLoops) {
+            if (eventLoops < 1) {
+                throw new IllegalArgumentException("Event loop count must be positive");
+            }
+            this.eventLoops = eventLoops;
+            return this;
+        }
+
+        /**
+         * Size of the pooled per-connection buffers, which bounds a request's headers and body.
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < 512) {
+                throw new IllegalArgumentException("Buffer size must be at least 512 bytes");
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Answers redirects with 301 instead of 302. Browsers cache 301s, so repeat visits
+         * no longer reach the server.
+         */
+        public Builder permanentRedirects(boolean permanentRedirects) {
+            this.permanentRedirects = permanentRedirects;
+            return this;
+        }
+
+        public RedirectServer build() throws IOException {
+            if (urlShortener == null) {
+                throw new IllegalArgumentException("URL shortener is required");
+            }
+            return new RedirectServer(this);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        RedirectServer server = RedirectServer.builder()
+                .urlShortener(new UrlShortener())
+                .port(port)
+                .build()
+                .start();
+        System.out.println("Redirect server listening on port " + server.getPort());
+    }
+}
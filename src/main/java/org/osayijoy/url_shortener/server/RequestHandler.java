@@ -0,0 +1,312 @@
+package org.osayijoy.url_shortener.server;
+
+import org.osayijoy.url_shortener.code.AsciiSequence;
+import org.osayijoy.url_shortener.service.UrlShortener;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal HTTP/1.1 request parser and responder, one per event loop.
+ * <p>
+ * Requests are parsed in place in the connection's input buffer. A redirect is answered
+ * by copying a pre-encoded status line and {@code Location} header, kept in a small
+ * direct-mapped cache keyed by long URL, followed by a static tail, so the redirect path
+ * allocates nothing once the link is warm.
+ */
+final class RequestHandler {
+    private static final int CACHE_SLOTS = 4096;
+    private static final byte[] EMPTY = new byte[0];
+    private static final byte[] KEEP_ALIVE = ascii("\r\n");
+    private static final byte[] CLOSE = ascii("Connection: close\r\n\r\n");
+    private static final byte[] NOT_FOUND = ascii("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\n");
+    private static final byte[] BAD_REQUEST = ascii("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\n");
+    private static final byte[] METHOD_NOT_ALLOWED = ascii("HTTP/1.1 405 Method Not Allowed\r\nContent-Length: 0\r\n");
+    private static final byte[] TOO_LARGE = ascii("HTTP/1.1 413 Payload Too Large\r\nContent-Length: 0\r\n");
+    private static final byte[] UNAVAILABLE = ascii("HTTP/1.1 503 Service Unavailable\r\nContent-Length: 0\r\n");
+
+    private final UrlShortener urlShortener;
+    private final byte[] redirectStatus;
+    private final BufferPool pool;
+    private final AsciiSequence view = new AsciiSequence();
+    private final String[] cachedUrls = new String[CACHE_SLOTS];
+    private final byte[][] cachedHeads = new byte[CACHE_SLOTS][];
+    private byte[] body = EMPTY;
+
+    RequestHandler(UrlShortener urlShortener, boolean permanentRedirects, BufferPool pool) {
+        this.urlShortener = urlShortener;
+        this.redirectStatus = ascii(permanentRedirects ? "HTTP/1.1 301 Moved Permanently\r\n" : "HTTP/1.1 302 Found\r\n");
+        this.pool = pool;
+    }
+
+    /**
+     * Handles the first complete request in the connection's input buffer.
+     *
+     * @return {@code false} if there is no complete request yet, or its response has to
+     * wait for pending output to drain
+     */
+    boolean handle(Connection connection) {
+        if (connection.deferredHead != null) {
+            return respond(connection, connection.deferredHead, connection.deferredTail, connection.deferredBody,
+                    connection.deferredRequestEnd);
+        }
+        ByteBuffer in = connection.in;
+        int limit = in.position();
+        int headerEnd = indexOfHeaderEnd(in, limit);
+        if (headerEnd < 0) {
+            return limit == in.capacity() && reject(connection, TOO_LARGE, limit);
+        }
+
+        int lineEnd = indexOf(in, '\r', 0, headerEnd);
+        int methodEnd = indexOf(in, ' ', 0, lineEnd);
+        int targetEnd = methodEnd < 0 ? -1 : indexOf(in, ' ', methodEnd + 1, lineEnd);
+        if (methodEnd <= 0 || targetEnd < 0 || in.get(methodEnd + 1) != '/') {
+            return reject(connection, BAD_REQUEST, headerEnd);
+        }
+        boolean keepAlive = !regionMatches(in, targetEnd + 1, lineEnd, "HTTP/1.0");
+        long contentLength = 0;
+        for (int line = lineEnd + 2; line < headerEnd - 2; ) {
+            int end = indexOf(in, '\r', line, headerEnd);
+            if (startsWithIgnoreCase(in, line, end, "content-length:")) {
+                contentLength = parseLength(in, line + "content-length:".length(), end);
+            } else if (startsWithIgnoreCase(in, line, end, "connection:")) {
+                int value = skipSpaces(in, line + "connection:".length(), end);
+                if (regionMatchesIgnoreCase(in, value, end, "close")) {
+                    keepAlive = false;
+                } else if (regionMatchesIgnoreCase(in, value, end, "keep-alive")) {
+                    keepAlive = true;
+                }
+            }
+            line = end + 2;
+        }
+        if (contentLength < 0) {
+            return reject(connection, BAD_REQUEST, headerEnd);
+        }
+        if (headerEnd + contentLength > in.capacity()) {
+            return reject(connection, TOO_LARGE, limit);
+        }
+        int requestEnd = headerEnd + (int) contentLength;
+        if (requestEnd > limit) {
+            return false;
+        }
+
+        byte[] head;
+        int targetStart = methodEnd + 1;
+        if (regionMatches(in, 0, methodEnd, "GET") || regionMatches(in, 0, methodEnd, "HEAD")) {
+            head = redirect(in, targetStart + 1, pathEnd(in, targetStart, targetEnd));
+        } else if (regionMatches(in, 0, methodEnd, "POST")
+                && regionMatches(in, targetStart, pathEnd(in, targetStart, targetEnd), "/shorten")) {
+            head = shorten(in, headerEnd, requestEnd);
+        } else {
+            head = METHOD_NOT_ALLOWED;
+        }
+
+        byte[] content = body;
+        body = EMPTY;
+        return respond(connection, head, keepAlive ? KEEP_ALIVE : CLOSE, content, requestEnd);
+    }
+
+    /**
+     * Queues a response and consumes the request it answers, or defers both on the
+     * connection until the pending output has drained.
+     */
+    private boolean respond(Connection connection, byte[] head, byte[] tail, byte[] content, int requestEnd) {
+        if (!connection.reserve(head.length + tail.length + content.length, pool)) {
+            connection.deferredHead = head;
+            connection.deferredTail = tail;
+            connection.deferredBody = content;
+            connection.deferredRequestEnd = requestEnd;
+            return false;
+        }
+        connection.deferredHead = null;
+        connection.deferredTail = null;
+        connection.deferredBody = null;
+        connection.put(head, tail, content);
+        connection.consume(requestEnd);
+        boolean keepAlive = tail == KEEP_ALIVE;
+        connection.closeAfterWrite = !keepAlive;
+        return keepAlive;
+    }
+
+    private byte[] redirect(ByteBuffer in, int codeStart, int codeEnd) {
+        if (codeStart >= codeEnd) {
+            return NOT_FOUND;
+        }
+        String longUrl;
+        try {
+            longUrl = urlShortener.resolve(view.wrap(in, codeStart, codeEnd - codeStart), 0, codeEnd - codeStart);
+        } catch (RuntimeException e) {
+            // the store failed, e.g. an unreachable replica or an I/O error
+            return UNAVAILABLE;
+        } finally {
+            view.clear();
+        }
+        if (longUrl == null) {
+            return NOT_FOUND;
+        }
+        int slot = longUrl.hashCode() & (CACHE_SLOTS - 1);
+        if (!longUrl.equals(cachedUrls[slot])) {
+            cachedHeads[slot] = concat(redirectStatus, ascii("Location: "), headerValue(longUrl), ascii("\r\nContent-Length: 0\r\n"));
+            cachedUrls[slot] = longUrl;
+        }
+        return cachedHeads[slot];
+    }
+
+    private byte[] shorten(ByteBuffer in, int bodyStart, int bodyEnd) {
+        byte[] longUrl = new byte[bodyEnd - bodyStart];
+        in.get(bodyStart, longUrl);
+        String shortUrl;
+        try {
+            shortUrl = urlShortener.shortenUrl(new String(longUrl, StandardCharsets.UTF_8).trim());
+        } catch (IllegalArgumentException e) {
+            return BAD_REQUEST;
+        } catch (RuntimeException e) {
+            return UNAVAILABLE;
+        }
+        body = headerValue(shortUrl);
+        return concat(ascii("HTTP/1.1 201 Created\r\nContent-Type: text/plain\r\nLocation: "), body,
+                ascii("\r\nContent-Length: " + body.length + "\r\n"));
+    }
+
+    private boolean reject(Connection connection, byte[] head, int consumed) {
+        if (!connection.reserve(head.length + CLOSE.length, pool)) {
+            return false;
+        }
+        connection.put(head, CLOSE, EMPTY);
+        connection.consume(consumed);
+        connection.closeAfterWrite = true;
+        return false;
+    }
+
+    /**
+     * UTF-8 bytes of a header value, with control characters percent-encoded so a stored
+     * URL can never inject a header.
+     */
+    private static byte[] headerValue(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int controls = 0;
+        for (byte b : bytes) {
+            if ((b & 0xFF) < 0x20 || b == 0x7F) {
+                controls++;
+            }
+        }
+        if (controls == 0) {
+            return bytes;
+        }
+        byte[] escaped = new byte[bytes.length + 2 * controls];
+        int position = 0;
+        for (byte b : bytes) {
+            if ((b & 0xFF) < 0x20 || b == 0x7F) {
+                escaped[position++] = '%';
+                escaped[position++] = (byte) Character.toUpperCase(Character.forDigit((b >> 4) & 0xF, 16));
+                escaped[position++] = (byte) Character.toUpperCase(Character.forDigit(b & 0xF, 16));
+            } else {
+                escaped[position++] = b;
+            }
+        }
+        return escaped;
+    }
+
+    private static int pathEnd(ByteBuffer in, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = in.get(i);
+            if (b == '?' || b == '#') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static int indexOfHeaderEnd(ByteBuffer in, int limit) {
+        for (int i = 3; i < limit; i++) {
+            if (in.get(i) == '\n' && in.get(i - 1) == '\r' && in.get(i - 2) == '\n' && in.get(i - 3) == '\r') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(ByteBuffer in, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (in.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(ByteBuffer in, int from, int to) {
+        while (from < to && (in.get(from) == ' ' || in.get(from) == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    private static long parseLength(ByteBuffer in, int from, int to) {
+        from = skipSpaces(in, from, to);
+        while (to > from && (in.get(to - 1) == ' ' || in.get(to - 1) == '\t')) {
+            to--;
+        }
+        if (from == to || to - from > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte b = in.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private static boolean regionMatches(ByteBuffer in, int from, int to, String value) {
+        if (to - from != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (in.get(from + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatchesIgnoreCase(ByteBuffer in, int from, int to, String value) {
+        while (to > from && (in.get(to - 1) == ' ' || in.get(to - 1) == '\t')) {
+            to--;
+        }
+        return to - from == value.length() && startsWithIgnoreCase(in, from, to, value);
+    }
+
+    private static boolean startsWithIgnoreCase(ByteBuffer in, int from, int to, String prefix) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if ((in.get(from + i) | 0x20) != (prefix.charAt(i) | 0x20)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int position = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
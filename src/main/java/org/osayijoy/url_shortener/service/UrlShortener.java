@@ -2,141 +2,513 @@ package org.osayijoy.url_shortener.service;
 
 
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
+import org.osayijoy.url_shortener.analytics.ClickRecorder;
+import org.osayijoy.url_shortener.code.AsciiSequence;
+import org.osayijoy.url_shortener.code.BlockShortCodeGenerator;
+import org.osayijoy.url_shortener.code.ShortCodeGenerator;
+import org.osayijoy.url_shortener.expiry.LinkExpiry;
+import org.osayijoy.url_shortener.store.ConcurrentUrlMappingStore;
+import org.osayijoy.url_shortener.store.UrlMappingStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+public class UrlShortener implements AutoCloseable {
+    private static final String BASE_URL = "http://base.url/";
+    private static final ThreadLocal<AsciiSequence> ASCII = ThreadLocal.withInitial(AsciiSequence::new);
 
+    private static final int BATCH_SIZE = 8192;
 
-public class UrlShortener {
-    private static final String BASE_URL = "http://base.url/";
-    private static final int URL_LENGTH = 8;
-    private static final AtomicLong counter = new AtomicLong(0);
-    private Lock lock = new ReentrantLock();
+    private final UrlMappingStore store;
+    private final ShortCodeGenerator codeGenerator;
+    private final boolean canonicalizeUrls;
+    private final ClickRecorder clickRecorder;
+    private final LongSupplier clock;
+    private final long expiryTickMillis;
+    private volatile LinkExpiry expiry;
+    private volatile boolean closed;
+
+    public UrlShortener() {
+        this(new ConcurrentUrlMappingStore());
+    }
+
+    public UrlShortener(UrlMappingStore store) {
+        this(store, new BlockShortCodeGenerator());
+    }
 
-    private final Map<String, String> urlMappingByShortUrl = new HashMap<>();
-    private final Map<String, String> urlMappingByLongUrl = new HashMap<>();
-    private final Map<String, String> urlMappingByKeyword = new ConcurrentHashMap<>();
+    public UrlShortener(UrlMappingStore store, ShortCodeGenerator codeGenerator) {
+        this(builder().store(store).codeGenerator(codeGenerator));
+    }
+
+    private UrlShortener(Builder builder) {
+        this.store = builder.store != null ? builder.store : new ConcurrentUrlMappingStore();
+        this.codeGenerator = builder.codeGenerator != null ? builder.codeGenerator : new BlockShortCodeGenerator();
+        this.canonicalizeUrls = builder.canonicalizeUrls;
+        this.clickRecorder = builder.clickRecorder;
+        this.clock = builder.clock;
+        this.expiryTickMillis = builder.expiryTickMillis;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
 
     public String shortenUrl(String longUrl) {
-        validateUrl(longUrl);
-        lock.lock();
-        try {
-        String existingShortUrl = urlMappingByLongUrl.get(longUrl);
+        return BASE_URL + shorten(normalize(longUrl));
+    }
+
+    private String shorten(String longUrl) {
+        String existingShortUrl = store.getCode(longUrl);
         if (existingShortUrl != null) {
-            return BASE_URL + existingShortUrl;
+            return existingShortUrl;
         }
 
+        // generated codes never repeat; this only loops if a custom keyword took the code
         String shortUrl;
         do {
-            shortUrl = generateShortUrl(longUrl);
-        } while (urlMappingByShortUrl.containsKey(shortUrl));
+            shortUrl = codeGenerator.nextCode(longUrl);
+        } while (!store.putIfAbsent(shortUrl, longUrl));
+
+        String winner = store.bindIfAbsent(longUrl, shortUrl);
+        if (winner != null) {
+            // another thread shortened the same URL first; give back our code and use theirs
+            store.remove(shortUrl);
+            return winner;
+        }
+        return shortUrl;
+    }
+
+    /**
+     * Shortens a batch of long URLs and returns the short URLs in input order.
+     * <p>
+     * Validation, lookups of already shortened URLs and code generation run in parallel on
+     * the fork-join pool. Duplicates within the batch are shortened once, and new mappings
+     * are committed with a single {@link UrlMappingStore#putAll} call. If any URL is
+     * invalid, nothing is committed.
+     */
+    public List<String> shortenAll(Collection<String> longUrls) {
+        return commit(prepare(longUrls.toArray(new String[0])));
+    }
 
-        urlMappingByShortUrl.put(shortUrl, longUrl);
-        urlMappingByLongUrl.put(longUrl, shortUrl);
+    /**
+     * Streaming variant of {@link #shortenAll(Collection)}. The input is consumed in
+     * batches of {@value #BATCH_SIZE}; the next batch is validated and assigned codes in
+     * the background while the current one is committed.
+     */
+    public Stream<String> shortenAll(Stream<String> longUrls) {
+        Iterator<String> source = longUrls.iterator();
+        Iterator<String> results = new Iterator<>() {
+            private Iterator<String> current = Collections.emptyIterator();
+            private CompletableFuture<PreparedBatch> next;
+            private boolean started;
+            private int consumed;
+
+            @Override
+            public boolean hasNext() {
+                if (!started) {
+                    started = true;
+                    next = prepareNext();
+                }
+                while (!current.hasNext() && next != null) {
+                    PreparedBatch batch = join(next);
+                    next = prepareNext();
+                    current = commit(batch).iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+
+            private CompletableFuture<PreparedBatch> prepareNext() {
+                if (!source.hasNext()) {
+                    return null;
+                }
+                List<String> chunk = new ArrayList<>(BATCH_SIZE);
+                while (source.hasNext() && chunk.size() < BATCH_SIZE) {
+                    chunk.add(source.next());
+                }
+                int offset = consumed;
+                consumed += chunk.size();
+                return CompletableFuture.supplyAsync(() -> prepare(chunk.toArray(new String[0]), offset));
+            }
+        };
+        return StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(longUrls::close);
+    }
 
-        return BASE_URL + shortUrl;
-        } finally {
-            lock.unlock();
+    private static PreparedBatch join(CompletableFuture<PreparedBatch> batch) {
+        try {
+            return batch.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
         }
     }
 
+    private PreparedBatch prepare(String[] longUrls) {
+        return prepare(longUrls, 0);
+    }
 
+    /**
+     * @param offset position of {@code longUrls[0]} in the caller's input, used in error messages
+     */
+    private PreparedBatch prepare(String[] longUrls, int offset) {
+        IntStream.range(0, longUrls.length).parallel().forEach(i -> {
+            try {
+                longUrls[i] = normalize(longUrls[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid URL at index " + (offset + i) + ": " + e.getMessage(), e);
+            }
+        });
+
+        int[] slots = new int[longUrls.length];
+        Map<String, Integer> firstSlot = new HashMap<>(longUrls.length * 4 / 3 + 1);
+        List<String> unique = new ArrayList<>(longUrls.length);
+        for (int i = 0; i < longUrls.length; i++) {
+            Integer slot = firstSlot.putIfAbsent(longUrls[i], unique.size());
+            if (slot == null) {
+                slots[i] = unique.size();
+                unique.add(longUrls[i]);
+            } else {
+                slots[i] = slot;
+            }
+        }
 
+        String[] uniqueUrls = unique.toArray(new String[0]);
+        String[] codes = new String[uniqueUrls.length];
+        boolean[] fresh = new boolean[uniqueUrls.length];
+        IntStream.range(0, uniqueUrls.length).parallel().forEach(i -> {
+            String existing = store.getCode(uniqueUrls[i]);
+            if (existing != null) {
+                codes[i] = existing;
+            } else {
+                codes[i] = codeGenerator.nextCode(uniqueUrls[i]);
+                fresh[i] = true;
+            }
+        });
+        return new PreparedBatch(slots, uniqueUrls, codes, fresh);
+    }
 
-//        public String shortenUrl(String longUrl) {
-//            validateUrl(longUrl);
-//
-//            String existingShortUrl = urlMappingByLongUrl.get(longUrl);
-//            if (existingShortUrl != null) {
-//                return BASE_URL + existingShortUrl;
-//            }
-//
-//            String shortUrl = urlMappingByShortUrl
-//                    .computeIfAbsent(longUrl, UrlShortener::generateShortUrl);
-//
-//            urlMappingByLongUrl.put(longUrl, shortUrl);
-//
-//            return BASE_URL + shortUrl;
-//        }
+    private List<String> commit(PreparedBatch batch) {
+        int freshCount = 0;
+        for (boolean isFresh : batch.fresh) {
+            if (isFresh) {
+                freshCount++;
+            }
+        }
+        int[] positions = new int[freshCount];
+        String[] freshCodes = new String[freshCount];
+        String[] freshUrls = new String[freshCount];
+        for (int i = 0, j = 0; i < batch.fresh.length; i++) {
+            if (batch.fresh[i]) {
+                positions[j] = i;
+                freshCodes[j] = batch.codes[i];
+                freshUrls[j++] = batch.longUrls[i];
+            }
+        }
 
+        String[] committed = store.putAll(freshCodes, freshUrls);
+        for (int j = 0; j < freshCount; j++) {
+            // a null result means a custom keyword took the code; fall back to the single path
+            batch.codes[positions[j]] = committed[j] != null ? committed[j] : shorten(freshUrls[j]);
+        }
 
-        public String shortenUrl(String longUrl, String keyword) {
+        String[] shortUrls = new String[batch.slots.length];
+        for (int i = 0; i < shortUrls.length; i++) {
+            shortUrls[i] = BASE_URL + batch.codes[batch.slots[i]];
+        }
+        return Arrays.asList(shortUrls);
+    }
 
-        validateUrl(longUrl);
-        lock.lock();
-        try {
+    public String shortenUrl(String longUrl, String keyword) {
+        longUrl = normalize(longUrl);
         if (keyword == null || keyword.isEmpty()) {
             throw new IllegalArgumentException("Keyword cannot be null or empty");
         }
 
-        String existingLongUrl = urlMappingByKeyword.get(keyword);
-        if (existingLongUrl != null) {
-            throw new IllegalArgumentException("Keyword is already in use");
-        }
+        claimKeyword(keyword, longUrl);
+        store.bind(longUrl, keyword);
+
+        return BASE_URL + keyword;
+    }
+
+    /**
+     * Shortens {@code longUrl} to a link that stops resolving after {@code ttl}. Expiring
+     * links always get a fresh code and are never handed out for the same URL again.
+     */
+    public String shortenUrlWithTtl(String longUrl, Duration ttl) {
+        longUrl = normalize(longUrl);
+        long deadline = deadline(ttl);
+        // fails once closed, before a mapping is stored that nothing would ever expire
+        LinkExpiry expiry = linkExpiry();
+
+        String code;
+        do {
+            code = codeGenerator.nextCode(longUrl);
+        } while (!store.putIfAbsent(code, longUrl));
+        expiry.expireAt(code, deadline);
 
-        String shortUrl = BASE_URL+keyword;
+        return BASE_URL + code;
+    }
 
-            String existingKeyword = urlMappingByLongUrl.get(longUrl);
-        if (existingKeyword != null && existingKeyword.equals(keyword)) {
-            return shortUrl;
+    /**
+     * Shortens {@code longUrl} to {@code keyword} for {@code ttl}; the keyword can be
+     * claimed again once the link has expired.
+     */
+    public String shortenUrlWithTtl(String longUrl, String keyword, Duration ttl) {
+        longUrl = normalize(longUrl);
+        if (keyword == null || keyword.isEmpty()) {
+            throw new IllegalArgumentException("Keyword cannot be null or empty");
         }
+        long deadline = deadline(ttl);
+        LinkExpiry expiry = linkExpiry();
 
-        urlMappingByKeyword.put(keyword, longUrl);
-        urlMappingByShortUrl.put(shortUrl, longUrl);
-        urlMappingByLongUrl.put(longUrl, keyword);
+        claimKeyword(keyword, longUrl);
+        expiry.expireAt(keyword, deadline);
 
-        return shortUrl;
+        return BASE_URL + keyword;
+    }
 
-        } finally {
-            lock.unlock();
-        }
+    /**
+     * Removes every expired link now instead of waiting for background reclamation.
+     *
+     * @return the number of links removed
+     */
+    public int reclaimExpiredLinks() {
+        LinkExpiry currentExpiry = expiry;
+        return currentExpiry == null ? 0 : currentExpiry.reclaim();
     }
 
-    private static String generateShortUrl(String longUrl) {
-        byte[] digest;
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(longUrl.getBytes(StandardCharsets.UTF_8));
-            md.update(String.valueOf(counter.getAndIncrement()).getBytes(StandardCharsets.UTF_8));
-            digest = md.digest();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error generating short URL", e);
+    /**
+     * Stops background reclamation of expired links. Expired links keep failing to
+     * resolve; the store itself is left open.
+     */
+    @Override
+    public void close() {
+        LinkExpiry currentExpiry;
+        synchronized (this) {
+            closed = true;
+            currentExpiry = expiry;
+        }
+        if (currentExpiry != null) {
+            currentExpiry.close();
         }
-
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, URL_LENGTH);
     }
 
+    private void claimKeyword(String keyword, String longUrl) {
+        if (store.putIfAbsent(keyword, longUrl)) {
+            return;
+        }
+        // the keyword may belong to a link that has expired but not been reclaimed yet
+        LinkExpiry currentExpiry = expiry;
+        if (currentExpiry == null || !currentExpiry.expireIfDue(keyword) || !store.putIfAbsent(keyword, longUrl)) {
+            throw new IllegalArgumentException("Keyword is already in use");
+        }
+    }
 
+    private long deadline(Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        long now = clock.getAsLong();
+        long millis = ttl.compareTo(Duration.ofMillis(Long.MAX_VALUE - now)) > 0 ? Long.MAX_VALUE - now : ttl.toMillis();
+        return now + millis;
+    }
 
-    private void validateUrl(String url) {
-        if (url == null || url.isEmpty()) {
-            throw new IllegalArgumentException("URL cannot be null or empty");
+    private LinkExpiry linkExpiry() {
+        if (closed) {
+            throw new IllegalStateException("UrlShortener is closed");
         }
-        try {
-            new URL(url);
-        } catch (MalformedURLException e) {
-            throw new IllegalArgumentException("Invalid URL format", e);
+        LinkExpiry currentExpiry = expiry;
+        if (currentExpiry == null) {
+            synchronized (this) {
+                currentExpiry = expiry;
+                if (currentExpiry == null) {
+                    if (closed) {
+                        throw new IllegalStateException("UrlShortener is closed");
+                    }
+                    currentExpiry = new LinkExpiry(store, expiryTickMillis, clock, true);
+                    expiry = currentExpiry;
+                }
+            }
         }
+        return currentExpiry;
+    }
+
+    /**
+     * Validates {@code longUrl} and returns the form it is stored under.
+     */
+    private String normalize(String longUrl) {
+        UrlValidator.validate(longUrl);
+        return canonicalizeUrls ? UrlValidator.canonicalize(longUrl) : longUrl;
     }
 
     public String getLongUrl(String shortUrl) {
-        String key = shortUrl.replace(BASE_URL, "");
-        String longUrl = urlMappingByShortUrl.get(key);
+        String longUrl = resolve(shortUrl);
         if (longUrl == null) {
             throw new IllegalArgumentException("Short URL not found");
         }
         return longUrl;
     }
 
+    /**
+     * Redirect lookup for a short URL or a bare code. The base URL prefix is checked in
+     * place and the code is looked up as a slice of {@code shortUrl}, so the hot path
+     * allocates nothing.
+     *
+     * @return the long URL, or {@code null} if the code is unknown
+     */
+    public String resolve(CharSequence shortUrl) {
+        return resolve(shortUrl, 0, shortUrl.length());
+    }
+
+    public String resolve(CharSequence shortUrl, int start, int end) {
+        int codeStart = startsWithBaseUrl(shortUrl, start, end) ? start + BASE_URL.length() : start;
+        if (codeStart == end) {
+            return null;
+        }
+        String longUrl = store.getLongUrl(shortUrl, codeStart, end);
+        if (longUrl == null) {
+            return null;
+        }
+        LinkExpiry currentExpiry = expiry;
+        if (currentExpiry != null && currentExpiry.isExpired(shortUrl, codeStart, end)) {
+            currentExpiry.expireIfDue(shortUrl.subSequence(codeStart, end).toString());
+            return null;
+        }
+        clickRecorder.recordClick(shortUrl, codeStart, end);
+        return longUrl;
+    }
+
+    /**
+     * Same as {@link #resolve(CharSequence)} for an ASCII short URL or code read straight
+     * from a request buffer.
+     */
+    public String resolve(byte[] shortUrl, int offset, int length) {
+        AsciiSequence sequence = ASCII.get();
+        try {
+            return resolve(sequence.wrap(shortUrl, offset, length), 0, length);
+        } finally {
+            sequence.clear();
+        }
+    }
+
+    private static boolean startsWithBaseUrl(CharSequence value, int start, int end) {
+        if (end - start < BASE_URL.length()) {
+            return false;
+        }
+        for (int i = 0; i < BASE_URL.length(); i++) {
+            if (value.charAt(start + i) != BASE_URL.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    public static final class Builder {
+        private UrlMappingStore store;
+        private ShortCodeGenerator codeGenerator;
+        private boolean canonicalizeUrls;
+        private ClickRecorder clickRecorder = ClickRecorder.NONE;
+        private LongSupplier clock = System::currentTimeMillis;
+        private long expiryTickMillis = 100;
+
+        private Builder() {
+        }
+
+        public Builder store(UrlMappingStore store) {
+            this.store = store;
+            return this;
+        }
+
+        public Builder codeGenerator(ShortCodeGenerator codeGenerator) {
+            this.codeGenerator = codeGenerator;
+            return this;
+        }
+
+        /**
+         * Stores http(s) URLs in canonical form (see {@link UrlValidator#canonicalize}), so
+         * spellings of the same URL share one code.
+         */
+        public Builder canonicalizeUrls(boolean canonicalizeUrls) {
+            this.canonicalizeUrls = canonicalizeUrls;
+            return this;
+        }
+
+        /**
+         * Called for every successful redirect lookup, e.g. a
+         * {@link org.osayijoy.url_shortener.analytics.ClickAnalytics}.
+         */
+        public Builder clickRecorder(ClickRecorder clickRecorder) {
+            this.clickRecorder = clickRecorder;
+            return this;
+        }
+
+        /**
+         * Wall clock in milliseconds used for link expiry.
+         */
+        public Builder clock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Granularity of background reclamation of expired links. Reads stop resolving an
+         * expired link at its exact deadline either way.
+         */
+        public Builder expiryTick(Duration expiryTick) {
+            if (expiryTick.toMillis() < 1) {
+                throw new IllegalArgumentException("Expiry tick must be at least one millisecond");
+            }
+            this.expiryTickMillis = expiryTick.toMillis();
+            return this;
+        }
+
+        public UrlShortener build() {
+            return new UrlShortener(this);
+        }
+    }
+
+    private static final class PreparedBatch {
+        private final int[] slots;
+        private final String[] longUrls;
+        private final String[] codes;
+        private final boolean[] fresh;
+
+        private PreparedBatch(int[] slots, String[] longUrls, String[] codes, boolean[] fresh) {
+            this.slots = slots;
+            this.longUrls = longUrls;
+            this.codes = codes;
+            this.fresh = fresh;
+        }
+    }
 
     public static void main(String[] args) {
         UrlShortener urlShortener = new UrlShortener();
@@ -0,0 +1,262 @@
+package org.osayijoy.url_shortener.service;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * Single-pass validation and canonicalization of long URLs.
+ * <p>
+ * {@code http} and {@code https} URLs are checked by hand without allocating: the scheme,
+ * an authority with an optional userinfo, a registered name or bracketed IPv6 host and an
+ * optional port up to 65535, followed by a path, query and fragment free of whitespace and
+ * control characters. Any other scheme falls back to {@link java.net.URL}.
+ */
+public final class UrlValidator {
+    private static final int SCHEME_END = 0;
+    private static final int HOST_START = 1;
+    private static final int HOST_END = 2;
+    private static final int PORT_START = 3;
+    private static final int PATH_START = 4;
+    private static final int INVALID = -1;
+    private static final int OTHER_SCHEME = -2;
+
+    private UrlValidator() {
+    }
+
+    public static void validate(String url) {
+        if (url == null || url.isEmpty()) {
+            throw new IllegalArgumentException("URL cannot be null or empty");
+        }
+        if (!isValid(url)) {
+            throw new IllegalArgumentException("Invalid URL format");
+        }
+    }
+
+    public static boolean isValid(CharSequence url) {
+        if (url == null || url.length() == 0) {
+            return false;
+        }
+        int result = scan(url, null);
+        if (result == OTHER_SCHEME) {
+            try {
+                new URL(url.toString());
+                return true;
+            } catch (MalformedURLException e) {
+                return false;
+            }
+        }
+        return result != INVALID;
+    }
+
+    /**
+     * Returns the canonical form of a valid {@code http}/{@code https} URL: lowercase scheme
+     * and host, no default port and {@code /} for an empty path. Other URLs, and URLs that
+     * are already canonical, are returned as the same instance.
+     */
+    public static String canonicalize(String url) {
+        int[] positions = new int[5];
+        if (scan(url, positions) < 0) {
+            return url;
+        }
+        int schemeEnd = positions[SCHEME_END];
+        int hostStart = positions[HOST_START];
+        int hostEnd = positions[HOST_END];
+        int portStart = positions[PORT_START];
+        int pathStart = positions[PATH_START];
+
+        boolean dropPort = portStart >= 0 && isDefaultPort(url, schemeEnd, portStart + 1, pathStart);
+        boolean emptyPath = pathStart == url.length() || url.charAt(pathStart) != '/';
+        if (!dropPort && !emptyPath && !hasUpperCase(url, 0, schemeEnd) && !hasUpperCase(url, hostStart, hostEnd)) {
+            return url;
+        }
+
+        StringBuilder canonical = new StringBuilder(url.length() + 1);
+        appendLowerCase(canonical, url, 0, schemeEnd);
+        canonical.append(url, schemeEnd, hostStart);
+        appendLowerCase(canonical, url, hostStart, hostEnd);
+        if (portStart >= 0 && !dropPort) {
+            canonical.append(url, portStart, pathStart);
+        }
+        if (emptyPath) {
+            canonical.append('/');
+        }
+        canonical.append(url, pathStart, url.length());
+        return canonical.toString();
+    }
+
+    /**
+     * Scans {@code url} once, recording component boundaries in {@code positions} when it
+     * is not {@code null}.
+     *
+     * @return the length of the URL if it is a valid http(s) URL, {@link #OTHER_SCHEME} if
+     * it has a syntactically valid scheme other than http(s), or {@link #INVALID}
+     */
+    private static int scan(CharSequence url, int[] positions) {
+        int length = url.length();
+        int i = 0;
+        while (i < length && url.charAt(i) != ':') {
+            char c = url.charAt(i);
+            boolean valid = isAlpha(c) || (i > 0 && (isDigit(c) || c == '+' || c == '-' || c == '.'));
+            if (!valid) {
+                return INVALID;
+            }
+            i++;
+        }
+        if (i == 0 || i == length) {
+            return INVALID;
+        }
+        int schemeEnd = i;
+        if (!isHttpScheme(url, schemeEnd)) {
+            return OTHER_SCHEME;
+        }
+        if (schemeEnd + 3 > length || url.charAt(schemeEnd + 1) != '/' || url.charAt(schemeEnd + 2) != '/') {
+            return INVALID;
+        }
+
+        int authorityStart = schemeEnd + 3;
+        int authorityEnd = authorityStart;
+        int hostStart = authorityStart;
+        while (authorityEnd < length) {
+            char c = url.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '@') {
+                hostStart = authorityEnd + 1;
+            } else if (!isUrlChar(c)) {
+                return INVALID;
+            }
+            authorityEnd++;
+        }
+
+        int hostEnd;
+        if (hostStart < authorityEnd && url.charAt(hostStart) == '[') {
+            hostEnd = hostStart + 1;
+            while (hostEnd < authorityEnd && url.charAt(hostEnd) != ']') {
+                char c = url.charAt(hostEnd);
+                if (!isHexDigit(c) && c != ':' && c != '.') {
+                    return INVALID;
+                }
+                hostEnd++;
+            }
+            if (hostEnd == authorityEnd || hostEnd == hostStart + 1) {
+                return INVALID;
+            }
+            hostEnd++;
+        } else {
+            hostEnd = hostStart;
+            while (hostEnd < authorityEnd && url.charAt(hostEnd) != ':') {
+                if (!isHostChar(url.charAt(hostEnd))) {
+                    return INVALID;
+                }
+                hostEnd++;
+            }
+            if (hostEnd == hostStart) {
+                return INVALID;
+            }
+        }
+
+        int portStart = -1;
+        if (hostEnd < authorityEnd) {
+            if (url.charAt(hostEnd) != ':') {
+                return INVALID;
+            }
+            portStart = hostEnd;
+            int port = 0;
+            for (int p = hostEnd + 1; p < authorityEnd; p++) {
+                char c = url.charAt(p);
+                if (!isDigit(c)) {
+                    return INVALID;
+                }
+                port = port * 10 + (c - '0');
+                if (port > 65535) {
+                    return INVALID;
+                }
+            }
+        }
+
+        for (int p = authorityEnd; p < length; p++) {
+            if (!isUrlChar(url.charAt(p))) {
+                return INVALID;
+            }
+        }
+
+        if (positions != null) {
+            positions[SCHEME_END] = schemeEnd;
+            positions[HOST_START] = hostStart;
+            positions[HOST_END] = hostEnd;
+            positions[PORT_START] = portStart;
+            positions[PATH_START] = authorityEnd;
+        }
+        return length;
+    }
+
+    private static boolean isHttpScheme(CharSequence url, int schemeEnd) {
+        if (schemeEnd != 4 && schemeEnd != 5) {
+            return false;
+        }
+        if ((url.charAt(0) | 0x20) != 'h' || (url.charAt(1) | 0x20) != 't'
+                || (url.charAt(2) | 0x20) != 't' || (url.charAt(3) | 0x20) != 'p') {
+            return false;
+        }
+        return schemeEnd == 4 || (url.charAt(4) | 0x20) == 's';
+    }
+
+    private static boolean isDefaultPort(String url, int schemeEnd, int from, int to) {
+        String defaultPort = schemeEnd == 4 ? "80" : "443";
+        if (from == to) {
+            return true;
+        }
+        while (from < to - 1 && url.charAt(from) == '0') {
+            from++;
+        }
+        return url.regionMatches(from, defaultPort, 0, defaultPort.length()) && to - from == defaultPort.length();
+    }
+
+    private static boolean hasUpperCase(String url, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = url.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendLowerCase(StringBuilder target, String url, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = url.charAt(i);
+            target.append(c >= 'A' && c <= 'Z' ? (char) (c | 0x20) : c);
+        }
+    }
+
+    private static boolean isUrlChar(char c) {
+        return c > ' ' && c != 0x7F;
+    }
+
+    private static boolean isHostChar(char c) {
+        if (isAlpha(c) || isDigit(c) || c >= 0x80) {
+            return true;
+        }
+        switch (c) {
+            case '-': case '.': case '_': case '~': case '%':
+            case '!': case '$': case '&': case '\'': case '(': case ')':
+            case '*': case '+': case ',': case ';': case '=':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
@@ -0,0 +1,242 @@
+package org.osayijoy.url_shortener.store;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Counting Bloom filter over the codes (generated and custom keywords) of another store.
+ * Lookups and removals of codes the filter has never seen, such as bots scanning random
+ * codes, are answered without touching the delegate.
+ * <p>
+ * The filter is primed from the delegate on construction. When it holds more codes than
+ * it was sized for, a bigger one is built from the delegate in the background. Writes
+ * made meanwhile go to both filters, and the bigger one replaces the old when it is
+ * complete. Codes removed during a rebuild may linger in the new filter as false
+ * positives. {@link #getFalsePositiveRate()} reports the rate actually observed.
+ */
+public class BloomFilteredUrlMappingStore implements UrlMappingStore {
+    private final UrlMappingStore delegate;
+    private final double targetFalsePositiveRate;
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private volatile CountingBloomFilter filter;
+    private volatile CountingBloomFilter next;
+
+    public BloomFilteredUrlMappingStore(UrlMappingStore delegate) {
+        this(delegate, 1 << 20, 0.01);
+    }
+
+    /**
+     * @param expectedCodes     number of codes the filter is initially sized for
+     * @param falsePositiveRate target false positive rate at that size
+     */
+    public BloomFilteredUrlMappingStore(UrlMappingStore delegate, long expectedCodes, double falsePositiveRate) {
+        this.delegate = delegate;
+        this.targetFalsePositiveRate = falsePositiveRate;
+        CountingBloomFilter initial = new CountingBloomFilter(Math.max(expectedCodes, 2L * delegate.size()), falsePositiveRate);
+        delegate.forEachCode(code -> initial.add(code, 0, code.length()));
+        this.filter = initial;
+    }
+
+    @Override
+    public String getLongUrl(String code) {
+        return getLongUrl(code, 0, code.length());
+    }
+
+    @Override
+    public String getLongUrl(CharSequence code, int start, int end) {
+        if (!filter.mightContain(code, start, end)) {
+            definiteMisses.increment();
+            return null;
+        }
+        String longUrl = delegate.getLongUrl(code, start, end);
+        if (longUrl == null) {
+            falsePositives.increment();
+        }
+        return longUrl;
+    }
+
+    @Override
+    public String getCode(String longUrl) {
+        return delegate.getCode(longUrl);
+    }
+
+    @Override
+    public boolean putIfAbsent(String code, String longUrl) {
+        boolean added;
+        Lock lock = rebuildLock.readLock();
+        lock.lock();
+        try {
+            CountingBloomFilter current = filter;
+            CountingBloomFilter pending = next;
+            add(current, pending, code);
+            added = delegate.putIfAbsent(code, longUrl);
+            if (!added) {
+                undo(current, pending, code);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (added) {
+            growIfFull();
+        }
+        return added;
+    }
+
+    @Override
+    public String bindIfAbsent(String longUrl, String code) {
+        return delegate.bindIfAbsent(longUrl, code);
+    }
+
+    @Override
+    public void bind(String longUrl, String code) {
+        delegate.bind(longUrl, code);
+    }
+
+    @Override
+    public String remove(String code) {
+        if (!filter.mightContain(code, 0, code.length())) {
+            return null;
+        }
+        Lock lock = rebuildLock.readLock();
+        lock.lock();
+        try {
+            String longUrl = delegate.remove(code);
+            if (longUrl != null) {
+                // the filter being rebuilt may or may not have seen the code, so it keeps it
+                filter.remove(code, 0, code.length());
+            }
+            return longUrl;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String[] putAll(String[] codes, String[] longUrls) {
+        String[] results;
+        Lock lock = rebuildLock.readLock();
+        lock.lock();
+        try {
+            CountingBloomFilter current = filter;
+            CountingBloomFilter pending = next;
+            for (String code : codes) {
+                add(current, pending, code);
+            }
+            results = delegate.putAll(codes, longUrls);
+            for (int i = 0; i < codes.length; i++) {
+                if (!codes[i].equals(results[i])) {
+                    undo(current, pending, codes[i]);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        growIfFull();
+        return results;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEachCode(Consumer<String> action) {
+        delegate.forEachCode(action);
+    }
+
+    /**
+     * Lookups answered by the filter alone.
+     */
+    public long getDefiniteMisses() {
+        return definiteMisses.sum();
+    }
+
+    /**
+     * Lookups the filter let through for codes the delegate did not have.
+     */
+    public long getFalsePositives() {
+        return falsePositives.sum();
+    }
+
+    /**
+     * Observed share of lookups of missing codes that the filter failed to answer.
+     */
+    public double getFalsePositiveRate() {
+        long positives = falsePositives.sum();
+        long total = positives + definiteMisses.sum();
+        return total == 0 ? 0 : (double) positives / total;
+    }
+
+    /**
+     * False positive rate the filter should have at its current load.
+     */
+    public double getExpectedFalsePositiveRate() {
+        return filter.expectedFalsePositiveRate();
+    }
+
+    private static void add(CountingBloomFilter current, CountingBloomFilter pending, String code) {
+        current.add(code, 0, code.length());
+        if (pending != null) {
+            pending.add(code, 0, code.length());
+        }
+    }
+
+    private static void undo(CountingBloomFilter current, CountingBloomFilter pending, String code) {
+        current.remove(code, 0, code.length());
+        if (pending != null) {
+            pending.remove(code, 0, code.length());
+        }
+    }
+
+    private void growIfFull() {
+        CountingBloomFilter current = filter;
+        if (current.count() > current.capacity() && rebuilding.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    rebuild(current.capacity() * 2);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds a filter for {@code capacity} codes from the delegate, unless the current one
+     * is already at least that big. Publishing it under the write lock ensures every write
+     * either finished before the iteration starts or also lands in the new filter.
+     */
+    synchronized void rebuild(long capacity) {
+        if (filter.capacity() >= capacity) {
+            return;
+        }
+        CountingBloomFilter bigger = new CountingBloomFilter(capacity, targetFalsePositiveRate);
+        Lock lock = rebuildLock.writeLock();
+        lock.lock();
+        try {
+            next = bigger;
+        } finally {
+            lock.unlock();
+        }
+        delegate.forEachCode(code -> bigger.add(code, 0, code.length()));
+        lock.lock();
+        try {
+            filter = bigger;
+            next = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long capacity() {
+        return filter.capacity();
+    }
+}
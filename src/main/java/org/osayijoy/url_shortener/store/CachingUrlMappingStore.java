@@ -0,0 +1,110 @@
+package org.osayijoy.url_shortener.store;
+
+import org.osayijoy.url_shortener.cache.HotLinkCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Read-through {@link HotLinkCache} in front of another store. Redirect lookups are
+ * answered from the cache when possible; everything else goes straight to the delegate.
+ *
+ * <p>A miss reads the delegate and then fills the cache, so a {@link #remove} can land in
+ * between and be undone by the fill. Every removal bumps a generation counter first; a fill
+ * that sees the generation move while it was in flight drops its own entry again.
+ */
+public class CachingUrlMappingStore implements UrlMappingStore {
+    private final UrlMappingStore delegate;
+    private final HotLinkCache cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachingUrlMappingStore(UrlMappingStore delegate, HotLinkCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public String getLongUrl(String code) {
+        String longUrl = cache.get(code);
+        if (longUrl != null) {
+            return longUrl;
+        }
+        long observed = generation.get();
+        longUrl = delegate.getLongUrl(code);
+        if (longUrl != null) {
+            fill(code, longUrl, observed);
+        }
+        return longUrl;
+    }
+
+    /**
+     * Cache hits allocate nothing; a miss copies the code once to populate the cache.
+     */
+    @Override
+    public String getLongUrl(CharSequence code, int start, int end) {
+        String longUrl = cache.get(code, start, end);
+        if (longUrl != null) {
+            return longUrl;
+        }
+        long observed = generation.get();
+        longUrl = delegate.getLongUrl(code, start, end);
+        if (longUrl != null) {
+            fill(code.subSequence(start, end).toString(), longUrl, observed);
+        }
+        return longUrl;
+    }
+
+    private void fill(String code, String longUrl, long observed) {
+        cache.put(code, longUrl);
+        if (generation.get() != observed) {
+            cache.invalidate(code);
+        }
+    }
+
+    @Override
+    public String getCode(String longUrl) {
+        return delegate.getCode(longUrl);
+    }
+
+    @Override
+    public boolean putIfAbsent(String code, String longUrl) {
+        return delegate.putIfAbsent(code, longUrl);
+    }
+
+    @Override
+    public String bindIfAbsent(String longUrl, String code) {
+        return delegate.bindIfAbsent(longUrl, code);
+    }
+
+    @Override
+    public void bind(String longUrl, String code) {
+        delegate.bind(longUrl, code);
+    }
+
+    @Override
+    public String remove(String code) {
+        generation.incrementAndGet();
+        String longUrl = delegate.remove(code);
+        cache.invalidate(code);
+        return longUrl;
+    }
+
+    @Override
+    public String[] putAll(String[] codes, String[] longUrls) {
+        return delegate.putAll(codes, longUrls);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEachCode(Consumer<String> action) {
+        delegate.forEachCode(action);
+    }
+
+    public HotLinkCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,74 @@
+package org.osayijoy.url_shortener.store;
+
+import org.osayijoy.url_shortener.code.CodeProbe;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Default in-memory store. Both indexes are {@link ConcurrentHashMap}s, so inserts are
+ * CAS-based per bin (or lock a single bin on collision) and reads never block.
+ */
+public class ConcurrentUrlMappingStore implements UrlMappingStore {
+    private final ConcurrentMap<String, String> urlMappingByShortUrl;
+    private final ConcurrentMap<String, String> urlMappingByLongUrl;
+
+    public ConcurrentUrlMappingStore() {
+        this(16);
+    }
+
+    public ConcurrentUrlMappingStore(int expectedSize) {
+        this.urlMappingByShortUrl = new ConcurrentHashMap<>(expectedSize);
+        this.urlMappingByLongUrl = new ConcurrentHashMap<>(expectedSize);
+    }
+
+    @Override
+    public String getLongUrl(String code) {
+        return urlMappingByShortUrl.get(code);
+    }
+
+    @Override
+    public String getLongUrl(CharSequence code, int start, int end) {
+        return CodeProbe.get(urlMappingByShortUrl, code, start, end);
+    }
+
+    @Override
+    public String getCode(String longUrl) {
+        return urlMappingByLongUrl.get(longUrl);
+    }
+
+    @Override
+    public boolean putIfAbsent(String code, String longUrl) {
+        return urlMappingByShortUrl.putIfAbsent(code, longUrl) == null;
+    }
+
+    @Override
+    public String bindIfAbsent(String longUrl, String code) {
+        return urlMappingByLongUrl.putIfAbsent(longUrl, code);
+    }
+
+    @Override
+    public void bind(String longUrl, String code) {
+        urlMappingByLongUrl.put(longUrl, code);
+    }
+
+    @Override
+    public String remove(String code) {
+        String longUrl = urlMappingByShortUrl.remove(code);
+        if (longUrl != null) {
+            urlMappingByLongUrl.remove(longUrl, code);
+        }
+        return longUrl;
+    }
+
+    @Override
+    public int size() {
+        return urlMappingByShortUrl.size();
+    }
+
+    @Override
+    public void forEachCode(Consumer<String> action) {
+        urlMappingByShortUrl.keySet().forEach(action);
+    }
+}
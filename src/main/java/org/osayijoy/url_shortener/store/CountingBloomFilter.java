@@ -0,0 +1,119 @@
+package org.osayijoy.url_shortener.store;
+
+import org.osayijoy.url_shortener.code.StringHash;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counting Bloom filter of 4-bit counters, sixteen to a {@code long}, updated with CAS so
+ * adds, removes and lookups need no lock. A counter that reaches 15 saturates and is never
+ * decremented again, which can only add false positives, never false negatives.
+ */
+final class CountingBloomFilter {
+    private static final int COUNTER_BITS = 4;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    private final AtomicLongArray words;
+    private final long counterMask;
+    private final int hashes;
+    private final long capacity;
+    private final LongAdder count = new LongAdder();
+
+    CountingBloomFilter(long capacity, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        capacity = Math.max(capacity, 64);
+        double optimal = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long counters = Long.highestOneBit((long) Math.ceil(optimal) - 1) << 1;
+        if (counters > (long) Integer.MAX_VALUE * 16) {
+            throw new IllegalArgumentException("Bloom filter too large");
+        }
+        this.words = new AtomicLongArray((int) (counters / 16));
+        this.counterMask = counters - 1;
+        this.hashes = Math.max(1, (int) Math.round((double) counters / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    void add(CharSequence key, int start, int end) {
+        long hash = StringHash.hash(key, start, end);
+        for (int i = 0; i < hashes; i++) {
+            increment(index(hash, i));
+        }
+        count.increment();
+    }
+
+    void remove(CharSequence key, int start, int end) {
+        long hash = StringHash.hash(key, start, end);
+        for (int i = 0; i < hashes; i++) {
+            decrement(index(hash, i));
+        }
+        count.decrement();
+    }
+
+    boolean mightContain(CharSequence key, int start, int end) {
+        long hash = StringHash.hash(key, start, end);
+        for (int i = 0; i < hashes; i++) {
+            long index = index(hash, i);
+            if (((words.get((int) (index >>> 4)) >>> shift(index)) & COUNTER_MASK) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of keys added and not removed.
+     */
+    long count() {
+        return count.sum();
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    /**
+     * False positive rate predicted from the current number of keys.
+     */
+    double expectedFalsePositiveRate() {
+        double counters = counterMask + 1.0;
+        return Math.pow(1 - Math.exp(-hashes * Math.max(0, count()) / counters), hashes);
+    }
+
+    private void increment(long index) {
+        int word = (int) (index >>> 4);
+        int shift = shift(index);
+        while (true) {
+            long current = words.get(word);
+            if (((current >>> shift) & COUNTER_MASK) == COUNTER_MASK
+                    || words.compareAndSet(word, current, current + (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(long index) {
+        int word = (int) (index >>> 4);
+        int shift = shift(index);
+        while (true) {
+            long current = words.get(word);
+            long counter = (current >>> shift) & COUNTER_MASK;
+            if (counter == 0 || counter == COUNTER_MASK
+                    || words.compareAndSet(word, current, current - (1L << shift))) {
+                return;
+            }
+        }
+    }
+
+    private long index(long hash, int i) {
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1;
+        return (h1 + i * h2) & counterMask;
+    }
+
+    private static int shift(long index) {
+        return (int) (index & 15) * COUNTER_BITS;
+    }
+}
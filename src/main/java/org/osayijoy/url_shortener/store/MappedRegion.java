@@ -0,0 +1,85 @@
+package org.osayijoy.url_shortener.store;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file region mapped as a sequence of 1 GiB buffers, so snapshots are not limited to
+ * the 2 GiB a single {@link MappedByteBuffer} can address.
+ */
+final class MappedRegion {
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    private MappedRegion(MappedByteBuffer[] chunks, long size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    static MappedRegion map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        int count = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(mode, start, Math.min(CHUNK_SIZE, size - start));
+        }
+        return new MappedRegion(chunks, size);
+    }
+
+    long size() {
+        return size;
+    }
+
+    byte get(long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)].get((int) (position & CHUNK_MASK));
+    }
+
+    int getInt(long position) {
+        int offset = (int) (position & CHUNK_MASK);
+        if (offset <= CHUNK_SIZE - Integer.BYTES) {
+            return chunks[(int) (position >>> CHUNK_SHIFT)].getInt(offset);
+        }
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            value = (value << 8) | (get(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Reads a long at an 8-byte aligned position, which never straddles two chunks.
+     */
+    long getLong(long position) {
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getLong((int) (position & CHUNK_MASK));
+    }
+
+    void putLong(long position, long value) {
+        chunks[(int) (position >>> CHUNK_SHIFT)].putLong((int) (position & CHUNK_MASK), value);
+    }
+
+    void putInt(long position, int value) {
+        chunks[(int) (position >>> CHUNK_SHIFT)].putInt((int) (position & CHUNK_MASK), value);
+    }
+
+    void get(long position, byte[] dst, int offset, int length) {
+        while (length > 0) {
+            int chunkOffset = (int) (position & CHUNK_MASK);
+            int n = (int) Math.min(length, CHUNK_SIZE - chunkOffset);
+            chunks[(int) (position >>> CHUNK_SHIFT)].get(chunkOffset, dst, offset, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+}
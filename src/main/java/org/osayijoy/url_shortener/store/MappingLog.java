@@ -0,0 +1,163 @@
+package org.osayijoy.url_shortener.store;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of mapping changes.
+ * <p>
+ * Records are {@code [int payloadLength][int crc32c][byte type][int len][bytes][int len][bytes]}.
+ * Appends must be serialised by the caller; {@link #sync(long)} may be called concurrently
+ * and implements group commit: one {@code force} covers every record appended before it
+ * started, and threads that queued behind it return without forcing again.
+ */
+final class MappingLog implements Closeable {
+    static final byte PUT = 1;
+    static final byte BIND = 2;
+    static final byte REMOVE = 3;
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+
+    interface RecordHandler {
+        void accept(byte type, String first, String second);
+    }
+
+    private final FileChannel channel;
+    private final Object syncLock = new Object();
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+    private volatile long appendedPosition;
+    private volatile long durablePosition;
+
+    private MappingLog(FileChannel channel, long position) {
+        this.channel = channel;
+        this.appendedPosition = position;
+        this.durablePosition = position;
+    }
+
+    /**
+     * Opens (or creates) the log at {@code file}, replaying every intact record into
+     * {@code handler}. A torn or corrupt tail left by a crash is truncated.
+     */
+    static MappingLog open(Path file, RecordHandler handler) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validEnd = replay(channel, handler);
+        if (validEnd < channel.size()) {
+            channel.truncate(validEnd);
+            channel.force(false);
+        }
+        channel.position(validEnd);
+        return new MappingLog(channel, validEnd);
+    }
+
+    private static long replay(FileChannel channel, RecordHandler handler) throws IOException {
+        InputStream raw = Channels.newInputStream(channel.position(0));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16));
+        CRC32C crc = new CRC32C();
+        long position = 0;
+        long size = channel.size();
+        byte[] payload = new byte[256];
+        while (position + RECORD_HEADER <= size) {
+            int length;
+            int checksum;
+            try {
+                length = in.readInt();
+                checksum = in.readInt();
+                if (length < 1 + 2 * Integer.BYTES || position + RECORD_HEADER + length > size) {
+                    break;
+                }
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                in.readFully(payload, 0, length);
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.wrap(payload, 0, length);
+            byte type = record.get();
+            String first = readString(record);
+            String second = readString(record);
+            handler.accept(type, first, second);
+            position += RECORD_HEADER + length;
+        }
+        return position;
+    }
+
+    private static String readString(ByteBuffer record) {
+        int length = record.getInt();
+        String value = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    /**
+     * Appends a record and returns the log position just past it.
+     */
+    long append(byte type, String first, String second) throws IOException {
+        byte[] a = first.getBytes(StandardCharsets.UTF_8);
+        byte[] b = second.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + Integer.BYTES + a.length + Integer.BYTES + b.length;
+        if (buffer.capacity() < RECORD_HEADER + length) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(RECORD_HEADER + length) << 1);
+        }
+        buffer.clear();
+        buffer.position(RECORD_HEADER);
+        buffer.put(type).putInt(a.length).put(a).putInt(b.length).put(b);
+        buffer.flip();
+
+        ByteBuffer payload = buffer.duplicate().position(RECORD_HEADER);
+        crc.reset();
+        crc.update(payload);
+        buffer.putInt(0, length).putInt(Integer.BYTES, (int) crc.getValue());
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        long end = appendedPosition + RECORD_HEADER + length;
+        appendedPosition = end;
+        return end;
+    }
+
+    /**
+     * Blocks until everything up to {@code position} is on disk.
+     */
+    void sync(long position) throws IOException {
+        if (durablePosition >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durablePosition >= position) {
+                return;
+            }
+            long target = appendedPosition;
+            channel.force(false);
+            durablePosition = target;
+        }
+    }
+
+    long size() {
+        return appendedPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync(appendedPosition);
+        channel.close();
+    }
+}
@@ -0,0 +1,521 @@
+package org.osayijoy.url_shortener.store;
+
+import org.osayijoy.url_shortener.code.Base62;
+import org.osayijoy.url_shortener.code.CodeProbe;
+import org.osayijoy.url_shortener.code.StringHash;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Store that keeps its indexes and long URLs outside the Java heap.
+ * <p>
+ * Codes are packed into a {@code long} with {@link Base62#pack} and used as keys of an
+ * open-addressing table whose values are offsets into an append-only arena of UTF-8 long
+ * URLs. The long URL index stores a 64-bit hash, the arena offset of the URL and the
+ * packed code, so a URL bound to its own code is only stored once. An entry costs a few
+ * dozen bytes plus the URL itself and nothing for the garbage collector to trace.
+ * <p>
+ * Both tables are split into segments with their own write lock. Readers take no locks:
+ * a slot's key is published with release semantics after its value, and the table and
+ * arena chunk references are volatile. Codes that do not pack (custom keywords longer
+ * than {@value Base62#MAX_PACKED_LENGTH} characters or outside the Base62 alphabet) are
+ * kept in on-heap maps. Arena space of removed URLs is not reclaimed.
+ */
+public class OffHeapUrlMappingStore implements UrlMappingStore {
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+    private static final int MIN_SLOTS = 16;
+    private static final int MAX_SLOTS = 1 << 26;
+    private static final long REMOVED = -1;
+
+    private final CodeSegment[] codeSegments = new CodeSegment[SEGMENTS];
+    private final BindingSegment[] bindingSegments = new BindingSegment[SEGMENTS];
+    private final Arena arena = new Arena();
+    private final Map<String, String> overflowCodes = new ConcurrentHashMap<>();
+    private final Map<String, String> overflowBindings = new ConcurrentHashMap<>();
+
+    public OffHeapUrlMappingStore() {
+        this(1024);
+    }
+
+    public OffHeapUrlMappingStore(int expectedSize) {
+        int slots = slotsFor(expectedSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            codeSegments[i] = new CodeSegment(slots);
+            bindingSegments[i] = new BindingSegment(slots);
+        }
+    }
+
+    @Override
+    public String getLongUrl(String code) {
+        long packed = Base62.pack(code);
+        if (packed == Base62.NOT_PACKABLE) {
+            return overflowCodes.get(code);
+        }
+        long offset = codeSegment(packed).get(packed);
+        return offset > 0 ? arena.read(offset) : null;
+    }
+
+    @Override
+    public String getLongUrl(CharSequence code, int start, int end) {
+        long packed = Base62.pack(code, start, end);
+        if (packed == Base62.NOT_PACKABLE) {
+            return CodeProbe.get(overflowCodes, code, start, end);
+        }
+        long offset = codeSegment(packed).get(packed);
+        return offset > 0 ? arena.read(offset) : null;
+    }
+
+    @Override
+    public String getCode(String longUrl) {
+        long hash = hash(longUrl);
+        long packed = bindingSegment(hash).get(hash, longUrl);
+        if (packed > 0) {
+            return Base62.unpack(packed);
+        }
+        return overflowBindings.get(longUrl);
+    }
+
+    @Override
+    public boolean putIfAbsent(String code, String longUrl) {
+        long packed = Base62.pack(code);
+        if (packed == Base62.NOT_PACKABLE) {
+            return overflowCodes.putIfAbsent(code, longUrl) == null;
+        }
+        return codeSegment(packed).putIfAbsent(packed, longUrl);
+    }
+
+    @Override
+    public String bindIfAbsent(String longUrl, String code) {
+        long hash = hash(longUrl);
+        BindingSegment segment = bindingSegment(hash);
+        segment.lock.lock();
+        try {
+            String existing = getCode(longUrl);
+            if (existing != null) {
+                return existing;
+            }
+            bindLocked(segment, hash, longUrl, code);
+            return null;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public void bind(String longUrl, String code) {
+        long hash = hash(longUrl);
+        BindingSegment segment = bindingSegment(hash);
+        segment.lock.lock();
+        try {
+            bindLocked(segment, hash, longUrl, code);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    private void bindLocked(BindingSegment segment, long hash, String longUrl, String code) {
+        long packed = Base62.pack(code);
+        if (packed == Base62.NOT_PACKABLE) {
+            segment.unbind(hash, longUrl, 0);
+            overflowBindings.put(longUrl, code);
+            return;
+        }
+        overflowBindings.remove(longUrl);
+        long offset = codeSegment(packed).get(packed);
+        if (offset <= 0 || !arena.matches(offset, longUrl)) {
+            offset = 0;
+        }
+        segment.bind(hash, longUrl, offset, packed);
+    }
+
+    @Override
+    public String remove(String code) {
+        long packed = Base62.pack(code);
+        String longUrl;
+        if (packed == Base62.NOT_PACKABLE) {
+            longUrl = overflowCodes.remove(code);
+        } else {
+            long offset = codeSegment(packed).remove(packed);
+            longUrl = offset > 0 ? arena.read(offset) : null;
+        }
+        if (longUrl == null) {
+            return null;
+        }
+        long hash = hash(longUrl);
+        BindingSegment segment = bindingSegment(hash);
+        segment.lock.lock();
+        try {
+            if (packed == Base62.NOT_PACKABLE) {
+                overflowBindings.remove(longUrl, code);
+            } else {
+                segment.unbind(hash, longUrl, packed);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        return longUrl;
+    }
+
+    @Override
+    public int size() {
+        long size = overflowCodes.size();
+        for (CodeSegment segment : codeSegments) {
+            size += segment.live;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void forEachCode(Consumer<String> action) {
+        for (CodeSegment segment : codeSegments) {
+            segment.forEach(action);
+        }
+        overflowCodes.keySet().forEach(action);
+    }
+
+    /**
+     * Bytes allocated outside the heap for tables and the URL arena.
+     */
+    public long offHeapBytes() {
+        long bytes = arena.allocatedBytes();
+        for (int i = 0; i < SEGMENTS; i++) {
+            bytes += codeSegments[i].table.capacity() + bindingSegments[i].table.capacity();
+        }
+        return bytes;
+    }
+
+    private CodeSegment codeSegment(long packed) {
+        return codeSegments[(int) (StringHash.mix(packed) >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    private BindingSegment bindingSegment(long hash) {
+        return bindingSegments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    private static int slotsFor(long entries) {
+        long wanted = Math.max(MIN_SLOTS, entries * 2);
+        if (wanted > MAX_SLOTS) {
+            throw new IllegalStateException("Off-heap index segment is full");
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    /**
+     * Long URL hash; never 0, which marks an empty slot.
+     */
+    private static long hash(CharSequence value) {
+        long hash = StringHash.hash(value, 0, value.length());
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Packed code -> arena offset. Slots are {@code [long key][long value]}; key 0 marks an
+     * empty slot and a value of {@link #REMOVED} a removed entry whose slot is reused if the
+     * same code comes back.
+     */
+    private final class CodeSegment {
+        private static final int SLOT = 16;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile ByteBuffer table;
+        private volatile int live;
+        private int used;
+
+        private CodeSegment(int slots) {
+            this.table = allocate(slots * SLOT);
+        }
+
+        private long get(long key) {
+            ByteBuffer current = table;
+            int mask = current.capacity() / SLOT - 1;
+            int slot = (int) StringHash.mix(key) & mask;
+            while (true) {
+                long k = (long) LONGS.getAcquire(current, slot * SLOT);
+                if (k == 0) {
+                    return 0;
+                }
+                if (k == key) {
+                    return (long) LONGS.getAcquire(current, slot * SLOT + 8);
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private boolean putIfAbsent(long key, String longUrl) {
+            lock.lock();
+            try {
+                int slot = find(table, key);
+                if (slot >= 0) {
+                    long value = (long) LONGS.get(table, slot * SLOT + 8);
+                    if (value > 0) {
+                        return false;
+                    }
+                    LONGS.setRelease(table, slot * SLOT + 8, arena.append(longUrl));
+                    live++;
+                    return true;
+                }
+                if ((used + 1) * 2 > table.capacity() / SLOT) {
+                    resize();
+                }
+                insert(table, key, arena.append(longUrl));
+                used++;
+                live++;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long remove(long key) {
+            lock.lock();
+            try {
+                int slot = find(table, key);
+                if (slot < 0) {
+                    return 0;
+                }
+                long value = (long) LONGS.get(table, slot * SLOT + 8);
+                if (value > 0) {
+                    LONGS.setRelease(table, slot * SLOT + 8, REMOVED);
+                    live--;
+                }
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void forEach(Consumer<String> action) {
+            ByteBuffer current = table;
+            for (int base = 0; base < current.capacity(); base += SLOT) {
+                long key = (long) LONGS.getAcquire(current, base);
+                if (key != 0 && (long) LONGS.getAcquire(current, base + 8) > 0) {
+                    action.accept(Base62.unpack(key));
+                }
+            }
+        }
+
+        private int find(ByteBuffer current, long key) {
+            int mask = current.capacity() / SLOT - 1;
+            int slot = (int) StringHash.mix(key) & mask;
+            while (true) {
+                long k = (long) LONGS.get(current, slot * SLOT);
+                if (k == 0) {
+                    return -1;
+                }
+                if (k == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void insert(ByteBuffer current, long key, long value) {
+            int mask = current.capacity() / SLOT - 1;
+            int slot = (int) StringHash.mix(key) & mask;
+            while ((long) LONGS.get(current, slot * SLOT) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            LONGS.set(current, slot * SLOT + 8, value);
+            LONGS.setRelease(current, slot * SLOT, key);
+        }
+
+        private void resize() {
+            ByteBuffer old = table;
+            ByteBuffer resized = allocate(slotsFor(live + 1L) * SLOT);
+            for (int base = 0; base < old.capacity(); base += SLOT) {
+                long key = (long) LONGS.get(old, base);
+                long value = (long) LONGS.get(old, base + 8);
+                if (key != 0 && value > 0) {
+                    insert(resized, key, value);
+                }
+            }
+            used = live;
+            table = resized;
+        }
+    }
+
+    /**
+     * Long URL -> packed code. Slots are {@code [long hash][long urlOffset][long code]}; a
+     * hash of 0 marks an empty slot and a code of 0 an unbound URL.
+     */
+    private final class BindingSegment {
+        private static final int SLOT = 24;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile ByteBuffer table;
+        private int used;
+
+        private BindingSegment(int slots) {
+            this.table = allocate(slots * SLOT);
+        }
+
+        private long get(long hash, String longUrl) {
+            ByteBuffer current = table;
+            int slot = find(current, hash, longUrl, true);
+            return slot < 0 ? 0 : (long) LONGS.getAcquire(current, slot * SLOT + 16);
+        }
+
+        private void bind(long hash, String longUrl, long urlOffset, long code) {
+            int slot = find(table, hash, longUrl, false);
+            if (slot >= 0) {
+                LONGS.setRelease(table, slot * SLOT + 16, code);
+                return;
+            }
+            if ((used + 1) * 2 > table.capacity() / SLOT) {
+                resize();
+            }
+            insert(table, hash, urlOffset > 0 ? urlOffset : arena.append(longUrl), code);
+            used++;
+        }
+
+        /**
+         * Clears the binding of {@code longUrl} if it points at {@code code}, or whatever
+         * it points at if {@code code} is 0.
+         */
+        private void unbind(long hash, String longUrl, long code) {
+            int slot = find(table, hash, longUrl, false);
+            if (slot >= 0 && (code == 0 || (long) LONGS.get(table, slot * SLOT + 16) == code)) {
+                LONGS.setRelease(table, slot * SLOT + 16, 0L);
+            }
+        }
+
+        private int find(ByteBuffer current, long hash, String longUrl, boolean acquire) {
+            int mask = current.capacity() / SLOT - 1;
+            int slot = (int) hash & mask;
+            while (true) {
+                long h = acquire
+                        ? (long) LONGS.getAcquire(current, slot * SLOT)
+                        : (long) LONGS.get(current, slot * SLOT);
+                if (h == 0) {
+                    return -1;
+                }
+                if (h == hash && arena.matches((long) LONGS.get(current, slot * SLOT + 8), longUrl)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void insert(ByteBuffer current, long hash, long urlOffset, long code) {
+            int mask = current.capacity() / SLOT - 1;
+            int slot = (int) hash & mask;
+            while ((long) LONGS.get(current, slot * SLOT) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            LONGS.set(current, slot * SLOT + 8, urlOffset);
+            LONGS.set(current, slot * SLOT + 16, code);
+            LONGS.setRelease(current, slot * SLOT, hash);
+        }
+
+        private void resize() {
+            ByteBuffer old = table;
+            int bound = 0;
+            for (int base = 0; base < old.capacity(); base += SLOT) {
+                if ((long) LONGS.get(old, base + 16) != 0) {
+                    bound++;
+                }
+            }
+            ByteBuffer resized = allocate(slotsFor(bound + 1L) * SLOT);
+            for (int base = 0; base < old.capacity(); base += SLOT) {
+                long hash = (long) LONGS.get(old, base);
+                long code = (long) LONGS.get(old, base + 16);
+                if (hash != 0 && code != 0) {
+                    insert(resized, hash, (long) LONGS.get(old, base + 8), code);
+                }
+            }
+            used = bound;
+            table = resized;
+        }
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Append-only store of {@code [int length][UTF-8 bytes]} records in direct buffer
+     * chunks. Offsets are {@code chunk << 32 | position}; chunk 0 starts at position 8 so
+     * that no record lives at offset 0.
+     */
+    private static final class Arena {
+        private static final int CHUNK_SIZE = 16 << 20;
+        private volatile ByteBuffer[] chunks = {allocate(CHUNK_SIZE)};
+        private int position = 8;
+        private long allocatedBytes = CHUNK_SIZE;
+
+        private synchronized long append(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int needed = Integer.BYTES + bytes.length;
+            ByteBuffer[] current = chunks;
+            ByteBuffer chunk = current[current.length - 1];
+            if (chunk.capacity() - position < needed) {
+                ByteBuffer[] grown = Arrays.copyOf(current, current.length + 1);
+                chunk = allocate(Math.max(CHUNK_SIZE, needed));
+                grown[current.length] = chunk;
+                allocatedBytes += chunk.capacity();
+                chunks = grown;
+                current = grown;
+                position = 0;
+            }
+            long offset = ((long) (current.length - 1) << 32) | position;
+            chunk.putInt(position, bytes.length);
+            chunk.put(position + Integer.BYTES, bytes);
+            position += needed;
+            return offset;
+        }
+
+        private String read(long offset) {
+            ByteBuffer chunk = chunks[(int) (offset >>> 32)];
+            int position = (int) offset;
+            byte[] bytes = new byte[chunk.getInt(position)];
+            chunk.get(position + Integer.BYTES, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private boolean matches(long offset, String value) {
+            ByteBuffer chunk = chunks[(int) (offset >>> 32)];
+            int position = (int) offset;
+            int length = chunk.getInt(position);
+            int start = position + Integer.BYTES;
+            if (length == value.length()) {
+                int i = 0;
+                while (i < length) {
+                    char c = value.charAt(i);
+                    if (c >= 0x80) {
+                        break;
+                    }
+                    if (chunk.get(start + i) != c) {
+                        return false;
+                    }
+                    i++;
+                }
+                if (i == length) {
+                    return true;
+                }
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            if (encoded.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (chunk.get(start + i) != encoded[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private synchronized long allocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package org.osayijoy.url_shortener.store;
+
+import org.osayijoy.url_shortener.code.CodeProbe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Durable store backed by a directory holding an append-only log and a compacted snapshot.
+ * <p>
+ * Lookups go through up to three layers: the in-memory delta of changes since the last
+ * rotation, the delta being compacted (if any) and the memory-mapped {@link SnapshotIndex}.
+ * Only the deltas live on the heap, so a restart maps the snapshot and replays just the
+ * log tail. Writes are serialised on a single lock while they append to the log; the
+ * fsync happens outside it, where concurrent writers share one {@code force} (group commit).
+ * <p>
+ * When the log grows past the compaction threshold, the active delta is frozen, a fresh
+ * log is started and a background thread merges the frozen delta into a new snapshot.
+ * Readers and writers are never blocked by the merge.
+ */
+public class PersistentUrlMappingStore implements UrlMappingStore, Closeable {
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+    private static final String LOG_PREFIX = "mappings-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // compared by identity: marks a code or binding removed on top of a lower layer
+    @SuppressWarnings("StringOperationCanBeSimplified")
+    private static final String TOMBSTONE = new String("");
+
+    private final Path directory;
+    private final boolean syncOnWrite;
+    private final long compactionThreshold;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Object compactionMonitor = new Object();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final ExecutorService compactor;
+
+    private volatile State state;
+    private volatile int size;
+    private volatile boolean closed;
+    private MappingLog log;
+    private long generation;
+
+    public PersistentUrlMappingStore(Path directory) {
+        this(directory, true, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param syncOnWrite         whether writes wait for their log record to reach the disk
+     * @param compactionThreshold log size in bytes that triggers a background compaction
+     */
+    public PersistentUrlMappingStore(Path directory, boolean syncOnWrite, long compactionThreshold) {
+        this.directory = directory;
+        this.syncOnWrite = syncOnWrite;
+        this.compactionThreshold = compactionThreshold;
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "url-mapping-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            compactor.shutdown();
+            throw new UncheckedIOException("Cannot open mapping store in " + directory, e);
+        }
+    }
+
+    private void recover() throws IOException {
+        long snapshotGeneration = -1;
+        List<Long> logGenerations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, LOG_PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.delete(file);
+                } else if (name.endsWith(SNAPSHOT_SUFFIX)) {
+                    snapshotGeneration = Math.max(snapshotGeneration, parseGeneration(name, SNAPSHOT_SUFFIX));
+                } else if (name.endsWith(LOG_SUFFIX)) {
+                    logGenerations.add(parseGeneration(name, LOG_SUFFIX));
+                }
+            }
+        }
+
+        SnapshotIndex snapshot = snapshotGeneration < 0
+                ? SnapshotIndex.empty()
+                : SnapshotIndex.open(snapshotPath(snapshotGeneration));
+        state = new State(snapshot, null, new Delta());
+        size = (int) snapshot.codeCount();
+
+        logGenerations.sort(null);
+        generation = snapshotGeneration + 1;
+        for (long logGeneration : logGenerations) {
+            if (logGeneration <= snapshotGeneration) {
+                Files.delete(logPath(logGeneration));
+                continue;
+            }
+            if (log != null) {
+                log.close();
+            }
+            log = MappingLog.open(logPath(logGeneration), this::apply);
+            generation = logGeneration;
+        }
+        if (log == null) {
+            log = MappingLog.open(logPath(generation), this::apply);
+        }
+        deleteBefore(SNAPSHOT_SUFFIX, snapshotGeneration);
+    }
+
+    @Override
+    public String getLongUrl(String code) {
+        State current = state;
+        String longUrl = current.active.codes.get(code);
+        if (longUrl == null && current.frozen != null) {
+            longUrl = current.frozen.codes.get(code);
+        }
+        if (longUrl == null) {
+            return current.snapshot.getLongUrl(code);
+        }
+        return longUrl == TOMBSTONE ? null : longUrl;
+    }
+
+    @Override
+    public String getLongUrl(CharSequence code, int start, int end) {
+        State current = state;
+        String longUrl = CodeProbe.get(current.active.codes, code, start, end);
+        if (longUrl == null && current.frozen != null) {
+            longUrl = CodeProbe.get(current.frozen.codes, code, start, end);
+        }
+        if (longUrl == null) {
+            return current.snapshot.getLongUrl(code, start, end);
+        }
+        return longUrl == TOMBSTONE ? null : longUrl;
+    }
+
+    @Override
+    public String getCode(String longUrl) {
+        State current = state;
+        String code = current.active.bindings.get(longUrl);
+        if (code == null && current.frozen != null) {
+            code = current.frozen.bindings.get(longUrl);
+        }
+        if (code == null) {
+            return current.snapshot.getCode(longUrl);
+        }
+        return code == TOMBSTONE ? null : code;
+    }
+
+    @Override
+    public boolean putIfAbsent(String code, String longUrl) {
+        MappingLog target;
+        long position;
+        writeLock.lock();
+        try {
+            if (getLongUrl(code) != null) {
+                return false;
+            }
+            apply(MappingLog.PUT, code, longUrl);
+            target = log;
+            position = append(MappingLog.PUT, code, longUrl);
+        } finally {
+            writeLock.unlock();
+        }
+        commit(target, position);
+        return true;
+    }
+
+    @Override
+    public String bindIfAbsent(String longUrl, String code) {
+        MappingLog target;
+        long position;
+        writeLock.lock();
+        try {
+            String existing = getCode(longUrl);
+            if (existing != null) {
+                return existing;
+            }
+            apply(MappingLog.BIND, code, longUrl);
+            target = log;
+            position = append(MappingLog.BIND, code, longUrl);
+        } finally {
+            writeLock.unlock();
+        }
+        commit(target, position);
+        return null;
+    }
+
+    @Override
+    public void bind(String longUrl, String code) {
+        MappingLog target;
+        long position;
+        writeLock.lock();
+        try {
+            apply(MappingLog.BIND, code, longUrl);
+            target = log;
+            position = append(MappingLog.BIND, code, longUrl);
+        } finally {
+            writeLock.unlock();
+        }
+        commit(target, position);
+    }
+
+    @Override
+    public String remove(String code) {
+        MappingLog target;
+        long position;
+        String longUrl;
+        writeLock.lock();
+        try {
+            longUrl = getLongUrl(code);
+            if (longUrl == null) {
+                return null;
+            }
+            apply(MappingLog.REMOVE, code, "");
+            target = log;
+            position = append(MappingLog.REMOVE, code, "");
+        } finally {
+            writeLock.unlock();
+        }
+        commit(target, position);
+        return longUrl;
+    }
+
+    /**
+     * Commits the whole batch under one acquisition of the write lock and waits for a
+     * single log sync. Long URLs that are already bound keep their code and do not claim
+     * the proposed one.
+     */
+    @Override
+    public String[] putAll(String[] codes, String[] longUrls) {
+        String[] results = new String[codes.length];
+        MappingLog target;
+        long position = -1;
+        writeLock.lock();
+        try {
+            for (int i = 0; i < codes.length; i++) {
+                String existing = getCode(longUrls[i]);
+                if (existing != null) {
+                    results[i] = existing;
+                    continue;
+                }
+                if (getLongUrl(codes[i]) != null) {
+                    continue;
+                }
+                apply(MappingLog.PUT, codes[i], longUrls[i]);
+                append(MappingLog.PUT, codes[i], longUrls[i]);
+                apply(MappingLog.BIND, codes[i], longUrls[i]);
+                position = append(MappingLog.BIND, codes[i], longUrls[i]);
+                results[i] = codes[i];
+            }
+            target = log;
+        } finally {
+            writeLock.unlock();
+        }
+        if (position >= 0) {
+            commit(target, position);
+        }
+        return results;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Iterates one consistent view of the layers: a code is taken from the newest layer
+     * that mentions it, and skipped if that layer removed it.
+     */
+    @Override
+    public void forEachCode(Consumer<String> action) {
+        State current = state;
+        Delta active = current.active;
+        Delta frozen = current.frozen;
+        active.codes.forEach((code, longUrl) -> {
+            if (longUrl != TOMBSTONE) {
+                action.accept(code);
+            }
+        });
+        if (frozen != null) {
+            frozen.codes.forEach((code, longUrl) -> {
+                if (longUrl != TOMBSTONE && !active.codes.containsKey(code)) {
+                    action.accept(code);
+                }
+            });
+        }
+        current.snapshot.forEachCode((code, longUrl) -> {
+            if (!active.codes.containsKey(code) && (frozen == null || !frozen.codes.containsKey(code))) {
+                action.accept(code);
+            }
+        });
+    }
+
+    /**
+     * Applies a change to the active delta. Used both by writers (under the write lock)
+     * and by log replay, so replaying a record twice is harmless.
+     */
+    private void apply(byte type, String code, String longUrl) {
+        Delta active = state.active;
+        switch (type) {
+            case MappingLog.PUT:
+                if (getLongUrl(code) == null) {
+                    size++;
+                }
+                active.codes.put(code, longUrl);
+                break;
+            case MappingLog.BIND:
+                active.bindings.put(longUrl, code);
+                break;
+            case MappingLog.REMOVE:
+                String removed = getLongUrl(code);
+                if (removed == null) {
+                    break;
+                }
+                size--;
+                active.codes.put(code, TOMBSTONE);
+                if (code.equals(getCode(removed))) {
+                    active.bindings.put(removed, TOMBSTONE);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown log record type " + type);
+        }
+    }
+
+    private long append(byte type, String code, String longUrl) {
+        try {
+            return log.append(type, code, longUrl);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to mapping log", e);
+        }
+    }
+
+    private void commit(MappingLog target, long position) {
+        if (syncOnWrite) {
+            try {
+                target.sync(position);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot sync mapping log", e);
+            }
+        }
+        if (position >= compactionThreshold && compactionScheduled.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                try {
+                    if (!closed) {
+                        compact();
+                    }
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Merges everything logged so far into a new snapshot and drops the old log. Writes
+     * continue into a fresh log while the merge runs.
+     */
+    public void compact() {
+        synchronized (compactionMonitor) {
+            try {
+                State frozen = rotate();
+                long frozenGeneration = generation - 1;
+                Path snapshotFile = snapshotPath(frozenGeneration);
+                Path tempFile = directory.resolve(snapshotFile.getFileName() + TEMP_SUFFIX);
+                writeSnapshot(tempFile, frozen.snapshot, frozen.frozen);
+                Files.move(tempFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                SnapshotIndex merged = SnapshotIndex.open(snapshotFile);
+
+                writeLock.lock();
+                try {
+                    state = new State(merged, null, state.active);
+                } finally {
+                    writeLock.unlock();
+                }
+                deleteBefore(LOG_SUFFIX, frozenGeneration + 1);
+                deleteBefore(SNAPSHOT_SUFFIX, frozenGeneration);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot compact mapping store", e);
+            }
+        }
+    }
+
+    private State rotate() throws IOException {
+        writeLock.lock();
+        try {
+            State current = state;
+            if (current.frozen != null) {
+                // a previous compaction failed half way; retry it before rotating again
+                return current;
+            }
+            log.close();
+            generation++;
+            log = MappingLog.open(logPath(generation), this::apply);
+            state = new State(current.snapshot, current.active, new Delta());
+            return state;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void writeSnapshot(Path file, SnapshotIndex snapshot, Delta delta) throws IOException {
+        long maxRecords = snapshot.codeCount() + snapshot.bindingCount()
+                + delta.codes.size() + delta.bindings.size();
+        try (SnapshotIndex.Writer writer = new SnapshotIndex.Writer(file, maxRecords)) {
+            Merge merge = new Merge(snapshot, delta);
+            for (Map.Entry<String, String> entry : delta.codes.entrySet()) {
+                if (entry.getValue() != TOMBSTONE) {
+                    merge.writeCode(writer, entry.getKey(), entry.getValue());
+                }
+            }
+            snapshot.forEachCode((code, longUrl) -> {
+                if (!delta.codes.containsKey(code)) {
+                    merge.writeCode(writer, code, longUrl);
+                }
+            });
+            for (Map.Entry<String, String> entry : delta.bindings.entrySet()) {
+                if (entry.getValue() != TOMBSTONE) {
+                    merge.writeBinding(writer, entry.getKey(), entry.getValue());
+                }
+            }
+            snapshot.forEachBinding((code, longUrl) -> {
+                if (!delta.bindings.containsKey(longUrl)) {
+                    merge.writeBinding(writer, longUrl, code);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long parseGeneration(String name, String suffix) {
+        return Long.parseLong(name.substring(LOG_PREFIX.length(), name.length() - suffix.length()));
+    }
+
+    private Path logPath(long generation) {
+        return directory.resolve(LOG_PREFIX + generation + LOG_SUFFIX);
+    }
+
+    private Path snapshotPath(long generation) {
+        return directory.resolve(LOG_PREFIX + generation + SNAPSHOT_SUFFIX);
+    }
+
+    private void deleteBefore(String suffix, long generation) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, LOG_PREFIX + "*" + suffix)) {
+            for (Path file : files) {
+                if (parseGeneration(file.getFileName().toString(), suffix) < generation) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (compactionMonitor) {
+            writeLock.lock();
+            try {
+                log.close();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private static final class State {
+        private final SnapshotIndex snapshot;
+        private final Delta frozen;
+        private final Delta active;
+
+        private State(SnapshotIndex snapshot, Delta frozen, Delta active) {
+            this.snapshot = snapshot;
+            this.frozen = frozen;
+            this.active = active;
+        }
+    }
+
+    private static final class Delta {
+        private final Map<String, String> codes = new ConcurrentHashMap<>();
+        private final Map<String, String> bindings = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Resolves the merged view of a frozen delta over a snapshot while it is written out.
+     */
+    private static final class Merge {
+        private final SnapshotIndex snapshot;
+        private final Delta delta;
+
+        private Merge(SnapshotIndex snapshot, Delta delta) {
+            this.snapshot = snapshot;
+            this.delta = delta;
+        }
+
+        private void writeCode(SnapshotIndex.Writer writer, String code, String longUrl) {
+            // share the record with the binding when the long URL points back at this code
+            write(writer, code, longUrl, true, code.equals(codeOf(longUrl)));
+        }
+
+        private void writeBinding(SnapshotIndex.Writer writer, String longUrl, String code) {
+            if (!longUrl.equals(longUrlOf(code))) {
+                write(writer, code, longUrl, false, true);
+            }
+        }
+
+        private void write(SnapshotIndex.Writer writer, String code, String longUrl,
+                           boolean indexCode, boolean indexBinding) {
+            try {
+                writer.add(code, longUrl, indexCode, indexBinding);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private String longUrlOf(String code) {
+            String longUrl = delta.codes.get(code);
+            if (longUrl == null) {
+                return snapshot.getLongUrl(code);
+            }
+            return longUrl == TOMBSTONE ? null : longUrl;
+        }
+
+        private String codeOf(String longUrl) {
+            String code = delta.bindings.get(longUrl);
+            if (code == null) {
+                return snapshot.getCode(longUrl);
+            }
+            return code == TOMBSTONE ? null : code;
+        }
+    }
+}
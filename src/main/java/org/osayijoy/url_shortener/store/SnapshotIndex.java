@@ -0,0 +1,290 @@
+package org.osayijoy.url_shortener.store;
+
+import org.osayijoy.url_shortener.code.CodeProbe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-only, memory-mapped snapshot of the mappings.
+ * <p>
+ * The file holds a header, two open-addressing hash tables (one keyed by code, one keyed
+ * by long URL) and the records they point into. Each table slot stores the file position
+ * of a {@code [int len][code][int len][longUrl]} record, or 0 if the slot is empty. A
+ * record is shared by both tables when its code and long URL point at each other. Opening
+ * a snapshot only maps the file: lookups probe the tables in place, so startup does not
+ * depend on the number of entries.
+ */
+final class SnapshotIndex {
+    private static final int MAGIC = 0x55524C53;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final SnapshotIndex EMPTY = new SnapshotIndex(null, 0, 0, 0);
+
+    private final MappedRegion region;
+    private final long codeCount;
+    private final long bindingCount;
+    private final int slots;
+
+    private SnapshotIndex(MappedRegion region, long codeCount, long bindingCount, int slots) {
+        this.region = region;
+        this.codeCount = codeCount;
+        this.bindingCount = bindingCount;
+        this.slots = slots;
+    }
+
+    static SnapshotIndex empty() {
+        return EMPTY;
+    }
+
+    static SnapshotIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedRegion region = MappedRegion.map(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+            if (region.size() < HEADER_SIZE || region.getInt(0) != MAGIC || region.getInt(4) != VERSION) {
+                throw new IOException("Not a mapping snapshot: " + file);
+            }
+            return new SnapshotIndex(region, region.getLong(8), region.getLong(16), region.getInt(24));
+        }
+    }
+
+    long codeCount() {
+        return codeCount;
+    }
+
+    long bindingCount() {
+        return bindingCount;
+    }
+
+    String getLongUrl(String code) {
+        return getLongUrl(code, 0, code.length());
+    }
+
+    String getLongUrl(CharSequence code, int start, int end) {
+        if (codeCount == 0) {
+            return null;
+        }
+        long record = find(codeTable(), code, start, end, true);
+        return record == 0 ? null : readString(urlPosition(record));
+    }
+
+    String getCode(String longUrl) {
+        if (bindingCount == 0) {
+            return null;
+        }
+        long record = find(bindingTable(), longUrl, 0, longUrl.length(), false);
+        return record == 0 ? null : readString(record);
+    }
+
+    void forEachCode(BiConsumer<String, String> action) {
+        forEach(codeTable(), action);
+    }
+
+    void forEachBinding(BiConsumer<String, String> action) {
+        forEach(bindingTable(), action);
+    }
+
+    private void forEach(long table, BiConsumer<String, String> action) {
+        for (int slot = 0; slot < slots; slot++) {
+            long record = region.getLong(table + (long) slot * Long.BYTES);
+            if (record != 0) {
+                action.accept(readString(record), readString(urlPosition(record)));
+            }
+        }
+    }
+
+    private long find(long table, CharSequence key, int from, int to, boolean byCode) {
+        int mask = slots - 1;
+        int slot = mix(CodeProbe.hash(key, from, to)) & mask;
+        while (true) {
+            long record = region.getLong(table + (long) slot * Long.BYTES);
+            if (record == 0) {
+                return 0;
+            }
+            long keyPosition = byCode ? record : urlPosition(record);
+            if (matches(keyPosition, key, from, to)) {
+                return record;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private long codeTable() {
+        return HEADER_SIZE;
+    }
+
+    private long bindingTable() {
+        return HEADER_SIZE + (long) slots * Long.BYTES;
+    }
+
+    private long urlPosition(long record) {
+        return record + Integer.BYTES + region.getInt(record);
+    }
+
+    /**
+     * Compares the stored UTF-8 string with the key by encoding the key a character at a
+     * time, as {@link String#getBytes} would, so lookups do not allocate.
+     */
+    private boolean matches(long position, CharSequence key, int from, int to) {
+        int length = region.getInt(position);
+        if (length < to - from) {
+            // every char encodes to at least one byte
+            return false;
+        }
+        long p = position + Integer.BYTES;
+        long end = p + length;
+        for (int i = from; i < to; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                if (p == end || region.get(p++) != (byte) c) {
+                    return false;
+                }
+                continue;
+            }
+            int codePoint = c;
+            if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(key.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, key.charAt(++i));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogates encode as '?'
+                codePoint = '?';
+            }
+            int bytes = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (end - p < bytes) {
+                return false;
+            }
+            if (bytes == 1) {
+                if (region.get(p++) != (byte) codePoint) {
+                    return false;
+                }
+                continue;
+            }
+            int lead = bytes == 2 ? 0xC0 : bytes == 3 ? 0xE0 : 0xF0;
+            if (region.get(p++) != (byte) (lead | (codePoint >>> (6 * (bytes - 1))))) {
+                return false;
+            }
+            for (int shift = 6 * (bytes - 2); shift >= 0; shift -= 6) {
+                if (region.get(p++) != (byte) (0x80 | ((codePoint >>> shift) & 0x3F))) {
+                    return false;
+                }
+            }
+        }
+        return p == end;
+    }
+
+    private String readString(long position) {
+        int length = region.getInt(position);
+        byte[] bytes = new byte[length];
+        region.get(position + Integer.BYTES, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * Streams records to a new snapshot file. The tables are sized up front from an upper
+     * bound on the number of records, so each record is written exactly once.
+     */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final MappedRegion tables;
+        private final int slots;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private long position;
+        private long flushed;
+        private long codeCount;
+        private long bindingCount;
+
+        Writer(Path file, long maxRecords) throws IOException {
+            long wanted = Math.max(16, maxRecords * 2);
+            if (wanted > 1 << 30) {
+                throw new IllegalArgumentException("Snapshot too large: " + maxRecords + " records");
+            }
+            this.slots = Integer.highestOneBit((int) wanted - 1) << 1;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long tablesEnd = HEADER_SIZE + 2L * slots * Long.BYTES;
+            this.tables = MappedRegion.map(channel, FileChannel.MapMode.READ_WRITE, tablesEnd);
+            this.position = tablesEnd;
+            this.flushed = tablesEnd;
+        }
+
+        /**
+         * Writes a record and indexes it by code, by long URL, or both.
+         */
+        void add(String code, String longUrl, boolean indexCode, boolean indexBinding) throws IOException {
+            long record = position;
+            write(code.getBytes(StandardCharsets.UTF_8));
+            write(longUrl.getBytes(StandardCharsets.UTF_8));
+            if (indexCode) {
+                insert(HEADER_SIZE, code, record);
+                codeCount++;
+            }
+            if (indexBinding) {
+                insert(HEADER_SIZE + (long) slots * Long.BYTES, longUrl, record);
+                bindingCount++;
+            }
+        }
+
+        private void insert(long table, String key, long record) {
+            int mask = slots - 1;
+            int slot = mix(key.hashCode()) & mask;
+            while (tables.getLong(table + (long) slot * Long.BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            tables.putLong(table + (long) slot * Long.BYTES, record);
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+            position += Integer.BYTES + bytes.length;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushed += channel.write(buffer, flushed);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                tables.putInt(0, MAGIC);
+                tables.putInt(4, VERSION);
+                tables.putLong(8, codeCount);
+                tables.putLong(16, bindingCount);
+                tables.putInt(24, slots);
+                tables.force();
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.osayijoy.url_shortener.store;
+
+import java.util.function.Consumer;
+
+/**
+ * Backing storage for short code to long URL mappings.
+ * <p>
+ * A store keeps two indexes: code -> long URL (the redirect path) and long URL -> code
+ * (used to hand out the same code for the same URL). Implementations must be safe for
+ * concurrent use and must not block readers.
+ */
+public interface UrlMappingStore {
+
+    /**
+     * Returns the long URL mapped to {@code code}, or {@code null} if there is none.
+     */
+    String getLongUrl(String code);
+
+    /**
+     * Returns the long URL mapped to the code in {@code code[start, end)}, or {@code null}
+     * if there is none. This is the redirect path; stores override it to look the code up
+     * without first copying it into a {@code String}.
+     */
+    default String getLongUrl(CharSequence code, int start, int end) {
+        return getLongUrl(code.subSequence(start, end).toString());
+    }
+
+    /**
+     * Returns the code currently bound to {@code longUrl}, or {@code null} if there is none.
+     */
+    String getCode(String longUrl);
+
+    /**
+     * Claims {@code code} for {@code longUrl} in the code index.
+     *
+     * @return {@code false} if the code is already taken
+     */
+    boolean putIfAbsent(String code, String longUrl);
+
+    /**
+     * Binds {@code longUrl} to {@code code} unless it is already bound.
+     *
+     * @return the code that was already bound, or {@code null} if {@code code} won
+     */
+    String bindIfAbsent(String longUrl, String code);
+
+    /**
+     * Binds {@code longUrl} to {@code code}, replacing any existing binding.
+     */
+    void bind(String longUrl, String code);
+
+    /**
+     * Removes {@code code} and, if it still points at it, the binding of its long URL.
+     *
+     * @return the long URL that was mapped to the code, or {@code null} if there was none
+     */
+    String remove(String code);
+
+    int size();
+
+    /**
+     * Passes every code in the store to {@code action}. Codes added or removed while the
+     * iteration runs may or may not be seen.
+     */
+    void forEachCode(Consumer<String> action);
+
+    /**
+     * Shortens a batch of long URLs with pre-generated codes. For each pair this behaves
+     * like {@link #putIfAbsent} followed by {@link #bindIfAbsent}, giving the code back if
+     * the long URL was already bound. Stores that can commit more cheaply in bulk (one
+     * lock, one log sync) override it.
+     *
+     * @return for each pair, the code now bound to the long URL, or {@code null} if the
+     * proposed code was already taken
+     */
+    default String[] putAll(String[] codes, String[] longUrls) {
+        String[] results = new String[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            if (!putIfAbsent(codes[i], longUrls[i])) {
+                continue;
+            }
+            String winner = bindIfAbsent(longUrls[i], codes[i]);
+            if (winner != null) {
+                remove(codes[i]);
+                results[i] = winner;
+            } else {
+                results[i] = codes[i];
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,27 @@
+package org.osayijoy.load_balancer;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Polling for tests that wait on background threads: health checks, event loops and
+ * file watchers.
+ */
+public final class Await {
+    private static final long TIMEOUT_MILLIS = 15_000;
+
+    private Await() {
+    }
+
+    /**
+     * Polls {@code condition} until it holds, failing the test if it does not within 15s.
+     */
+    public static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+}
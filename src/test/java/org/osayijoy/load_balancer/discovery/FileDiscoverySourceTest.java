@@ -0,0 +1,95 @@
+package org.osayijoy.load_balancer.discovery;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osayijoy.load_balancer.service.PowerOfTwoChoicesLoadBalancer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.osayijoy.load_balancer.Await.awaitTrue;
+
+public class FileDiscoverySourceTest {
+    @TempDir
+    Path directory;
+    private ServiceDiscovery discovery;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (discovery != null) {
+            discovery.close();
+        }
+    }
+
+    @Test
+    void parse_shouldReadAddressesAndWeights() {
+        List<Endpoint> endpoints = FileDiscoverySource.parse(List.of(
+                "# users", "", "10.0.0.1:8080 4", "  10.0.0.2:8080  "));
+
+        assertEquals(List.of(new Endpoint("10.0.0.1:8080", 4), new Endpoint("10.0.0.2:8080", 1)), endpoints);
+    }
+
+    @Test
+    void parse_shouldRejectMalformedLines() {
+        assertThrows(IllegalArgumentException.class, () -> FileDiscoverySource.parse(List.of("10.0.0.1 x")));
+        assertThrows(IllegalArgumentException.class, () -> FileDiscoverySource.parse(List.of("10.0.0.1 1 2")));
+        assertThrows(IllegalArgumentException.class, () -> FileDiscoverySource.parse(List.of("10.0.0.1 0")));
+        assertThrows(IllegalArgumentException.class, () -> FileDiscoverySource.parse(List.of("10.0.0.1 -3")));
+    }
+
+    @Test
+    void endpoint_shouldRejectWeightBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new Endpoint("10.0.0.1", 0));
+        assertEquals(1, new Endpoint("10.0.0.1", 1).getWeight());
+    }
+
+    @Test
+    void start_shouldLoadFileAndFollowChanges() throws Exception {
+        Path file = directory.resolve("endpoints");
+        Files.writeString(file, "10.0.0.1\n10.0.0.2\n");
+        discovery = new ServiceDiscovery(new PowerOfTwoChoicesLoadBalancer(), new FileDiscoverySource(file)).start();
+        assertEquals(Set.of("10.0.0.1", "10.0.0.2"), discovery.getServers().keySet());
+
+        Files.writeString(file, "10.0.0.2 3\n10.0.0.3\n");
+        awaitTrue(() -> discovery.getServers().keySet().equals(Set.of("10.0.0.2", "10.0.0.3")));
+        awaitTrue(() -> discovery.getServers().get("10.0.0.2").getCapacity() == 3);
+
+        Path replacement = directory.resolve("endpoints.tmp");
+        Files.writeString(replacement, "10.0.0.4\n");
+        Files.move(replacement, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        awaitTrue(() -> discovery.getServers().keySet().equals(Set.of("10.0.0.4")));
+    }
+
+    @Test
+    void start_shouldBeRetryableAfterFailure() throws Exception {
+        Path file = directory.resolve("endpoints");
+        FileDiscoverySource source = new FileDiscoverySource(file);
+        discovery = new ServiceDiscovery(new PowerOfTwoChoicesLoadBalancer(), source);
+
+        assertThrows(IOException.class, discovery::start);
+        Files.writeString(file, "10.0.0.1\n");
+        discovery.start();
+
+        assertEquals(Set.of("10.0.0.1"), discovery.getServers().keySet());
+    }
+
+    @Test
+    void start_shouldKeepMembershipWhenFileIsInvalid() throws Exception {
+        Path file = directory.resolve("endpoints");
+        Files.writeString(file, "10.0.0.1\n");
+        discovery = new ServiceDiscovery(new PowerOfTwoChoicesLoadBalancer(), new FileDiscoverySource(file)).start();
+
+        Files.writeString(file, "10.0.0.2 heavy\n");
+        Files.writeString(directory.resolve("other"), "ignored");
+        Files.writeString(file, "10.0.0.3\n");
+        awaitTrue(() -> discovery.getServers().containsKey("10.0.0.3"));
+
+        assertEquals(Set.of("10.0.0.3"), discovery.getServers().keySet());
+    }
+}
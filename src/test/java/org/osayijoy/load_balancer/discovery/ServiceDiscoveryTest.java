@@ -0,0 +1,118 @@
+package org.osayijoy.load_balancer.discovery;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.model.Server;
+import org.osayijoy.load_balancer.service.LoadBalancer;
+import org.osayijoy.load_balancer.service.WeightedRoundRobinLoadBalancer;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class ServiceDiscoveryTest {
+    private final WeightedRoundRobinLoadBalancer loadBalancer = new WeightedRoundRobinLoadBalancer();
+    private final ServiceDiscovery discovery = new ServiceDiscovery(loadBalancer, listener -> {});
+
+    @Test
+    void update_shouldAddAndRemoveServers() {
+        discovery.update(List.of(new Endpoint("10.0.0.1", 1), new Endpoint("10.0.0.2", 1)));
+        discovery.update(List.of(new Endpoint("10.0.0.2", 1), new Endpoint("10.0.0.3", 1)));
+
+        assertEquals(2, discovery.getServers().size());
+        for (int i = 0; i < 10; i++) {
+            Server server = loadBalancer.getServer();
+            assertNotEquals("10.0.0.1", server.getIpAddress());
+            loadBalancer.releaseServer(server);
+        }
+    }
+
+    @Test
+    void update_shouldChangeWeightsInPlace() {
+        discovery.update(List.of(new Endpoint("10.0.0.1", 1), new Endpoint("10.0.0.2", 1)));
+        Server server = discovery.getServers().get("10.0.0.2");
+
+        discovery.update(List.of(new Endpoint("10.0.0.1", 1), new Endpoint("10.0.0.2", 3)));
+
+        assertSame(server, discovery.getServers().get("10.0.0.2"));
+        assertEquals(3, server.getCapacity());
+        int picks = 0;
+        for (int i = 0; i < 8; i++) {
+            Server picked = loadBalancer.getServer();
+            if (picked == server) {
+                picks++;
+            }
+            loadBalancer.releaseServer(picked);
+        }
+        assertEquals(6, picks);
+    }
+
+    @Test
+    void update_shouldApplyEachChangeAsOneBatch() {
+        LoadBalancer mock = mock(LoadBalancer.class);
+        ServiceDiscovery mocked = new ServiceDiscovery(mock, listener -> {});
+
+        mocked.update(List.of(new Endpoint("10.0.0.1", 1), new Endpoint("10.0.0.2", 1)));
+        mocked.update(List.of(new Endpoint("10.0.0.1", 1), new Endpoint("10.0.0.2", 1)));
+        mocked.update(List.of(new Endpoint("10.0.0.3", 1)));
+
+        verify(mock, times(2)).applyMembership(anyCollection(), anyCollection());
+        verify(mock).applyMembership(argThat(added -> added.size() == 1),
+                argThat(removed -> removed.containsAll(List.of("10.0.0.1", "10.0.0.2"))));
+        verify(mock, never()).addServer(any());
+        verify(mock, never()).removeServer(any());
+        assertEquals(2, mocked.getUpdates());
+    }
+
+    @Test
+    void update_shouldDrainRemovedServersWithRequestsInFlight() {
+        discovery.update(List.of(new Endpoint("10.0.0.1", 1)));
+        Server server = loadBalancer.getServer();
+
+        discovery.update(List.of(new Endpoint("10.0.0.2", 1)));
+
+        assertEquals(List.of(server), discovery.getDraining());
+        assertEquals("10.0.0.2", loadBalancer.getServer().getIpAddress());
+
+        loadBalancer.releaseServer(server);
+        assertEquals(List.of(), discovery.getDraining());
+    }
+
+    @Test
+    void update_shouldReuseDrainingServerWhenItComesBack() {
+        discovery.update(List.of(new Endpoint("10.0.0.1", 1)));
+        Server server = loadBalancer.getServer();
+        discovery.update(List.of());
+
+        discovery.update(List.of(new Endpoint("10.0.0.1", 2)));
+
+        assertSame(server, discovery.getServers().get("10.0.0.1"));
+        assertEquals(1, server.getActiveConnections());
+        assertEquals(2, server.getCapacity());
+        assertEquals(List.of(), discovery.getDraining());
+    }
+
+    @Test
+    void update_shouldLeaveWeightsAloneWhenMembershipChangeFails() {
+        LoadBalancer mock = mock(LoadBalancer.class);
+        ServiceDiscovery mocked = new ServiceDiscovery(mock, listener -> {});
+        mocked.update(List.of(new Endpoint("10.0.0.1", 1)));
+        Server server = mocked.getServers().get("10.0.0.1");
+        doThrow(new IllegalStateException("rejected")).when(mock).applyMembership(anyCollection(), anyCollection());
+
+        assertThrows(IllegalStateException.class, () ->
+                mocked.update(List.of(new Endpoint("10.0.0.1", 4), new Endpoint("10.0.0.2", 1))));
+
+        assertEquals(1, server.getCapacity());
+        assertEquals(Set.of("10.0.0.1"), mocked.getServers().keySet());
+    }
+
+    @Test
+    void update_shouldKeepLastEntryForRepeatedAddress() {
+        discovery.update(List.of(new Endpoint("10.0.0.1", 1), new Endpoint("10.0.0.1", 5)));
+
+        assertEquals(5, discovery.getServers().get("10.0.0.1").getCapacity());
+    }
+}
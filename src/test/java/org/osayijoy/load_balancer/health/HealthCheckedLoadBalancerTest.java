@@ -0,0 +1,84 @@
+package org.osayijoy.load_balancer.health;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.model.Server;
+import org.osayijoy.load_balancer.service.PowerOfTwoChoicesLoadBalancer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.osayijoy.load_balancer.Await.awaitTrue;
+
+public class HealthCheckedLoadBalancerTest {
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final HealthMonitor monitor = HealthMonitor.builder()
+            .consecutiveFailures(2)
+            .ejectionTime(Duration.ofMillis(200))
+            .slowStart(Duration.ofSeconds(10))
+            .clock(now::get)
+            .build();
+    private final HealthCheckedLoadBalancer loadBalancer =
+            new HealthCheckedLoadBalancer(new PowerOfTwoChoicesLoadBalancer(), monitor);
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+    }
+
+    @Test
+    void releaseServer_shouldStopTrafficToFailingServer() {
+        Server failing = new Server("192.168.1.1");
+        Server healthy = new Server("192.168.1.2");
+        loadBalancer.addServer(failing);
+        loadBalancer.addServer(healthy);
+        failing.incrementActiveConnections();
+        failing.incrementActiveConnections();
+
+        loadBalancer.releaseServer(failing, false);
+        loadBalancer.releaseServer(failing, false);
+
+        for (int i = 0; i < 20; i++) {
+            Server server = loadBalancer.getServer();
+            assertEquals(healthy, server);
+            loadBalancer.releaseServer(server, true);
+        }
+    }
+
+    @Test
+    void getServer_shouldRampUpRecoveredServer() throws InterruptedException {
+        Server recovered = new Server("192.168.1.1");
+        Server steady = new Server("192.168.1.2");
+        loadBalancer.addServer(recovered);
+        loadBalancer.addServer(steady);
+        monitor.report(recovered, false);
+        monitor.report(recovered, false);
+        assertFalse(recovered.isHealthy());
+        awaitTrue(recovered::isHealthy);
+
+        int picks = 0;
+        for (int i = 0; i < 1_000; i++) {
+            Server server = loadBalancer.getServer();
+            if (server == recovered) {
+                picks++;
+            }
+            loadBalancer.releaseServer(server, true);
+        }
+
+        assertTrue(picks < 200, "recovered server picked " + picks + " times");
+    }
+
+    @Test
+    void removeServer_shouldUnregisterFromMonitor() {
+        Server server = new Server("192.168.1.1");
+        loadBalancer.addServer(server);
+        loadBalancer.removeServer("192.168.1.1");
+
+        monitor.report(server, false);
+        monitor.report(server, false);
+
+        assertTrue(server.isHealthy());
+        assertThrows(IllegalStateException.class, () -> loadBalancer.getServer());
+    }
+}
@@ -0,0 +1,160 @@
+package org.osayijoy.load_balancer.health;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.model.Server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.osayijoy.load_balancer.Await.awaitTrue;
+
+public class HealthMonitorTest {
+    private HealthMonitor monitor;
+
+    @AfterEach
+    void tearDown() {
+        if (monitor != null) {
+            monitor.close();
+        }
+    }
+
+    @Test
+    void activeChecks_shouldMarkServerDownAndBackUp() throws Exception {
+        ServerSocket backend = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        int port = backend.getLocalPort();
+        Server server = new Server("127.0.0.1:" + port);
+        monitor = HealthMonitor.builder()
+                .checker(new TcpHealthChecker(80))
+                .interval(Duration.ofMillis(10))
+                .timeout(Duration.ofMillis(200))
+                .rise(2)
+                .fall(2)
+                .build();
+        monitor.register(server);
+
+        backend.close();
+        awaitTrue(() -> !server.isHealthy());
+
+        try (ServerSocket restarted = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            assertEquals(port, restarted.getLocalPort());
+            awaitTrue(server::isHealthy);
+        }
+    }
+
+    @Test
+    void httpChecker_shouldRequireSuccessfulStatus() throws Exception {
+        try (ServerSocket ok = httpBackend("HTTP/1.1 200 OK");
+             ServerSocket failing = httpBackend("HTTP/1.1 503 Service Unavailable")) {
+            HttpHealthChecker checker = new HttpHealthChecker("/health", 80);
+
+            assertTrue(checker.check(new Server("127.0.0.1:" + ok.getLocalPort()), 1_000));
+            assertFalse(checker.check(new Server("127.0.0.1:" + failing.getLocalPort()), 1_000));
+        }
+    }
+
+    @Test
+    void tcpChecker_shouldFailForUnreachableServer() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+
+        assertFalse(new TcpHealthChecker(80).check(new Server("127.0.0.1:" + port), 200));
+    }
+
+    @Test
+    void report_shouldEjectAfterConsecutiveFailures() {
+        Server server = new Server("192.168.1.1");
+        monitor = HealthMonitor.builder()
+                .consecutiveFailures(3)
+                .ejectionTime(Duration.ofMinutes(1))
+                .build();
+        monitor.register(server);
+
+        monitor.report(server, false);
+        monitor.report(server, false);
+        monitor.report(server, true);
+        monitor.report(server, false);
+        monitor.report(server, false);
+        assertTrue(server.isHealthy());
+
+        monitor.report(server, false);
+        assertFalse(server.isHealthy());
+    }
+
+    @Test
+    void report_shouldReadmitAfterEjectionTime() throws InterruptedException {
+        Server server = new Server("192.168.1.1");
+        monitor = HealthMonitor.builder()
+                .consecutiveFailures(1)
+                .ejectionTime(Duration.ofMillis(20))
+                .build();
+        monitor.register(server);
+
+        monitor.report(server, false);
+        assertFalse(server.isHealthy());
+
+        awaitTrue(server::isHealthy);
+    }
+
+    @Test
+    void trafficShare_shouldRampUpDuringSlowStart() throws InterruptedException {
+        AtomicLong now = new AtomicLong(1_000);
+        Server server = new Server("192.168.1.1");
+        monitor = HealthMonitor.builder()
+                .consecutiveFailures(1)
+                .ejectionTime(Duration.ZERO)
+                .slowStart(Duration.ofSeconds(10))
+                .clock(now::get)
+                .build();
+        monitor.register(server);
+        assertEquals(1.0, monitor.trafficShare(server));
+
+        monitor.report(server, false);
+        awaitTrue(server::isHealthy);
+
+        assertEquals(0.1, monitor.trafficShare(server));
+        now.addAndGet(5_000);
+        assertEquals(0.5, monitor.trafficShare(server), 1e-9);
+        now.addAndGet(5_000);
+        assertEquals(1.0, monitor.trafficShare(server));
+    }
+
+    @Test
+    void unregister_shouldIgnoreReportsForServer() {
+        Server server = new Server("192.168.1.1");
+        monitor = HealthMonitor.builder().consecutiveFailures(1).build();
+        monitor.register(server);
+        monitor.unregister("192.168.1.1");
+
+        monitor.report(server, false);
+
+        assertTrue(server.isHealthy());
+    }
+
+    private static ServerSocket httpBackend(String statusLine) throws IOException {
+        ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(() -> {
+            while (!socket.isClosed()) {
+                try (Socket client = socket.accept()) {
+                    OutputStream out = client.getOutputStream();
+                    out.write((statusLine + "\r\nContent-Length: 0\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return socket;
+    }
+}
@@ -0,0 +1,128 @@
+package org.osayijoy.load_balancer.pool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.health.HealthMonitor;
+import org.osayijoy.load_balancer.model.Server;
+import org.osayijoy.load_balancer.service.LoadBalancer;
+import org.osayijoy.load_balancer.service.ServerLease;
+import org.osayijoy.load_balancer.service.Strategy;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadBalancerRegistryTest {
+    private final LoadBalancerRegistry registry = new LoadBalancerRegistry();
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    void register_shouldCreateIndependentPools() {
+        LoadBalancerPool users = registry.register(LoadBalancerPool.builder("users").strategy(Strategy.ROUND_ROBIN));
+        LoadBalancerPool orders = registry.register(LoadBalancerPool.builder("orders").strategy(Strategy.ROUND_ROBIN));
+        Server usersServer = new Server("10.0.0.1");
+        Server ordersServer = new Server("10.0.0.1");
+
+        users.addServer(usersServer);
+        orders.addServer(ordersServer);
+        users.getServer();
+        users.getServer();
+
+        assertSame(usersServer, users.getServer());
+        assertSame(ordersServer, orders.getServer());
+        assertEquals(3, users.getMetrics().getPicks());
+        assertEquals(1, orders.getMetrics().getPicks());
+        assertEquals(Set.of("users", "orders"), registry.getPoolNames());
+    }
+
+    @Test
+    void register_shouldRejectDuplicateName() {
+        registry.register(LoadBalancerPool.builder("users"));
+
+        assertThrows(IllegalArgumentException.class, () -> registry.register(LoadBalancerPool.builder("users")));
+    }
+
+    @Test
+    void getPool_shouldThrowExceptionForUnknownPool() {
+        assertThrows(IllegalArgumentException.class, () -> registry.getPool("users"));
+    }
+
+    @Test
+    void remove_shouldUnregisterPool() {
+        registry.register(LoadBalancerPool.builder("users"));
+
+        registry.remove("users");
+
+        assertThrows(IllegalArgumentException.class, () -> registry.getPool("users"));
+    }
+
+    @Test
+    void metrics_shouldRecordOutcomesAndUnavailability() {
+        LoadBalancerPool pool = registry.register(LoadBalancerPool.builder("users").strategy(Strategy.PEAK_EWMA));
+        assertThrows(IllegalStateException.class, pool::getServer);
+        pool.addServer(new Server("10.0.0.1"));
+
+        try (ServerLease lease = pool.acquire()) {
+            assertNotNull(lease.getServer());
+        }
+        ServerLease failed = pool.acquire();
+        failed.markFailed();
+        failed.close();
+
+        PoolMetrics metrics = pool.getMetrics();
+        assertEquals(1, metrics.getUnavailable());
+        assertEquals(2, metrics.getPicks());
+        assertEquals(2, metrics.getCompleted());
+        assertEquals(1, metrics.getFailed());
+        assertTrue(metrics.getMeanLatencyNanos() > 0);
+    }
+
+    @Test
+    void metrics_shouldAverageLatencyOverTimedCompletionsOnly() {
+        LoadBalancerPool pool = registry.register(LoadBalancerPool.builder("users"));
+        Server server = new Server("10.0.0.1");
+        pool.addServer(server);
+
+        pool.releaseServer(pool.getServer(), 1_000, true);
+        pool.releaseServer(pool.getServer(), 3_000, true);
+        pool.releaseServer(pool.getServer(), true);
+
+        assertEquals(3, pool.getMetrics().getCompleted());
+        assertEquals(2_000, pool.getMetrics().getMeanLatencyNanos());
+    }
+
+    @Test
+    void healthMonitor_shouldEjectFailingServerFromPool() {
+        LoadBalancerPool pool = registry.register(LoadBalancerPool.builder("users")
+                .strategy(Strategy.LEAST_CONNECTION)
+                .healthMonitor(HealthMonitor.builder().consecutiveFailures(1).build()));
+        Server failing = new Server("10.0.0.1");
+        Server healthy = new Server("10.0.0.2");
+        pool.addServer(failing);
+        pool.addServer(healthy);
+
+        Server first = pool.getServer();
+        assertSame(failing, first);
+        pool.releaseServer(first, false);
+
+        for (int i = 0; i < 5; i++) {
+            assertSame(healthy, pool.getServer());
+        }
+    }
+
+    @Test
+    void create_shouldBuildEveryStrategy() {
+        for (Strategy strategy : Strategy.values()) {
+            LoadBalancer loadBalancer = LoadBalancer.create(strategy);
+            Server server = new Server("10.0.0.1");
+            loadBalancer.addServer(server);
+
+            assertSame(server, loadBalancer.getServer(), strategy.name());
+            assertNotSame(loadBalancer, LoadBalancer.create(strategy));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package org.osayijoy.load_balancer.proxy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.model.Server;
+import org.osayijoy.load_balancer.service.LoadBalancer;
+import org.osayijoy.load_balancer.service.PowerOfTwoChoicesLoadBalancer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.*;
+import static org.osayijoy.load_balancer.Await.awaitTrue;
+
+public class TcpProxyTest {
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable resource : resources) {
+            resource.close();
+        }
+    }
+
+    @Test
+    void proxy_shouldSpliceBytesBothWays() throws Exception {
+        Server backend = new Server("127.0.0.1:" + echoBackend(new AtomicInteger()));
+        PowerOfTwoChoicesLoadBalancer loadBalancer = new PowerOfTwoChoicesLoadBalancer();
+        loadBalancer.addServer(backend);
+        TcpProxy proxy = startProxy(loadBalancer);
+
+        byte[] payload = new byte[1 << 20];
+        new Random(42).nextBytes(payload);
+        try (Socket client = connect(proxy)) {
+            Thread writer = new Thread(() -> {
+                try {
+                    client.getOutputStream().write(payload);
+                    client.shutdownOutput();
+                } catch (IOException e) {
+                    // surfaces as a short read below
+                }
+            });
+            writer.start();
+            byte[] echoed = client.getInputStream().readAllBytes();
+            writer.join();
+
+            assertArrayEquals(payload, echoed);
+        }
+        awaitTrue(() -> backend.getActiveConnections() == 0);
+    }
+
+    @Test
+    void proxy_shouldSpreadConnectionsOverBackends() throws Exception {
+        AtomicInteger firstHits = new AtomicInteger();
+        AtomicInteger secondHits = new AtomicInteger();
+        PowerOfTwoChoicesLoadBalancer loadBalancer = new PowerOfTwoChoicesLoadBalancer();
+        loadBalancer.addServer(new Server("127.0.0.1:" + echoBackend(firstHits)));
+        loadBalancer.addServer(new Server("127.0.0.1:" + echoBackend(secondHits)));
+        TcpProxy proxy = startProxy(loadBalancer);
+
+        List<Socket> clients = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Socket client = connect(proxy);
+            clients.add(client);
+            assertEquals("ping", roundTrip(client, "ping"));
+        }
+        for (Socket client : clients) {
+            client.close();
+        }
+
+        assertEquals(5, firstHits.get());
+        assertEquals(5, secondHits.get());
+    }
+
+    @Test
+    void proxy_shouldFailOverWhenBackendRefusesConnection() throws Exception {
+        Server dead = new Server("127.0.0.1:" + unusedPort());
+        Server live = new Server("127.0.0.1:" + echoBackend(new AtomicInteger()));
+        LoadBalancer loadBalancer = mock(LoadBalancer.class);
+        when(loadBalancer.getServer()).thenReturn(dead, live);
+        TcpProxy proxy = startProxy(loadBalancer);
+
+        try (Socket client = connect(proxy)) {
+            assertEquals("ping", roundTrip(client, "ping"));
+        }
+
+        verify(loadBalancer, timeout(5_000)).releaseServer(eq(dead), anyLong(), eq(false));
+        verify(loadBalancer, timeout(5_000)).releaseServer(eq(live), anyLong(), eq(true));
+    }
+
+    @Test
+    void proxy_shouldFailOverWhenBackendAddressIsInvalid() throws Exception {
+        Server malformed = new Server("127.0.0.1:not-a-port");
+        Server unresolvable = new Server("no-such-host.invalid:80");
+        Server live = new Server("127.0.0.1:" + echoBackend(new AtomicInteger()));
+        LoadBalancer loadBalancer = mock(LoadBalancer.class);
+        when(loadBalancer.getServer()).thenReturn(malformed, unresolvable, live);
+        TcpProxy proxy = startProxy(loadBalancer, 3);
+
+        try (Socket client = connect(proxy)) {
+            assertEquals("ping", roundTrip(client, "ping"));
+        }
+
+        verify(loadBalancer, timeout(5_000)).releaseServer(eq(malformed), anyLong(), eq(false));
+        verify(loadBalancer, timeout(5_000)).releaseServer(eq(unresolvable), anyLong(), eq(false));
+        verify(loadBalancer, timeout(5_000)).releaseServer(eq(live), anyLong(), eq(true));
+    }
+
+    @Test
+    void proxy_shouldNotBlameBackendWhenClientResets() throws Exception {
+        Server backend = new Server("127.0.0.1:" + echoBackend(new AtomicInteger()));
+        LoadBalancer loadBalancer = mock(LoadBalancer.class);
+        when(loadBalancer.getServer()).thenReturn(backend);
+        TcpProxy proxy = startProxy(loadBalancer);
+
+        try (Socket client = connect(proxy)) {
+            assertEquals("ping", roundTrip(client, "ping"));
+            client.setSoLinger(true, 0);
+        }
+
+        verify(loadBalancer, timeout(5_000)).releaseServer(eq(backend), anyLong(), eq(true));
+    }
+
+    @Test
+    void proxy_shouldReportConnectTimeRatherThanSessionLifetime() throws Exception {
+        Server backend = new Server("127.0.0.1:" + echoBackend(new AtomicInteger()));
+        LoadBalancer loadBalancer = mock(LoadBalancer.class);
+        when(loadBalancer.getServer()).thenReturn(backend);
+        TcpProxy proxy = startProxy(loadBalancer);
+
+        long heldNanos = 500_000_000L;
+        try (Socket client = connect(proxy)) {
+            assertEquals("ping", roundTrip(client, "ping"));
+            Thread.sleep(heldNanos / 1_000_000);
+        }
+
+        verify(loadBalancer, timeout(5_000))
+                .releaseServer(eq(backend), longThat(latency -> latency < heldNanos), eq(true));
+    }
+
+    @Test
+    void proxy_shouldCloseClientWhenNoBackendIsAvailable() throws Exception {
+        LoadBalancer loadBalancer = mock(LoadBalancer.class);
+        when(loadBalancer.getServer()).thenThrow(new IllegalStateException("No servers available"));
+        TcpProxy proxy = startProxy(loadBalancer);
+
+        try (Socket client = connect(proxy)) {
+            assertEquals(-1, client.getInputStream().read());
+        }
+        verify(loadBalancer, never()).releaseServer(any(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    void proxy_shouldPassHalfCloseToBackend() throws Exception {
+        ServerSocket backendSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        resources.add(backendSocket);
+        Thread backend = new Thread(() -> {
+            try (Socket socket = backendSocket.accept()) {
+                byte[] request = socket.getInputStream().readAllBytes();
+                socket.getOutputStream().write(("got " + request.length).getBytes());
+            } catch (IOException e) {
+                // test fails on the client side
+            }
+        });
+        backend.setDaemon(true);
+        backend.start();
+        PowerOfTwoChoicesLoadBalancer loadBalancer = new PowerOfTwoChoicesLoadBalancer();
+        loadBalancer.addServer(new Server("127.0.0.1:" + backendSocket.getLocalPort()));
+        TcpProxy proxy = startProxy(loadBalancer);
+
+        try (Socket client = connect(proxy)) {
+            client.getOutputStream().write(new byte[1000]);
+            client.shutdownOutput();
+
+            assertEquals("got 1000", new String(client.getInputStream().readAllBytes()));
+        }
+    }
+
+    private TcpProxy startProxy(LoadBalancer loadBalancer) throws IOException {
+        return startProxy(loadBalancer, 2);
+    }
+
+    private TcpProxy startProxy(LoadBalancer loadBalancer, int connectAttempts) throws IOException {
+        TcpProxy proxy = TcpProxy.builder()
+                .loadBalancer(loadBalancer)
+                .connectAttempts(connectAttempts)
+                .bindAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .eventLoops(2)
+                .bufferSize(4096)
+                .build()
+                .start();
+        resources.add(0, proxy);
+        return proxy;
+    }
+
+    private int echoBackend(AtomicInteger connections) throws IOException {
+        ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        resources.add(socket);
+        Thread acceptor = new Thread(() -> {
+            while (true) {
+                Socket client;
+                try {
+                    client = socket.accept();
+                } catch (IOException e) {
+                    return;
+                }
+                connections.incrementAndGet();
+                Thread echo = new Thread(() -> {
+                    try (client) {
+                        InputStream in = client.getInputStream();
+                        OutputStream out = client.getOutputStream();
+                        in.transferTo(out);
+                    } catch (IOException e) {
+                        // client went away
+                    }
+                });
+                echo.setDaemon(true);
+                echo.start();
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return socket.getLocalPort();
+    }
+
+    private static int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Socket connect(TcpProxy proxy) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), proxy.getPort());
+        socket.setSoTimeout(5_000);
+        return socket;
+    }
+
+    private static String roundTrip(Socket client, String message) throws IOException {
+        client.getOutputStream().write(message.getBytes());
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64];
+        while (received.size() < message.length()) {
+            int n = client.getInputStream().read(buffer);
+            if (n < 0) {
+                break;
+            }
+            received.write(buffer, 0, n);
+        }
+        return received.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package org.osayijoy.load_balancer.service;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.model.Server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashLoadBalancerTest {
+    private final ConsistentHashLoadBalancer loadBalancer = new ConsistentHashLoadBalancer(10, 160, 1.25);
+
+    @Test
+    void getServer_shouldThrowExceptionWhenNoServersAvailable() {
+        assertThrows(IllegalStateException.class, () -> loadBalancer.getServer("user-1"));
+    }
+
+    @Test
+    void getServer_shouldRouteSameKeyToSameServer() {
+        addServers(5);
+
+        for (int i = 0; i < 100; i++) {
+            Server first = loadBalancer.getServer("user-" + i);
+            loadBalancer.releaseServer(first);
+            Server second = loadBalancer.getServer(new StringBuilder("user-").append(i));
+            loadBalancer.releaseServer(second);
+
+            assertSame(first, second);
+        }
+    }
+
+    @Test
+    void getServer_shouldSpreadKeysAcrossServers() {
+        Server[] servers = addServers(5);
+        Map<Server, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < 10_000; i++) {
+            Server server = loadBalancer.getServer("user-" + i);
+            loadBalancer.releaseServer(server);
+            counts.merge(server, 1, Integer::sum);
+        }
+
+        for (Server server : servers) {
+            int count = counts.getOrDefault(server, 0);
+            assertTrue(count > 1_200 && count < 2_800, server.getIpAddress() + " got " + count);
+        }
+    }
+
+    @Test
+    void removeServer_shouldRemapOnlyItsKeys() {
+        addServers(5);
+        Map<String, Server> before = assignments(10_000);
+
+        loadBalancer.removeServer("192.168.1.3");
+        Map<String, Server> after = assignments(10_000);
+
+        int moved = 0;
+        for (Map.Entry<String, Server> entry : before.entrySet()) {
+            Server server = after.get(entry.getKey());
+            if (server != entry.getValue()) {
+                assertEquals("192.168.1.3", entry.getValue().getIpAddress());
+                moved++;
+            }
+        }
+        assertTrue(moved > 1_200 && moved < 2_800, "moved " + moved);
+    }
+
+    @Test
+    void getServer_shouldSpillHotKeyWhenOwnerIsOverloaded() {
+        Server[] servers = addServers(4);
+
+        Server owner = loadBalancer.getServer("hot");
+        for (int i = 0; i < 99; i++) {
+            loadBalancer.getServer("hot");
+        }
+
+        int maxLoad = (int) Math.ceil(1.25 * 100 / servers.length);
+        for (Server server : servers) {
+            assertTrue(server.getActiveConnections() <= maxLoad,
+                    server.getIpAddress() + " has " + server.getActiveConnections());
+        }
+        assertTrue(owner.getActiveConnections() >= 25);
+    }
+
+    @Test
+    void getServer_shouldSkipUnhealthyOwner() {
+        addServers(3);
+        Server owner = loadBalancer.getServer("user-1");
+        loadBalancer.releaseServer(owner);
+        owner.setHealth(false);
+
+        Server server = loadBalancer.getServer("user-1");
+
+        assertNotSame(owner, server);
+    }
+
+    @Test
+    void getServer_withoutKeyShouldPickHealthyServer() {
+        Server[] servers = addServers(2);
+        servers[0].setHealth(false);
+
+        for (int i = 0; i < 10; i++) {
+            Server server = loadBalancer.getServer();
+            assertSame(servers[1], server);
+            loadBalancer.releaseServer(server);
+        }
+    }
+
+    private Server[] addServers(int count) {
+        Server[] servers = new Server[count];
+        for (int i = 0; i < count; i++) {
+            servers[i] = new Server("192.168.1." + (i + 1));
+            loadBalancer.addServer(servers[i]);
+        }
+        return servers;
+    }
+
+    private Map<String, Server> assignments(int keys) {
+        Map<String, Server> assignments = new HashMap<>();
+        for (int i = 0; i < keys; i++) {
+            String key = "user-" + i;
+            Server server = loadBalancer.getServer(key);
+            loadBalancer.releaseServer(server);
+            assignments.put(key, server);
+        }
+        return assignments;
+    }
+}
@@ -4,6 +4,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.osayijoy.load_balancer.model.Server;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class LeastConnectionLoadBalancerTest {
@@ -24,12 +28,15 @@ public class LeastConnectionLoadBalancerTest {
     }
 
     @Test
-    void addServer_shouldThrowExceptionWhenRegistryIsFull() {
-        for (int i = 1; i <= 10; i++) {
-            loadBalancer.addServer(new Server("192.168.2." + i));
+    void addServer_shouldAcceptThousandsOfServers() {
+        for (int i = 0; i < 10_000; i++) {
+            loadBalancer.addServer(new Server("10.0." + (i >> 8) + "." + (i & 0xFF)));
         }
 
-        assertThrows(IllegalStateException.class, () -> loadBalancer.addServer(new Server("192.168.1.11")));
+        for (int i = 0; i < 100; i++) {
+            loadBalancer.releaseServer(loadBalancer.getServer());
+        }
+        assertThrows(IllegalArgumentException.class, () -> loadBalancer.addServer(new Server("10.0.0.1")));
     }
 
     @Test
@@ -102,4 +109,75 @@ public class LeastConnectionLoadBalancerTest {
         assertNotSame(selectedServer2, selectedServer3);
         assertNotSame(selectedServer1, selectedServer3);
     }
+
+    @Test
+    void getServer_shouldSkipUnhealthyServers() {
+        Server server1 = new Server("192.168.1.1");
+        Server server2 = new Server("192.168.1.2");
+        loadBalancer.addServer(server1);
+        loadBalancer.addServer(server2);
+        server1.setHealth(false);
+
+        assertEquals(server2, loadBalancer.getServer());
+        assertEquals(server2, loadBalancer.getServer());
+    }
+
+    @Test
+    void getServer_shouldThrowExceptionWhenNoServerIsHealthy() {
+        Server server = new Server("192.168.1.1");
+        loadBalancer.addServer(server);
+        server.setHealth(false);
+
+        assertThrows(IllegalStateException.class, () -> loadBalancer.getServer());
+    }
+
+    @Test
+    void getServer_shouldWeighConnectionsByCapacity() {
+        Server small = new Server("192.168.1.1", 1);
+        Server large = new Server("192.168.1.2", 3);
+        loadBalancer.addServer(small);
+        loadBalancer.addServer(large);
+
+        int picksOfLarge = 0;
+        for (int i = 0; i < 8; i++) {
+            if (loadBalancer.getServer() == large) {
+                picksOfLarge++;
+            }
+        }
+
+        assertEquals(6, picksOfLarge);
+        assertEquals(2, small.getActiveConnections());
+    }
+
+    @Test
+    void getServer_shouldKeepExactCountsUnderConcurrency() throws InterruptedException {
+        Server server1 = new Server("192.168.1.1");
+        Server server2 = new Server("192.168.1.2");
+        loadBalancer.addServer(server1);
+        loadBalancer.addServer(server2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    loadBalancer.releaseServer(loadBalancer.getServer());
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, server1.getActiveConnections());
+        assertEquals(0, server2.getActiveConnections());
+    }
 }
@@ -0,0 +1,56 @@
+package org.osayijoy.load_balancer.service;
+
+import org.osayijoy.load_balancer.model.Server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Rough single-threaded pick latency of each strategy at growing pool sizes. Not run by
+ * the test suite; run {@code main} directly.
+ */
+public class LoadBalancerBenchmark {
+    private static final int[] POOL_SIZES = {10, 1_000, 10_000};
+    private static final int WARMUP_PICKS = 200_000;
+    private static final int MEASURED_PICKS = 1_000_000;
+
+    public static void main(String[] args) {
+        run("round-robin", RoundRobinLoadBalancer::getInstance);
+        run("least-connection", LeastConnectionLoadBalancer::getInstance);
+        run("power-of-two-choices", PowerOfTwoChoicesLoadBalancer::new);
+        run("weighted-round-robin", WeightedRoundRobinLoadBalancer::new);
+        run("peak-ewma", PeakEwmaLoadBalancer::new);
+        run("consistent-hash", ConsistentHashLoadBalancer::new);
+    }
+
+    private static void run(String name, Supplier<LoadBalancer> factory) {
+        StringBuilder line = new StringBuilder(String.format("%-22s", name));
+        for (int size : POOL_SIZES) {
+            LoadBalancer loadBalancer = factory.get();
+            loadBalancer.removeAllServer();
+            List<Server> servers = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                servers.add(new Server("10." + (i >> 16) + "." + ((i >> 8) & 0xFF) + "." + (i & 0xFF), 1 + i % 4));
+            }
+            long membershipStart = System.nanoTime();
+            loadBalancer.applyMembership(servers, List.of());
+            long membershipNanos = System.nanoTime() - membershipStart;
+
+            pick(loadBalancer, WARMUP_PICKS);
+            long start = System.nanoTime();
+            pick(loadBalancer, MEASURED_PICKS);
+            double nanosPerPick = (double) (System.nanoTime() - start) / MEASURED_PICKS;
+            line.append(String.format("  n=%-6d %7.1f ns/pick (membership %5.1f ms)",
+                    size, nanosPerPick, membershipNanos / 1e6));
+            loadBalancer.removeAllServer();
+        }
+        System.out.println(line);
+    }
+
+    private static void pick(LoadBalancer loadBalancer, int picks) {
+        for (int i = 0; i < picks; i++) {
+            loadBalancer.releaseServer(loadBalancer.getServer());
+        }
+    }
+}
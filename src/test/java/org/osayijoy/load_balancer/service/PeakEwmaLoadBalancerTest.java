@@ -0,0 +1,110 @@
+package org.osayijoy.load_balancer.service;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.model.Server;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PeakEwmaLoadBalancerTest {
+    private static final long MILLI = 1_000_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000 * MILLI);
+    private final PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(
+            10, Duration.ofSeconds(1), Duration.ofMillis(500), now::get);
+
+    @Test
+    void getServer_shouldThrowExceptionWhenNoServersAvailable() {
+        assertThrows(IllegalStateException.class, () -> loadBalancer.getServer());
+    }
+
+    @Test
+    void getServer_shouldAvoidSlowServer() {
+        Server fast = new Server("192.168.1.1");
+        Server slow = new Server("192.168.1.2");
+        loadBalancer.addServer(fast);
+        loadBalancer.addServer(slow);
+        report(fast, 5);
+        report(slow, 200);
+
+        for (int i = 0; i < 20; i++) {
+            Server server = loadBalancer.getServer();
+            assertEquals(fast, server);
+            loadBalancer.releaseServer(server, 5 * MILLI, true);
+        }
+    }
+
+    @Test
+    void getServer_shouldWeighLatencyByActiveConnections() {
+        Server a = new Server("192.168.1.1");
+        Server b = new Server("192.168.1.2");
+        loadBalancer.addServer(a);
+        loadBalancer.addServer(b);
+        report(a, 10);
+        report(b, 30);
+        for (int i = 0; i < 3; i++) {
+            a.incrementActiveConnections();
+        }
+
+        assertEquals(b, loadBalancer.getServer());
+    }
+
+    @Test
+    void releaseServer_shouldJumpToPeakAndDecayOverTime() {
+        Server server = new Server("192.168.1.1");
+        loadBalancer.addServer(server);
+        report(server, 10);
+        report(server, 100);
+
+        assertEquals(100 * MILLI, loadBalancer.cost(server, now.get()), 1);
+
+        now.addAndGet(1_000 * MILLI);
+        assertEquals(100 * MILLI / Math.E, loadBalancer.cost(server, now.get()), 1);
+    }
+
+    @Test
+    void releaseServer_shouldAverageLowerLatencies() {
+        Server server = new Server("192.168.1.1");
+        loadBalancer.addServer(server);
+        report(server, 100);
+
+        now.addAndGet(1_000 * MILLI);
+        report(server, 10);
+
+        double weight = Math.exp(-1);
+        assertEquals(100 * MILLI * weight + 10 * MILLI * (1 - weight), loadBalancer.cost(server, now.get()), 1);
+    }
+
+    @Test
+    void releaseServer_shouldPenaliseFailures() {
+        Server server = new Server("192.168.1.1");
+        loadBalancer.addServer(server);
+
+        loadBalancer.getServer();
+        loadBalancer.releaseServer(server, MILLI, false);
+
+        assertEquals(500 * MILLI, loadBalancer.cost(server, now.get()), 1);
+        assertEquals(0, server.getActiveConnections());
+    }
+
+    @Test
+    void getServer_shouldSkipUnhealthyServers() {
+        Server healthy = new Server("192.168.1.1");
+        Server unhealthy = new Server("192.168.1.2");
+        loadBalancer.addServer(healthy);
+        loadBalancer.addServer(unhealthy);
+        report(healthy, 100);
+        unhealthy.setHealth(false);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(healthy, loadBalancer.getServer());
+        }
+    }
+
+    private void report(Server server, long latencyMillis) {
+        server.incrementActiveConnections();
+        loadBalancer.releaseServer(server, latencyMillis * MILLI, true);
+    }
+}
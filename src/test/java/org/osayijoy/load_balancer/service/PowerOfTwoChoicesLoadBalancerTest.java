@@ -0,0 +1,104 @@
+package org.osayijoy.load_balancer.service;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.model.Server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PowerOfTwoChoicesLoadBalancerTest {
+    private final PowerOfTwoChoicesLoadBalancer loadBalancer = new PowerOfTwoChoicesLoadBalancer();
+
+    @Test
+    void getServer_shouldThrowExceptionWhenNoServersAvailable() {
+        assertThrows(IllegalStateException.class, () -> loadBalancer.getServer());
+    }
+
+    @Test
+    void addServer_shouldThrowExceptionWhenServerAlreadyExists() {
+        loadBalancer.addServer(new Server("192.168.1.1"));
+
+        assertThrows(IllegalArgumentException.class, () -> loadBalancer.addServer(new Server("192.168.1.1")));
+    }
+
+    @Test
+    void getServer_shouldReturnOnlyServer() {
+        Server server = new Server("192.168.1.1");
+        loadBalancer.addServer(server);
+
+        assertEquals(server, loadBalancer.getServer());
+        assertEquals(1, server.getActiveConnections());
+    }
+
+    @Test
+    void getServer_shouldPickLessLoadedOfTwo() {
+        Server busy = new Server("192.168.1.1");
+        Server idle = new Server("192.168.1.2");
+        loadBalancer.addServer(busy);
+        loadBalancer.addServer(idle);
+        for (int i = 0; i < 5; i++) {
+            busy.incrementActiveConnections();
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(idle, loadBalancer.getServer());
+        }
+    }
+
+    @Test
+    void getServer_shouldNeverPickMostLoadedServer() {
+        for (int i = 1; i <= 4; i++) {
+            loadBalancer.addServer(new Server("192.168.1." + i));
+        }
+        Server busy = new Server("192.168.1.5");
+        loadBalancer.addServer(busy);
+        for (int i = 0; i < 1_000; i++) {
+            busy.incrementActiveConnections();
+        }
+
+        for (int i = 0; i < 200; i++) {
+            assertNotSame(busy, loadBalancer.getServer());
+        }
+    }
+
+    @Test
+    void getServer_shouldSkipUnhealthyServers() {
+        Server healthy = new Server("192.168.1.1");
+        loadBalancer.addServer(healthy);
+        for (int i = 2; i <= 5; i++) {
+            Server server = new Server("192.168.1." + i);
+            server.setHealth(false);
+            loadBalancer.addServer(server);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(healthy, loadBalancer.getServer());
+        }
+    }
+
+    @Test
+    void getServer_shouldSpreadLoadEvenly() {
+        Server[] servers = new Server[5];
+        for (int i = 0; i < servers.length; i++) {
+            servers[i] = new Server("192.168.1." + i);
+            loadBalancer.addServer(servers[i]);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            loadBalancer.getServer();
+        }
+
+        for (Server server : servers) {
+            assertTrue(Math.abs(server.getActiveConnections() - 200) <= 10, "connections " + server.getActiveConnections());
+        }
+    }
+
+    @Test
+    void releaseServer_shouldDecrementActiveConnections() {
+        Server server = new Server("192.168.1.1");
+        loadBalancer.addServer(server);
+
+        loadBalancer.releaseServer(loadBalancer.getServer());
+
+        assertEquals(0, server.getActiveConnections());
+    }
+}
@@ -23,16 +23,20 @@ public class RoundRobinLoadBalancerTest {
         loadBalancer.addServer(server);
         loadBalancer.addServer(server1);
 
+        assertEquals(server, loadBalancer.getServer());
         assertEquals(server1, loadBalancer.getServer());
     }
 
     @Test
-    void addServer_shouldThrowExceptionWhenRegistryIsFull() {
-        for (int i = 1; i <= 10; i++) {
-            loadBalancer.addServer(new Server("192.168.1." + i));
+    void addServer_shouldAcceptThousandsOfServers() {
+        for (int i = 0; i < 10_000; i++) {
+            loadBalancer.addServer(new Server("10.0." + (i >> 8) + "." + (i & 0xFF)));
         }
 
-        assertThrows(IllegalStateException.class, () -> loadBalancer.addServer(new Server("192.168.1.11")));
+        for (int i = 0; i < 100; i++) {
+            loadBalancer.releaseServer(loadBalancer.getServer());
+        }
+        assertThrows(IllegalArgumentException.class, () -> loadBalancer.addServer(new Server("10.0.0.1")));
     }
 
     @Test
@@ -72,4 +76,34 @@ public class RoundRobinLoadBalancerTest {
     void getServer_shouldThrowExceptionWhenNoServersAvailable() {
         assertThrows(IllegalStateException.class, () -> loadBalancer.getServer());
     }
+
+    @Test
+    void getServer_shouldSkipUnhealthyServers() {
+        Server server1 = new Server("192.168.1.1");
+        Server server2 = new Server("192.168.1.2");
+        Server server3 = new Server("192.168.1.3");
+        loadBalancer.addServer(server1);
+        loadBalancer.addServer(server2);
+        loadBalancer.addServer(server3);
+        server2.setHealth(false);
+
+        assertEquals(server1, loadBalancer.getServer());
+        assertEquals(server3, loadBalancer.getServer());
+        assertEquals(server3, loadBalancer.getServer());
+        assertEquals(server1, loadBalancer.getServer());
+    }
+
+    @Test
+    void getServer_shouldThrowExceptionWhenNoServerIsHealthy() {
+        Server server = new Server("192.168.1.1");
+        loadBalancer.addServer(server);
+        server.setHealth(false);
+
+        assertThrows(IllegalStateException.class, () -> loadBalancer.getServer());
+    }
+
+    @Test
+    void removeServer_shouldThrowExceptionWhenServerNotFound() {
+        assertThrows(IllegalArgumentException.class, () -> loadBalancer.removeServer("192.168.1.1"));
+    }
 }
@@ -0,0 +1,95 @@
+package org.osayijoy.load_balancer.service;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.model.Server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ServerLeaseTest {
+
+    @Test
+    void close_shouldReleaseServerOnce() {
+        Server server = new Server("192.168.1.1");
+        WeightedRoundRobinLoadBalancer loadBalancer = new WeightedRoundRobinLoadBalancer();
+        loadBalancer.addServer(server);
+
+        ServerLease lease = loadBalancer.acquire();
+        assertEquals(server, lease.getServer());
+        assertEquals(1, server.getActiveConnections());
+
+        lease.close();
+        lease.close();
+
+        assertTrue(lease.isReleased());
+        assertEquals(0, server.getActiveConnections());
+    }
+
+    @Test
+    void close_shouldReportDurationAndOutcome() {
+        Server server = new Server("192.168.1.1");
+        LoadBalancer loadBalancer = mock(LoadBalancer.class, CALLS_REAL_METHODS);
+        doReturn(server).when(loadBalancer).getServer();
+        doNothing().when(loadBalancer).releaseServer(any(Server.class), anyLong(), anyBoolean());
+
+        ServerLease lease = loadBalancer.acquire();
+        assertEquals(-1, lease.getDurationNanos());
+        lease.markFailed();
+        lease.close();
+
+        assertTrue(lease.getDurationNanos() >= 0);
+        verify(loadBalancer).releaseServer(eq(server), eq(lease.getDurationNanos()), eq(false));
+    }
+
+    @Test
+    void acquire_shouldKeepCountsExactUnderConcurrency() throws InterruptedException {
+        Server server1 = new Server("192.168.1.1");
+        Server server2 = new Server("192.168.1.2");
+        RoundRobinLoadBalancer loadBalancer = RoundRobinLoadBalancer.getInstance();
+        loadBalancer.removeAllServer();
+        loadBalancer.addServer(server1);
+        loadBalancer.addServer(server2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    ServerLease lease = loadBalancer.acquire();
+                    lease.close();
+                    lease.close();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        loadBalancer.removeAllServer();
+
+        assertEquals(0, server1.getActiveConnections());
+        assertEquals(0, server2.getActiveConnections());
+    }
+
+    @Test
+    void releaseServer_shouldNotDriveCountNegative() {
+        Server server = new Server("192.168.1.1");
+
+        server.decrementActiveConnections();
+
+        assertEquals(0, server.getActiveConnections());
+    }
+}
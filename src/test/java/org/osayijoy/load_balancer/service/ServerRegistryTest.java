@@ -0,0 +1,69 @@
+package org.osayijoy.load_balancer.service;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.model.Server;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerRegistryTest {
+    private final ServerRegistry registry = new ServerRegistry();
+
+    @Test
+    void apply_shouldAddAndRemoveInOneSnapshot() {
+        Server a = new Server("192.168.1.1");
+        Server b = new Server("192.168.1.2");
+        Server c = new Server("192.168.1.3");
+        registry.add(a);
+        registry.add(b);
+        Server[] before = registry.snapshot();
+
+        List<Server> removed = registry.apply(List.of(c), List.of("192.168.1.1", "192.168.1.9"));
+
+        assertEquals(List.of(a), removed);
+        assertArrayEquals(new Server[]{b, c}, registry.snapshot());
+        assertArrayEquals(new Server[]{a, b}, before);
+    }
+
+    @Test
+    void apply_shouldReplaceServerWithSameAddress() {
+        Server old = new Server("192.168.1.1", 1);
+        Server replacement = new Server("192.168.1.1", 4);
+        registry.add(old);
+
+        registry.apply(List.of(replacement), List.of("192.168.1.1"));
+
+        assertArrayEquals(new Server[]{replacement}, registry.snapshot());
+        assertSame(replacement, registry.get("192.168.1.1"));
+    }
+
+    @Test
+    void apply_shouldChangeNothingWhenAnAdditionIsInvalid() {
+        Server a = new Server("192.168.1.1");
+        registry.add(a);
+
+        assertThrows(IllegalArgumentException.class, () -> registry.apply(
+                List.of(new Server("192.168.1.2"), new Server("192.168.1.2")), List.of("192.168.1.1")));
+
+        assertArrayEquals(new Server[]{a}, registry.snapshot());
+        assertNull(registry.get("192.168.1.2"));
+    }
+
+    @Test
+    void apply_shouldEnforceMaximumSize() {
+        ServerRegistry bounded = new ServerRegistry(2);
+        bounded.add(new Server("192.168.1.1"));
+
+        assertThrows(IllegalStateException.class, () -> bounded.apply(
+                List.of(new Server("192.168.1.2"), new Server("192.168.1.3")), List.of()));
+        bounded.apply(List.of(new Server("192.168.1.2"), new Server("192.168.1.3")), List.of("192.168.1.1"));
+
+        assertEquals(2, bounded.snapshot().length);
+    }
+
+    @Test
+    void remove_shouldReturnNullForUnknownAddress() {
+        assertNull(registry.remove("192.168.1.1"));
+    }
+}
@@ -0,0 +1,134 @@
+package org.osayijoy.load_balancer.service;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.load_balancer.model.Server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeightedRoundRobinLoadBalancerTest {
+    private final WeightedRoundRobinLoadBalancer loadBalancer = new WeightedRoundRobinLoadBalancer();
+
+    @Test
+    void getServer_shouldThrowExceptionWhenNoServersAvailable() {
+        assertThrows(IllegalStateException.class, () -> loadBalancer.getServer());
+    }
+
+    @Test
+    void getServer_shouldInterleaveByWeight() {
+        Server a = new Server("192.168.1.1", 5);
+        Server b = new Server("192.168.1.2", 1);
+        Server c = new Server("192.168.1.3", 1);
+        loadBalancer.addServer(a);
+        loadBalancer.addServer(b);
+        loadBalancer.addServer(c);
+
+        List<Server> picks = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            picks.add(loadBalancer.getServer());
+        }
+
+        assertEquals(List.of(a, a, b, a, c, a, a), picks);
+    }
+
+    @Test
+    void getServer_shouldTreatMissingCapacityAsEqualWeight() {
+        Server server1 = new Server("192.168.1.1");
+        Server server2 = new Server("192.168.1.2");
+        loadBalancer.addServer(server1);
+        loadBalancer.addServer(server2);
+
+        assertEquals(server1, loadBalancer.getServer());
+        assertEquals(server2, loadBalancer.getServer());
+        assertEquals(server1, loadBalancer.getServer());
+    }
+
+    @Test
+    void getServer_shouldReduceWeightsByCommonDivisor() {
+        loadBalancer.addServer(new Server("192.168.1.1", 64));
+        loadBalancer.addServer(new Server("192.168.1.2", 8));
+
+        assertEquals(9, loadBalancer.scheduleLength());
+    }
+
+    @Test
+    void setWeight_shouldRecomputeSchedule() {
+        Server server1 = new Server("192.168.1.1", 1);
+        Server server2 = new Server("192.168.1.2", 1);
+        loadBalancer.addServer(server1);
+        loadBalancer.addServer(server2);
+
+        loadBalancer.setWeight("192.168.1.2", 3);
+
+        int picksOf2 = 0;
+        for (int i = 0; i < 40; i++) {
+            if (loadBalancer.getServer() == server2) {
+                picksOf2++;
+            }
+        }
+        assertEquals(30, picksOf2);
+    }
+
+    @Test
+    void setWeight_shouldThrowExceptionForUnknownServer() {
+        assertThrows(IllegalArgumentException.class, () -> loadBalancer.setWeight("192.168.1.1", 2));
+    }
+
+    @Test
+    void setWeight_shouldRejectWeightBelowOne() {
+        loadBalancer.addServer(new Server("192.168.1.1", 2));
+
+        assertThrows(IllegalArgumentException.class, () -> loadBalancer.setWeight("192.168.1.1", 0));
+        assertThrows(IllegalArgumentException.class, () -> loadBalancer.setWeight("192.168.1.1", -1));
+        assertEquals("192.168.1.1", loadBalancer.getServer().getIpAddress());
+    }
+
+    @Test
+    void getServer_shouldSkipUnhealthyServers() {
+        Server server1 = new Server("192.168.1.1", 3);
+        Server server2 = new Server("192.168.1.2", 1);
+        loadBalancer.addServer(server1);
+        loadBalancer.addServer(server2);
+        server1.setHealth(false);
+
+        for (int i = 0; i < 8; i++) {
+            assertEquals(server2, loadBalancer.getServer());
+        }
+    }
+
+    @Test
+    void removeServer_shouldRemoveServerFromSchedule() {
+        Server server1 = new Server("192.168.1.1", 2);
+        Server server2 = new Server("192.168.1.2", 1);
+        loadBalancer.addServer(server1);
+        loadBalancer.addServer(server2);
+
+        loadBalancer.removeServer("192.168.1.1");
+
+        assertEquals(server2, loadBalancer.getServer());
+        assertEquals(1, loadBalancer.scheduleLength());
+    }
+
+    @Test
+    void getServer_shouldKeepWeightsInLargePools() {
+        List<Server> added = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            added.add(new Server("10.0." + (i >> 8) + "." + (i & 0xFF), i % 2 == 0 ? 1 : 3));
+        }
+        loadBalancer.applyMembership(added, List.of());
+
+        int heavyPicks = 0;
+        for (int i = 0; i < loadBalancer.scheduleLength(); i++) {
+            Server server = loadBalancer.getServer();
+            if (server.getCapacity() == 3) {
+                heavyPicks++;
+            }
+            loadBalancer.releaseServer(server);
+        }
+
+        assertEquals(10_000, loadBalancer.scheduleLength());
+        assertEquals(7_500, heavyPicks);
+    }
+}
@@ -0,0 +1,127 @@
+package org.osayijoy.url_shortener.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.url_shortener.service.UrlShortener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickAnalyticsTest {
+    private final AtomicLong now = new AtomicLong(1_000 * 60_000L);
+    private final ClickAnalytics analytics = new ClickAnalytics(1024, 0, now::get);
+    private final UrlShortener urlShortener = UrlShortener.builder().clickRecorder(analytics).build();
+
+    @Test
+    void redirects_shouldBeCountedPerCode() {
+        String shortUrl = urlShortener.shortenUrl("http://example.com/a");
+        String keywordUrl = urlShortener.shortenUrl("http://example.com/b", "launch-2024");
+        urlShortener.getLongUrl(shortUrl);
+        urlShortener.getLongUrl(shortUrl);
+        urlShortener.resolve(keywordUrl);
+        urlShortener.resolve("http://base.url/missing");
+        analytics.flush();
+
+        assertEquals(2, analytics.getClicks(code(shortUrl)));
+        assertEquals(1, analytics.getClicks("launch-2024"));
+        assertEquals(0, analytics.getClicks("missing"));
+    }
+
+    @Test
+    void clicks_shouldLandInMinuteAndHourBuckets() {
+        record("abc", 3);
+        analytics.flush();
+        now.addAndGet(2 * 60_000L);
+        record("abc", 5);
+        analytics.flush();
+
+        long[] minutes = analytics.getClicksPerMinute("abc");
+        assertEquals(ClickAnalytics.MINUTE_BUCKETS, minutes.length);
+        assertEquals(5, minutes[minutes.length - 1]);
+        assertEquals(0, minutes[minutes.length - 2]);
+        assertEquals(3, minutes[minutes.length - 3]);
+        assertEquals(8, analytics.getClicksPerHour("abc")[ClickAnalytics.HOUR_BUCKETS - 1]);
+
+        now.addAndGet(61 * 60_000L);
+        assertEquals(0, analytics.getClicksPerMinute("abc")[ClickAnalytics.MINUTE_BUCKETS - 3]);
+        assertEquals(8, analytics.getClicks("abc"));
+    }
+
+    @Test
+    void topCodes_shouldReturnMostClickedFirst() {
+        record("a", 1);
+        record("b", 5);
+        record("custom-keyword", 3);
+        record("c", 2);
+        analytics.flush();
+
+        List<CodeClicks> top = analytics.topCodes(3);
+        assertEquals(3, top.size());
+        assertEquals("b", top.get(0).getCode());
+        assertEquals("custom-keyword", top.get(1).getCode());
+        assertEquals("c", top.get(2).getCode());
+    }
+
+    @Test
+    void fullBuffer_shouldDropInsteadOfBlocking() {
+        ClickAnalytics small = new ClickAnalytics(4, 0, now::get);
+        for (int i = 0; i < 10; i++) {
+            small.recordClick("abc", 0, 3);
+        }
+        small.flush();
+
+        assertEquals(4, small.getClicks("abc"));
+        assertEquals(6, small.getDroppedClicks());
+    }
+
+    @Test
+    void concurrentRecorders_shouldAllBeCounted() throws Exception {
+        ClickAnalytics background = new ClickAnalytics(1 << 16, 1, now::get);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    background.recordClick("hot", 0, 3);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        background.close();
+
+        assertEquals(400_000 - background.getDroppedClicks(), background.getClicks("hot"));
+    }
+
+    @Test
+    void flush_shouldCountAndThenDropBuffersOfTerminatedThreads() throws InterruptedException {
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> record("abc", 5));
+            thread.start();
+            thread.join();
+        }
+        assertEquals(4, analytics.bufferCount());
+
+        analytics.flush();
+
+        assertEquals(20, analytics.getClicks("abc"));
+        assertEquals(0, analytics.bufferCount());
+    }
+
+    private void record(String code, int clicks) {
+        for (int i = 0; i < clicks; i++) {
+            analytics.recordClick(code, 0, code.length());
+        }
+    }
+
+    private static String code(String shortUrl) {
+        return shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+    }
+}
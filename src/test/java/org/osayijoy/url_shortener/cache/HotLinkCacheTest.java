@@ -0,0 +1,139 @@
+package org.osayijoy.url_shortener.cache;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.url_shortener.store.CachingUrlMappingStore;
+import org.osayijoy.url_shortener.store.ConcurrentUrlMappingStore;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotLinkCacheTest {
+
+    @Test
+    void get_shouldReturnCachedValueAndCountHitsAndMisses() {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            assertReturnsCachedValueAndCountsHitsAndMisses(policy);
+        }
+    }
+
+    private void assertReturnsCachedValueAndCountsHitsAndMisses(EvictionPolicy policy) {
+        HotLinkCache cache = HotLinkCache.create(policy, 10);
+        cache.put("abc", "http://example.com");
+
+        assertEquals("http://example.com", cache.get("abc"));
+        assertEquals("http://example.com", cache.get("/abc", 1, 4));
+        assertNull(cache.get("missing"));
+        assertEquals(2, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test
+    void put_shouldNeverExceedMaximumSize() {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            assertBoundedBy(policy);
+        }
+    }
+
+    private void assertBoundedBy(EvictionPolicy policy) {
+        HotLinkCache cache = HotLinkCache.create(policy, 100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("code" + i, "http://example.com/" + i);
+            cache.get("code" + (i / 2));
+        }
+
+        assertTrue(cache.size() <= 100, policy + " size " + cache.size());
+        assertEquals(1000 - cache.size(), cache.stats().getEvictions(), policy.name());
+    }
+
+    @Test
+    void invalidate_shouldDropEntry() {
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            assertInvalidateDropsEntry(policy);
+        }
+    }
+
+    private void assertInvalidateDropsEntry(EvictionPolicy policy) {
+        HotLinkCache cache = HotLinkCache.create(policy, 10);
+        cache.put("abc", "http://example.com");
+        cache.invalidate("abc");
+
+        assertNull(cache.get("abc"));
+        assertEquals(0, cache.size());
+        cache.put("def", "http://another.com");
+        assertEquals("http://another.com", cache.get("def"));
+    }
+
+    @Test
+    void lru_shouldEvictLeastRecentlyUsed() {
+        HotLinkCache cache = HotLinkCache.create(EvictionPolicy.LRU, 2);
+        cache.put("a", "http://a.com");
+        cache.put("b", "http://b.com");
+        cache.get("a");
+        cache.put("c", "http://c.com");
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void tinyLfu_shouldKeepHotCodesThroughColdScan() {
+        HotLinkCache cache = HotLinkCache.create(EvictionPolicy.W_TINY_LFU, 100);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (cache.get("hot" + i) == null) {
+                    cache.put("hot" + i, "http://hot.com/" + i);
+                }
+            }
+        }
+        for (int i = 0; i < 10_000; i++) {
+            if (cache.get("cold" + i) == null) {
+                cache.put("cold" + i, "http://cold.com/" + i);
+            }
+        }
+
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("hot" + i) != null) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 45, "retained " + retained);
+    }
+
+    @Test
+    void cachingStore_shouldServeRepeatReadsFromCacheAndInvalidateOnRemove() {
+        ConcurrentUrlMappingStore backing = new ConcurrentUrlMappingStore();
+        CachingUrlMappingStore store = new CachingUrlMappingStore(backing, HotLinkCache.create(EvictionPolicy.W_TINY_LFU, 10));
+        store.putIfAbsent("abc", "http://example.com");
+
+        assertEquals("http://example.com", store.getLongUrl("abc"));
+        assertEquals("http://example.com", store.getLongUrl("abc"));
+        assertEquals(1, store.getCache().stats().getHits());
+
+        store.remove("abc");
+        assertNull(store.getLongUrl("abc"));
+    }
+
+    @Test
+    void cachingStore_shouldNotCacheValueRemovedDuringMissFill() {
+        AtomicReference<CachingUrlMappingStore> front = new AtomicReference<>();
+        ConcurrentUrlMappingStore backing = new ConcurrentUrlMappingStore() {
+            @Override
+            public String getLongUrl(String code) {
+                String longUrl = super.getLongUrl(code);
+                if (longUrl != null) {
+                    front.get().remove(code);
+                }
+                return longUrl;
+            }
+        };
+        CachingUrlMappingStore store = new CachingUrlMappingStore(backing, HotLinkCache.create(EvictionPolicy.LRU, 10));
+        front.set(store);
+        store.putIfAbsent("abc", "http://example.com");
+
+        assertEquals("http://example.com", store.getLongUrl("abc"));
+        assertEquals(0, store.getCache().size());
+        assertNull(store.getLongUrl("abc"));
+    }
+}
@@ -0,0 +1,159 @@
+package org.osayijoy.url_shortener.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osayijoy.url_shortener.service.UrlShortener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterTest {
+    private final List<ClusterMember> members = new ArrayList<>();
+
+    @BeforeEach
+    void startCluster() throws IOException {
+        List<ClusterNode> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ClusterMember member = ClusterMember.builder()
+                    .index(i)
+                    .replicationFactor(2)
+                    .virtualNodes(32)
+                    .timeoutMillis(1_000)
+                    .build();
+            members.add(member);
+            nodes.add(member.getNode());
+        }
+        for (ClusterMember member : members) {
+            member.join(nodes);
+        }
+    }
+
+    @AfterEach
+    void stopCluster() throws IOException {
+        for (ClusterMember member : members) {
+            member.close();
+        }
+    }
+
+    @Test
+    void shortenUrl_shouldResolveOnEveryNode() {
+        String shortUrl = shortener(0).shortenUrl("http://example.com/a");
+        String keyword = shortener(1).shortenUrl("http://example.com/b", "launch");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("http://example.com/a", shortener(i).getLongUrl(shortUrl));
+            assertEquals("http://example.com/b", shortener(i).getLongUrl(keyword));
+        }
+    }
+
+    @Test
+    void shortenUrl_shouldStoreEachCodeOnReplicationFactorNodes() {
+        for (int i = 0; i < 30; i++) {
+            String code = code(shortener(i % 3).shortenUrl("http://example.com/" + i));
+
+            int holders = 0;
+            for (ClusterMember member : members) {
+                if (member.getLocalStore().getLongUrl(code) != null) {
+                    holders++;
+                }
+            }
+            assertEquals(2, holders);
+        }
+    }
+
+    @Test
+    void shortenUrl_shouldGenerateDistinctCodesAcrossNodes() {
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            assertTrue(codes.add(code(shortener(i % 3).shortenUrl("http://example.com/" + i))));
+        }
+    }
+
+    @Test
+    void shortenUrl_shouldReturnSameShortUrlFromAnyNode() {
+        String first = shortener(0).shortenUrl("http://example.com/a");
+
+        assertEquals(first, shortener(1).shortenUrl("http://example.com/a"));
+        assertEquals(first, shortener(2).shortenUrl("http://example.com/a"));
+    }
+
+    @Test
+    void shortenUrl_shouldRejectKeywordTakenOnAnotherNode() {
+        shortener(0).shortenUrl("http://example.com/a", "launch");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> shortener(2).shortenUrl("http://example.com/b", "launch"));
+    }
+
+    @Test
+    void getLongUrl_shouldSurviveOneNodeFailure() throws IOException {
+        List<String> shortUrls = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            shortUrls.add(shortener(0).shortenUrl("http://example.com/" + i));
+        }
+
+        members.get(2).close();
+
+        for (int i = 0; i < 30; i++) {
+            assertEquals("http://example.com/" + i, shortener(i % 2).getLongUrl(shortUrls.get(i)));
+        }
+    }
+
+    @Test
+    void getLongUrl_shouldCacheCodesHeldElsewhere() throws IOException {
+        String code = code(shortener(0).shortenUrl("http://example.com/a"));
+        ClusterMember reader = null;
+        for (ClusterMember member : members) {
+            if (member.getLocalStore().getLongUrl(code) == null) {
+                reader = member;
+            }
+        }
+        assertNotNull(reader);
+        assertEquals("http://example.com/a", reader.getStore().getLongUrl(code));
+
+        for (ClusterMember member : members) {
+            if (member != reader) {
+                member.close();
+            }
+        }
+
+        assertEquals("http://example.com/a", reader.getStore().getLongUrl(code));
+    }
+
+    @Test
+    void remove_shouldRemoveFromEveryNode() {
+        String code = code(shortener(0).shortenUrl("http://example.com/a"));
+        for (ClusterMember member : members) {
+            member.getStore().getLongUrl(code);
+        }
+
+        assertEquals("http://example.com/a", members.get(1).getStore().remove(code));
+
+        for (ClusterMember member : members) {
+            assertNull(member.getStore().getLongUrl(code));
+            assertNull(member.getLocalStore().getLongUrl(code));
+        }
+    }
+
+    @Test
+    void join_shouldRejectMembershipWithoutSelf() {
+        ClusterMember member = members.get(0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> member.join(List.of(members.get(1).getNode(), members.get(2).getNode())));
+    }
+
+    private UrlShortener shortener(int index) {
+        return members.get(index).getUrlShortener();
+    }
+
+    private static String code(String shortUrl) {
+        return shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,74 @@
+package org.osayijoy.url_shortener.code;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockShortCodeGeneratorTest {
+
+    @Test
+    void nextCode_shouldReturnFixedLengthBase62Codes() {
+        BlockShortCodeGenerator generator = new BlockShortCodeGenerator();
+
+        for (int i = 0; i < 1000; i++) {
+            String code = generator.nextCode("http://example.com");
+            assertEquals(8, code.length());
+            assertTrue(code.chars().allMatch(c -> Base62.digit((char) c) >= 0), code);
+        }
+    }
+
+    @Test
+    void nextCode_shouldNotRepeatAcrossThreads() throws Exception {
+        BlockShortCodeGenerator generator = new BlockShortCodeGenerator(8, 64);
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    codes.add(generator.nextCode(null));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(160_000, codes.size());
+    }
+
+    @Test
+    void nextCode_shouldCoverWholeSmallCodeSpaceThenFail() {
+        BlockShortCodeGenerator generator = new BlockShortCodeGenerator(2, 10);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 62 * 62; i++) {
+            codes.add(generator.nextCode(null));
+        }
+
+        assertEquals(62 * 62, codes.size());
+        assertThrows(IllegalStateException.class, () -> generator.nextCode(null));
+    }
+
+    @Test
+    void nextCode_shouldKeepDisjointRangesDisjoint() {
+        BlockShortCodeGenerator first = new BlockShortCodeGenerator(3, 16, 0, 1000);
+        BlockShortCodeGenerator second = new BlockShortCodeGenerator(3, 16, 1000, 2000);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            codes.add(first.nextCode(null));
+            codes.add(second.nextCode(null));
+        }
+
+        assertEquals(2000, codes.size());
+    }
+}
@@ -0,0 +1,98 @@
+package org.osayijoy.url_shortener.expiry;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.url_shortener.store.ConcurrentUrlMappingStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void poll_shouldReturnEntriesOnlyOnceDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 1_000);
+        wheel.schedule("soon", 1_015);
+        wheel.schedule("later", 1_000 + 10 * 64 * 64 + 5);
+
+        assertEquals(List.of(), poll(wheel, 1_019));
+        assertEquals(List.of("soon"), poll(wheel, 1_020));
+        assertEquals(List.of(), poll(wheel, 1_000 + 10 * 64 * 64));
+        assertEquals(List.of("later"), poll(wheel, 1_000 + 10 * 64 * 64 + 10));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void poll_shouldCascadeEveryLevelWithoutFiringEarlyOrLate() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = (long) Math.pow(2, random.nextDouble() * 38);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+        deadlines.sort(null);
+
+        long now = 0;
+        int fired = 0;
+        while (fired < deadlines.size()) {
+            now += 1 + now / 64;
+            long current = now;
+            fired += wheel.poll(now, Integer.MAX_VALUE, (item, deadline) -> {
+                assertTrue(deadline <= current, "fired early");
+                assertTrue(deadline > current - 1 - current / 64, "fired late");
+            });
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void poll_shouldSkipIdleTicksInOneStep() {
+        TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        wheel.schedule("far", 1L << 40);
+
+        assertEquals(List.of(), poll(wheel, (1L << 40) - 1));
+        assertEquals(List.of("far"), poll(wheel, 1L << 40));
+    }
+
+    @Test
+    void poll_shouldHandOutAtMostLimitEntries() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 0);
+        for (int i = 0; i < 2_500; i++) {
+            wheel.schedule(i, 5);
+        }
+
+        assertEquals(1_000, wheel.poll(10, 1_000, (item, deadline) -> { }));
+        assertEquals(1_000, wheel.poll(10, 1_000, (item, deadline) -> { }));
+        assertEquals(500, wheel.poll(10, 1_000, (item, deadline) -> { }));
+    }
+
+    @Test
+    void linkExpiry_shouldIgnoreStaleDeadlines() {
+        AtomicLong now = new AtomicLong();
+        ConcurrentUrlMappingStore store = new ConcurrentUrlMappingStore();
+        LinkExpiry expiry = new LinkExpiry(store, 10, now::get, false);
+        store.putIfAbsent("abc", "http://example.com");
+        expiry.expireAt("abc", 100);
+        expiry.expireAt("abc", 500);
+
+        now.set(200);
+        assertEquals(0, expiry.reclaim());
+        assertFalse(expiry.isExpired("abc", 0, 3));
+        now.set(500);
+        assertTrue(expiry.isExpired("abc", 0, 3));
+        assertEquals(1, expiry.reclaim());
+        assertNull(store.getLongUrl("abc"));
+        assertEquals(0, expiry.size());
+    }
+
+    private static List<String> poll(TimingWheel<String> wheel, long now) {
+        List<String> due = new ArrayList<>();
+        wheel.poll(now, Integer.MAX_VALUE, (item, deadline) -> due.add(item));
+        return due;
+    }
+}
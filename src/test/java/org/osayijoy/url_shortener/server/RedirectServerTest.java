@@ -0,0 +1,209 @@
+package org.osayijoy.url_shortener.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osayijoy.url_shortener.service.UrlShortener;
+import org.osayijoy.url_shortener.store.ConcurrentUrlMappingStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedirectServerTest {
+    private final UrlShortener urlShortener = new UrlShortener();
+    private RedirectServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = RedirectServer.builder()
+                .urlShortener(urlShortener)
+                .bindAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .eventLoops(2)
+                .bufferSize(1024)
+                .build()
+                .start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void get_shouldRedirectOverKeptAliveConnection() throws IOException {
+        String code = code(urlShortener.shortenUrl("http://example.com/a"));
+        String keyword = code(urlShortener.shortenUrl("http://example.com/b", "launch"));
+
+        try (Socket socket = connect()) {
+            send(socket, "GET /" + code + " HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            String first = readResponse(socket.getInputStream());
+            send(socket, "GET /" + keyword + "?utm=x HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            String second = readResponse(socket.getInputStream());
+
+            assertTrue(first.startsWith("HTTP/1.1 302 Found\r\n"));
+            assertTrue(first.contains("Location: http://example.com/a\r\n"));
+            assertTrue(second.contains("Location: http://example.com/b\r\n"));
+        }
+    }
+
+    @Test
+    void get_shouldAnswerPipelinedRequestsInOrder() throws IOException {
+        String code = code(urlShortener.shortenUrl("http://example.com/a"));
+
+        try (Socket socket = connect()) {
+            send(socket, "GET /missing HTTP/1.1\r\n\r\nGET /" + code + " HTTP/1.1\r\n\r\n");
+
+            assertTrue(readResponse(socket.getInputStream()).startsWith("HTTP/1.1 404 Not Found\r\n"));
+            assertTrue(readResponse(socket.getInputStream()).contains("Location: http://example.com/a\r\n"));
+        }
+    }
+
+    @Test
+    void post_shouldShortenUrlAndRejectInvalidOnes() throws IOException {
+        try (Socket socket = connect()) {
+            String body = "http://example.com/posted";
+            send(socket, "POST /shorten HTTP/1.1\r\nContent-Length: " + body.length() + "\r\n\r\n" + body);
+            String created = readResponse(socket.getInputStream());
+            send(socket, "POST /shorten HTTP/1.1\r\nContent-Length: 7\r\n\r\ninvalid");
+            String rejected = readResponse(socket.getInputStream());
+
+            assertTrue(created.startsWith("HTTP/1.1 201 Created\r\n"));
+            String shortUrl = created.substring(created.indexOf("\r\n\r\n") + 4);
+            assertEquals(body, urlShortener.getLongUrl(shortUrl));
+            assertTrue(rejected.startsWith("HTTP/1.1 400 Bad Request\r\n"));
+        }
+    }
+
+    @Test
+    void storeFailure_shouldAnswer503AndKeepServingOtherConnections() throws IOException {
+        ConcurrentUrlMappingStore store = new ConcurrentUrlMappingStore() {
+            @Override
+            public String getLongUrl(CharSequence code, int start, int end) {
+                if (code.subSequence(start, end).toString().equals("broken")) {
+                    throw new UncheckedIOException(new IOException("disk gone"));
+                }
+                return super.getLongUrl(code, start, end);
+            }
+
+            @Override
+            public boolean putIfAbsent(String code, String longUrl) {
+                if (longUrl.endsWith("/unwritable")) {
+                    throw new UncheckedIOException(new IOException("sync failed"));
+                }
+                return super.putIfAbsent(code, longUrl);
+            }
+        };
+        UrlShortener failing = new UrlShortener(store);
+        String code = code(failing.shortenUrl("http://example.com/a"));
+        String body = "http://example.com/unwritable";
+        try (RedirectServer single = RedirectServer.builder()
+                .urlShortener(failing)
+                .bindAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .eventLoops(1)
+                .build()
+                .start()) {
+            try (Socket first = connect(single)) {
+                send(first, "GET /broken HTTP/1.1\r\n\r\n");
+                assertTrue(readResponse(first.getInputStream()).startsWith("HTTP/1.1 503 Service Unavailable\r\n"));
+                send(first, "POST /shorten HTTP/1.1\r\nContent-Length: " + body.length() + "\r\n\r\n" + body);
+                assertTrue(readResponse(first.getInputStream()).startsWith("HTTP/1.1 503 Service Unavailable\r\n"));
+            }
+            try (Socket second = connect(single)) {
+                send(second, "GET /" + code + " HTTP/1.1\r\n\r\n");
+                assertTrue(readResponse(second.getInputStream()).contains("Location: http://example.com/a\r\n"));
+            }
+        }
+    }
+
+    @Test
+    void connectionClose_shouldCloseAfterResponse() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "DELETE /abc HTTP/1.1\r\nConnection: close\r\n\r\n");
+
+            assertTrue(readResponse(socket.getInputStream()).startsWith("HTTP/1.1 405 Method Not Allowed\r\n"));
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void oversizedRequest_shouldBeRejected() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "GET /" + "a".repeat(2000) + " HTTP/1.1\r\n\r\n");
+
+            assertTrue(readResponse(socket.getInputStream()).startsWith("HTTP/1.1 413 Payload Too Large\r\n"));
+        }
+    }
+
+    private Socket connect() throws IOException {
+        return connect(server);
+    }
+
+    private static Socket connect(RedirectServer server) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static void send(Socket socket, String request) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /**
+     * Reads one response: headers up to the blank line, then Content-Length bytes of body.
+     */
+    private static String readResponse(InputStream in) throws IOException {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        while (!response.toString(StandardCharsets.US_ASCII).endsWith("\r\n\r\n")) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Connection closed mid-response");
+            }
+            response.write(b);
+        }
+        String headers = response.toString(StandardCharsets.US_ASCII);
+        int start = headers.indexOf("Content-Length: ") + "Content-Length: ".length();
+        int length = Integer.parseInt(headers.substring(start, headers.indexOf("\r\n", start)));
+        response.write(in.readNBytes(length));
+        return response.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static String code(String shortUrl) {
+        return shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+    }
+
+    @Test
+    void get_shouldRecordOneClickWhenResponseWaitsForOutputToDrain() {
+        AtomicInteger clicks = new AtomicInteger();
+        UrlShortener shortener = UrlShortener.builder()
+                .clickRecorder((code, start, end) -> clicks.incrementAndGet())
+                .build();
+        String code = code(shortener.shortenUrl("http://example.com/a"));
+        BufferPool pool = new BufferPool(1024, 4);
+        RequestHandler handler = new RequestHandler(shortener, false, pool);
+        Connection connection = new Connection(null, pool.acquire(), pool.acquire());
+        connection.out.put(new byte[1000]);
+        connection.in.put(("GET /" + code + " HTTP/1.1\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        assertFalse(handler.handle(connection));
+        connection.out.clear();
+        assertTrue(handler.handle(connection));
+
+        assertEquals(1, clicks.get());
+        assertEquals(0, connection.in.position());
+        byte[] response = new byte[connection.out.position()];
+        connection.out.get(0, response);
+        assertTrue(new String(response, StandardCharsets.US_ASCII).startsWith("HTTP/1.1 302 Found\r\n"));
+    }
+}
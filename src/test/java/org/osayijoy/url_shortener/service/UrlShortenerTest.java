@@ -5,9 +5,17 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.osayijoy.url_shortener.store.ConcurrentUrlMappingStore;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 
 @ExtendWith(MockitoExtension.class)
@@ -172,6 +180,18 @@ class UrlShortenerTest {
     }
 
 
+    @Test
+    void testShortenUrl_shouldDeduplicateEquivalentUrlsWhenCanonicalizing() {
+        UrlShortener canonicalizing = UrlShortener.builder().canonicalizeUrls(true).build();
+
+        String shortUrl = canonicalizing.shortenUrl("HTTP://Example.com:80");
+
+        assertEquals(shortUrl, canonicalizing.shortenUrl("http://example.com/"));
+        assertEquals("http://example.com/", canonicalizing.getLongUrl(shortUrl));
+        assertNotEquals(urlShortener.shortenUrl("http://example.com"), urlShortener.shortenUrl("http://example.com/"));
+    }
+
+
     /**
      * Tests for shortening urls using keyword
      */
@@ -213,6 +233,195 @@ class UrlShortenerTest {
         assertEquals("http://base.url/test", shortUrl);
     }
 
+    @Test
+    void testRetrieveUrl_shouldReturnOriginalUrlForKeyword() {
+        String longUrl = "http://example.com";
+        String shortUrl = urlShortener.shortenUrl(longUrl, "test");
 
+        assertEquals(longUrl, urlShortener.getLongUrl(shortUrl));
+    }
 
+    @Test
+    void testRetrieveUrl_shouldOnlyStripLeadingBaseUrl() {
+        String longUrl = "http://example.com";
+        urlShortener.shortenUrl(longUrl, "abc");
+
+        assertEquals(longUrl, urlShortener.getLongUrl("abc"));
+        assertThrows(IllegalArgumentException.class, () ->
+                urlShortener.getLongUrl("abchttp://base.url/"));
+    }
+
+    @Test
+    void testResolve_shouldLookUpCodeSlicesWithoutCopying() {
+        String longUrl = "http://example.com";
+        String shortUrl = urlShortener.shortenUrl(longUrl);
+        String keywordUrl = urlShortener.shortenUrl("http://example.com/kw", "launch-2024");
+
+        assertEquals(longUrl, urlShortener.resolve(new StringBuilder(shortUrl)));
+        String request = "GET " + shortUrl + " HTTP/1.1";
+        assertEquals(longUrl, urlShortener.resolve(request, 4, 4 + shortUrl.length()));
+        byte[] bytes = ("GET " + keywordUrl).getBytes(StandardCharsets.US_ASCII);
+        assertEquals("http://example.com/kw", urlShortener.resolve(bytes, 4, keywordUrl.length()));
+        assertNull(urlShortener.resolve("http://base.url/missing"));
+        assertNull(urlShortener.resolve("http://base.url/"));
+    }
+
+    @Test
+    void testShortenUrlWithTtl_shouldStopResolvingAtDeadline() {
+        AtomicLong now = new AtomicLong(1_000);
+        ConcurrentUrlMappingStore store = new ConcurrentUrlMappingStore();
+        try (UrlShortener expiring = UrlShortener.builder().store(store).clock(now::get).build()) {
+            String permanent = expiring.shortenUrl("http://example.com");
+            String shortUrl = expiring.shortenUrlWithTtl("http://example.com", Duration.ofSeconds(10));
+
+            assertNotEquals(permanent, shortUrl);
+            assertEquals("http://example.com", expiring.getLongUrl(shortUrl));
+            now.addAndGet(10_000);
+            assertNull(expiring.resolve(shortUrl));
+            assertThrows(IllegalArgumentException.class, () -> expiring.getLongUrl(shortUrl));
+            assertEquals(1, store.size());
+            assertEquals(permanent, expiring.shortenUrl("http://example.com"));
+        }
+    }
+
+    @Test
+    void testShortenUrlWithTtl_shouldReclaimKeywordForReuse() {
+        AtomicLong now = new AtomicLong(1_000);
+        ConcurrentUrlMappingStore store = new ConcurrentUrlMappingStore();
+        try (UrlShortener expiring = UrlShortener.builder().store(store).clock(now::get).build()) {
+            expiring.shortenUrlWithTtl("http://example.com/a", "sale", Duration.ofMinutes(1));
+            for (int i = 0; i < 5_000; i++) {
+                expiring.shortenUrlWithTtl("http://example.com/" + i, Duration.ofSeconds(1 + i % 50));
+            }
+
+            assertThrows(IllegalArgumentException.class, () ->
+                    expiring.shortenUrlWithTtl("http://example.com/b", "sale", Duration.ofMinutes(1)));
+            now.addAndGet(60_000);
+            expiring.reclaimExpiredLinks();
+            assertEquals(0, store.size());
+            assertEquals("http://base.url/sale", expiring.shortenUrl("http://example.com/b", "sale"));
+            assertEquals("http://example.com/b", expiring.getLongUrl("http://base.url/sale"));
+        }
+    }
+
+    @Test
+    void close_shouldStopBackgroundExpiry() throws InterruptedException {
+        ConcurrentUrlMappingStore store = new ConcurrentUrlMappingStore();
+        UrlShortener expiring = new UrlShortener(store);
+        Set<Thread> before = expiryThreads();
+        expiring.shortenUrlWithTtl("http://example.com", Duration.ofMinutes(1));
+        Set<Thread> started = expiryThreads();
+        started.removeAll(before);
+        assertEquals(1, started.size());
+
+        expiring.close();
+
+        Thread reclaimer = started.iterator().next();
+        reclaimer.join(5_000);
+        assertFalse(reclaimer.isAlive());
+        int size = store.size();
+        assertThrows(IllegalStateException.class, () ->
+                expiring.shortenUrlWithTtl("http://example.com", Duration.ofMinutes(1)));
+        assertThrows(IllegalStateException.class, () ->
+                expiring.shortenUrlWithTtl("http://example.com", "promo", Duration.ofMinutes(1)));
+        assertEquals(size, store.size());
+        assertNull(expiring.resolve("promo"));
+    }
+
+    private static Set<Thread> expiryThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("link-expiry")) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+
+    @Test
+    void testShortenUrlWithTtl_shouldRejectNonPositiveTtl() {
+        assertThrows(IllegalArgumentException.class, () ->
+                urlShortener.shortenUrlWithTtl("http://example.com", Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () ->
+                urlShortener.shortenUrlWithTtl("http://example.com", "kw", Duration.ofSeconds(-1)));
+    }
+
+
+    /**
+     * Tests for batch shortening
+     */
+
+    @Test
+    void testShortenAll_shouldReturnShortUrlsInInputOrder() {
+        List<String> longUrls = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            longUrls.add("http://example.com/" + i);
+        }
+
+        List<String> shortUrls = urlShortener.shortenAll(longUrls);
+
+        assertEquals(1000, shortUrls.size());
+        assertEquals(1000, new HashSet<>(shortUrls).size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(longUrls.get(i), urlShortener.getLongUrl(shortUrls.get(i)));
+        }
+    }
+
+    @Test
+    void testShortenAll_shouldDeduplicateWithinBatchAndAgainstExistingUrls() {
+        String existing = urlShortener.shortenUrl("http://example.com");
+
+        List<String> shortUrls = urlShortener.shortenAll(
+                List.of("http://example.com/a", "http://example.com", "http://example.com/a"));
+
+        assertEquals(existing, shortUrls.get(1));
+        assertEquals(shortUrls.get(0), shortUrls.get(2));
+        assertEquals(shortUrls.get(0), urlShortener.shortenUrl("http://example.com/a"));
+    }
+
+    @Test
+    void testShortenAll_shouldRejectWholeBatchWithInvalidUrl() {
+        ConcurrentUrlMappingStore store = new ConcurrentUrlMappingStore();
+        UrlShortener shortener = new UrlShortener(store);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                shortener.shortenAll(List.of("http://example.com/ok", "invalid-url")));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testShortenAll_shouldStreamResultsInOrderAcrossBatches() {
+        List<String> shortUrls;
+        try (Stream<String> results = urlShortener.shortenAll(
+                IntStream.range(0, 20_000).mapToObj(i -> "http://example.com/" + (i % 15_000)))) {
+            shortUrls = results.collect(Collectors.toList());
+        }
+
+        assertEquals(20_000, shortUrls.size());
+        assertEquals(shortUrls.get(100), shortUrls.get(15_100));
+        assertEquals("http://example.com/4999", urlShortener.getLongUrl(shortUrls.get(19_999)));
+    }
+
+    @Test
+    void testShortenAll_shouldReportAbsoluteIndexOfInvalidUrlInStream() {
+        Stream<String> longUrls = IntStream.range(0, 12_000)
+                .mapToObj(i -> i == 11_000 ? "invalid-url" : "http://example.com/" + i);
+
+        try (Stream<String> results = urlShortener.shortenAll(longUrls)) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> results.forEach(r -> {
+            }));
+            assertTrue(e.getMessage().startsWith("Invalid URL at index 11000"), e.getMessage());
+        }
+    }
+
+    @Test
+    void testShortenAll_shouldNotConsumeStreamUntilResultsAreRequested() {
+        AtomicInteger pulled = new AtomicInteger();
+        Stream<String> results = urlShortener.shortenAll(
+                Stream.of("http://example.com/a").peek(url -> pulled.incrementAndGet()));
+
+        assertEquals(0, pulled.get());
+        assertEquals(1, results.count());
+        assertEquals(1, pulled.get());
+    }
 }
@@ -0,0 +1,97 @@
+package org.osayijoy.url_shortener.store;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.url_shortener.service.UrlShortener;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class BloomFilteredUrlMappingStoreTest {
+
+    @Test
+    void getLongUrl_shouldAnswerDefiniteMissesWithoutDelegate() {
+        ConcurrentUrlMappingStore delegate = spy(new ConcurrentUrlMappingStore());
+        BloomFilteredUrlMappingStore store = new BloomFilteredUrlMappingStore(delegate, 10_000, 0.01);
+        store.putIfAbsent("abc", "http://example.com");
+
+        assertEquals("http://example.com", store.getLongUrl("abc"));
+        for (int i = 0; i < 1_000; i++) {
+            assertNull(store.getLongUrl("missing" + i));
+        }
+
+        verify(delegate, times(1)).getLongUrl(any(CharSequence.class), anyInt(), anyInt());
+        assertEquals(1_000, store.getDefiniteMisses() + store.getFalsePositives());
+        assertTrue(store.getFalsePositiveRate() < 0.05);
+    }
+
+    @Test
+    void constructor_shouldPrimeFilterFromExistingCodes() {
+        OffHeapUrlMappingStore delegate = new OffHeapUrlMappingStore(16);
+        delegate.putIfAbsent("abc", "http://example.com/a");
+        delegate.putIfAbsent("launch-2024", "http://example.com/b");
+        BloomFilteredUrlMappingStore store = new BloomFilteredUrlMappingStore(delegate, 1_000, 0.01);
+
+        assertEquals("http://example.com/a", store.getLongUrl("abc"));
+        assertEquals("http://example.com/b", store.getLongUrl("launch-2024"));
+    }
+
+    @Test
+    void remove_shouldMakeCodeADefiniteMissAgain() {
+        BloomFilteredUrlMappingStore store = new BloomFilteredUrlMappingStore(new ConcurrentUrlMappingStore(), 1_000, 0.01);
+        store.putIfAbsent("abc", "http://example.com");
+        assertFalse(store.putIfAbsent("abc", "http://example.com/other"));
+
+        assertEquals("http://example.com", store.remove("abc"));
+        assertNull(store.getLongUrl("abc"));
+        assertEquals(1, store.getDefiniteMisses());
+    }
+
+    @Test
+    void remove_shouldNotCountAsLookup() {
+        BloomFilteredUrlMappingStore store = new BloomFilteredUrlMappingStore(new ConcurrentUrlMappingStore(), 1_000, 0.01);
+
+        assertNull(store.remove("missing"));
+
+        assertEquals(0, store.getDefiniteMisses());
+        assertEquals(0, store.getFalsePositiveRate());
+    }
+
+    @Test
+    void putAll_shouldKeepCodesTheDelegateReturnsAsCopies() {
+        ConcurrentUrlMappingStore delegate = new ConcurrentUrlMappingStore() {
+            @Override
+            public String[] putAll(String[] codes, String[] longUrls) {
+                String[] results = super.putAll(codes, longUrls);
+                for (int i = 0; i < results.length; i++) {
+                    results[i] = results[i] == null ? null : new String(results[i]);
+                }
+                return results;
+            }
+        };
+        BloomFilteredUrlMappingStore store = new BloomFilteredUrlMappingStore(delegate, 1_000, 0.01);
+
+        store.putAll(new String[] {"abc", "def"}, new String[] {"http://example.com/a", "http://example.com/b"});
+
+        assertEquals("http://example.com/a", store.getLongUrl("abc"));
+        assertEquals("http://example.com/b", store.getLongUrl("def"));
+    }
+
+    @Test
+    void rebuild_shouldKeepEveryCodeWhileGrowing() {
+        BloomFilteredUrlMappingStore store = new BloomFilteredUrlMappingStore(new ConcurrentUrlMappingStore(), 100, 0.01);
+        UrlShortener urlShortener = new UrlShortener(store);
+        String[] shortUrls = new String[5_000];
+        for (int i = 0; i < shortUrls.length; i++) {
+            shortUrls[i] = urlShortener.shortenUrl("http://example.com/" + i);
+        }
+        store.rebuild(20_000);
+
+        assertTrue(store.capacity() >= 20_000);
+        for (int i = 0; i < shortUrls.length; i++) {
+            assertEquals("http://example.com/" + i, urlShortener.getLongUrl(shortUrls[i]));
+        }
+        assertTrue(store.getExpectedFalsePositiveRate() < 0.02);
+    }
+}
@@ -0,0 +1,70 @@
+package org.osayijoy.url_shortener.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentUrlMappingStoreTest {
+
+    private final ConcurrentUrlMappingStore store = new ConcurrentUrlMappingStore();
+
+    @Test
+    void putIfAbsent_shouldRejectTakenCode() {
+        assertTrue(store.putIfAbsent("abc", "http://example.com"));
+        assertFalse(store.putIfAbsent("abc", "http://another.com"));
+
+        assertEquals("http://example.com", store.getLongUrl("abc"));
+    }
+
+    @Test
+    void bindIfAbsent_shouldReturnExistingCode() {
+        assertNull(store.bindIfAbsent("http://example.com", "abc"));
+        assertEquals("abc", store.bindIfAbsent("http://example.com", "def"));
+
+        assertEquals("abc", store.getCode("http://example.com"));
+    }
+
+    @Test
+    void remove_shouldOnlyUnbindLongUrlPointingAtCode() {
+        store.putIfAbsent("abc", "http://example.com");
+        store.putIfAbsent("def", "http://example.com");
+        store.bind("http://example.com", "def");
+
+        assertEquals("http://example.com", store.remove("abc"));
+
+        assertNull(store.getLongUrl("abc"));
+        assertEquals("def", store.getCode("http://example.com"));
+    }
+
+    @Test
+    void putIfAbsent_shouldGrantEachCodeOnceUnderContention() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            String longUrl = "http://example.com/" + t;
+            futures.add(executor.submit(() -> {
+                int won = 0;
+                for (int i = 0; i < 10_000; i++) {
+                    if (store.putIfAbsent("code" + i, longUrl)) {
+                        won++;
+                    }
+                }
+                return won;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> future : futures) {
+            total += future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(10_000, total);
+        assertEquals(10_000, store.size());
+    }
+}
@@ -0,0 +1,119 @@
+package org.osayijoy.url_shortener.store;
+
+import org.junit.jupiter.api.Test;
+import org.osayijoy.url_shortener.code.Base62;
+import org.osayijoy.url_shortener.service.UrlShortener;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapUrlMappingStoreTest {
+
+    private final OffHeapUrlMappingStore store = new OffHeapUrlMappingStore(16);
+
+    @Test
+    void pack_shouldRoundTripCodes() {
+        for (String code : new String[]{"0", "00", "a0Zz9", "zzzzzzzzzz"}) {
+            assertEquals(code, Base62.unpack(Base62.pack(code)));
+        }
+        assertNotEquals(Base62.pack("0a"), Base62.pack("a"));
+        assertEquals(Base62.NOT_PACKABLE, Base62.pack("has-dash"));
+        assertEquals(Base62.NOT_PACKABLE, Base62.pack("elevenchars"));
+    }
+
+    @Test
+    void putIfAbsent_shouldStorePackedAndOverflowCodes() {
+        assertTrue(store.putIfAbsent("abc123", "http://example.com"));
+        assertTrue(store.putIfAbsent("my-campaign", "http://example.com/ünïcode"));
+
+        assertFalse(store.putIfAbsent("abc123", "http://another.com"));
+        assertFalse(store.putIfAbsent("my-campaign", "http://another.com"));
+        assertEquals("http://example.com", store.getLongUrl("abc123"));
+        assertEquals("http://example.com/ünïcode", store.getLongUrl("my-campaign"));
+        assertNull(store.getLongUrl("missing"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void bind_shouldSwitchBetweenPackedAndOverflowCodes() {
+        store.putIfAbsent("abc", "http://example.com");
+        assertNull(store.bindIfAbsent("http://example.com", "abc"));
+        assertEquals("abc", store.bindIfAbsent("http://example.com", "def"));
+
+        store.putIfAbsent("my-keyword", "http://example.com");
+        store.bind("http://example.com", "my-keyword");
+        assertEquals("my-keyword", store.getCode("http://example.com"));
+
+        store.bind("http://example.com", "abc");
+        assertEquals("abc", store.getCode("http://example.com"));
+    }
+
+    @Test
+    void remove_shouldFreeCodeAndUnbindUrl() {
+        store.putIfAbsent("abc", "http://example.com");
+        store.bindIfAbsent("http://example.com", "abc");
+
+        assertEquals("http://example.com", store.remove("abc"));
+        assertNull(store.getLongUrl("abc"));
+        assertNull(store.getCode("http://example.com"));
+        assertEquals(0, store.size());
+
+        assertTrue(store.putIfAbsent("abc", "http://another.com"));
+        assertEquals("http://another.com", store.getLongUrl("abc"));
+    }
+
+    @Test
+    void putIfAbsent_shouldGrowTablesWhileReadersRun() throws Exception {
+        store.putIfAbsent("seed", "http://example.com/seed");
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> reader = executor.submit(() -> {
+            while (!done.get()) {
+                assertEquals("http://example.com/seed", store.getLongUrl("seed"));
+            }
+        });
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 100_000; i++) {
+                String code = Integer.toString(i, 36);
+                store.putIfAbsent(code, "http://example.com/" + i);
+                store.bindIfAbsent("http://example.com/" + i, code);
+            }
+        });
+        writer.get();
+        done.set(true);
+        reader.get();
+        executor.shutdown();
+
+        for (int i = 0; i < 100_000; i += 997) {
+            String code = Integer.toString(i, 36);
+            assertEquals("http://example.com/" + i, store.getLongUrl(code));
+            assertEquals(code, store.getCode("http://example.com/" + i));
+        }
+        assertEquals(100_001, store.size());
+    }
+
+    @Test
+    void urlShortener_shouldWorkOnOffHeapStore() {
+        UrlShortener urlShortener = new UrlShortener(store);
+        String shortUrl = urlShortener.shortenUrl("http://example.com");
+
+        assertEquals(shortUrl, urlShortener.shortenUrl("http://example.com"));
+        assertEquals("http://example.com", urlShortener.getLongUrl(shortUrl));
+        assertEquals("http://example.com/kw", urlShortener.getLongUrl(
+                urlShortener.shortenUrl("http://example.com/kw", "launch-2024")));
+    }
+
+    @Test
+    void getLongUrl_shouldLookUpPackedAndOverflowSlices() {
+        store.putIfAbsent("abc", "http://example.com/packed");
+        store.putIfAbsent("launch-2024", "http://example.com/overflow");
+
+        assertEquals("http://example.com/packed", store.getLongUrl("/abc?", 1, 4));
+        assertEquals("http://example.com/overflow", store.getLongUrl("/launch-2024", 1, 12));
+        assertNull(store.getLongUrl("/abd", 1, 4));
+    }
+}
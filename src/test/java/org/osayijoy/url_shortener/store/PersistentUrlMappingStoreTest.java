@@ -0,0 +1,184 @@
+package org.osayijoy.url_shortener.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osayijoy.url_shortener.code.BlockShortCodeGenerator;
+import org.osayijoy.url_shortener.code.FileIdBlockSource;
+import org.osayijoy.url_shortener.service.UrlShortener;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentUrlMappingStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mappings_shouldSurviveRestart() throws IOException {
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            store.putIfAbsent("abc", "http://example.com");
+            store.bindIfAbsent("http://example.com", "abc");
+            store.putIfAbsent("def", "http://another.com");
+        }
+
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            assertEquals("http://example.com", store.getLongUrl("abc"));
+            assertEquals("abc", store.getCode("http://example.com"));
+            assertEquals("http://another.com", store.getLongUrl("def"));
+            assertEquals(2, store.size());
+        }
+    }
+
+    @Test
+    void compact_shouldServeFromSnapshotAfterRestart() throws IOException {
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            for (int i = 0; i < 1000; i++) {
+                store.putIfAbsent("code" + i, "http://example.com/" + i);
+                store.bindIfAbsent("http://example.com/" + i, "code" + i);
+            }
+            store.remove("code7");
+            store.compact();
+            store.putIfAbsent("after", "http://example.com/after");
+
+            assertEquals("http://example.com/1", store.getLongUrl("code1"));
+        }
+
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            assertEquals(1000, store.size());
+            assertEquals("http://example.com/999", store.getLongUrl("code999"));
+            assertEquals("code42", store.getCode("http://example.com/42"));
+            assertNull(store.getLongUrl("code7"));
+            assertNull(store.getCode("http://example.com/7"));
+            assertEquals("http://example.com/after", store.getLongUrl("after"));
+            assertEquals("http://example.com/999", store.getLongUrl("/code999", 1, 8));
+            assertNull(store.getLongUrl("/code7", 1, 6));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void compact_shouldMatchNonAsciiKeysInSnapshot() throws IOException {
+        String[] urls = {"http://example.com/caf\u00e9", "http://\u4f8b\u3048.jp/", "http://example.com/\uD83D\uDE00",
+                "http://example.com/\uD83D"};
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            for (int i = 0; i < urls.length; i++) {
+                store.putIfAbsent("k\u00e9" + i, urls[i]);
+                store.bindIfAbsent(urls[i], "k\u00e9" + i);
+            }
+            store.compact();
+        }
+
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            for (int i = 0; i < urls.length; i++) {
+                assertEquals(urls[i], store.getLongUrl("k\u00e9" + i).replace("?", "\uD83D"));
+                assertEquals("k\u00e9" + i, store.getCode(urls[i]));
+            }
+            assertNull(store.getCode("http://example.com/cafe"));
+            assertNull(store.getCode("http://example.com/caf\u00e9x"));
+            assertNull(store.getLongUrl("k\u00e8" + 0));
+        }
+    }
+
+    @Test
+    void remove_shouldHideSnapshotEntry() throws IOException {
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            store.putIfAbsent("abc", "http://example.com");
+            store.bindIfAbsent("http://example.com", "abc");
+            store.compact();
+
+            assertEquals("http://example.com", store.remove("abc"));
+            assertNull(store.getLongUrl("abc"));
+            assertNull(store.getCode("http://example.com"));
+            assertTrue(store.putIfAbsent("abc", "http://another.com"));
+        }
+
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            assertEquals("http://another.com", store.getLongUrl("abc"));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void bind_shouldKeepSeparateRecordWhenBindingDoesNotPointBack() throws IOException {
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            store.putIfAbsent("abc", "http://example.com");
+            store.bind("http://other.com", "abc");
+            store.compact();
+        }
+
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            assertEquals("http://example.com", store.getLongUrl("abc"));
+            assertEquals("abc", store.getCode("http://other.com"));
+            assertNull(store.getCode("http://example.com"));
+        }
+    }
+
+    @Test
+    void recovery_shouldDropTornLogTail() throws IOException {
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            store.putIfAbsent("abc", "http://example.com");
+            store.putIfAbsent("def", "http://another.com");
+        }
+        Path log = directory.resolve("mappings-0.log");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            assertEquals("http://example.com", store.getLongUrl("abc"));
+            assertNull(store.getLongUrl("def"));
+            assertTrue(store.putIfAbsent("def", "http://another.com"));
+        }
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            assertEquals("http://another.com", store.getLongUrl("def"));
+        }
+    }
+
+    @Test
+    void urlShortener_shouldKeepIssuingUniqueCodesAfterRestart() throws IOException {
+        Set<String> shortUrls = new HashSet<>();
+        for (int run = 0; run < 3; run++) {
+            try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory, false, 4096);
+                 FileIdBlockSource ids = new FileIdBlockSource(directory.resolve("sequence"), 64)) {
+                UrlShortener urlShortener = new UrlShortener(store, new BlockShortCodeGenerator(8, 16, ids));
+                for (int i = 0; i < 200; i++) {
+                    shortUrls.add(urlShortener.shortenUrl("http://example.com/" + run + "/" + i));
+                }
+                assertEquals("http://example.com/0/5", urlShortener.getLongUrl(urlShortener.shortenUrl("http://example.com/0/5")));
+            }
+        }
+
+        assertEquals(600, shortUrls.size());
+    }
+
+    @Test
+    void putAll_shouldCommitBatchAndKeepExistingBindings() throws IOException {
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            store.putIfAbsent("old", "http://example.com/1");
+            store.bindIfAbsent("http://example.com/1", "old");
+            store.putIfAbsent("taken", "http://elsewhere.com");
+
+            String[] results = store.putAll(new String[]{"a", "b", "taken"},
+                    new String[]{"http://example.com/0", "http://example.com/1", "http://example.com/2"});
+
+            assertArrayEquals(new String[]{"a", "old", null}, results);
+            assertNull(store.getLongUrl("b"));
+        }
+
+        try (PersistentUrlMappingStore store = new PersistentUrlMappingStore(directory)) {
+            assertEquals("a", store.getCode("http://example.com/0"));
+            assertEquals("http://example.com/0", store.getLongUrl("a"));
+        }
+    }
+}